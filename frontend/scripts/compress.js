@@ -0,0 +1,32 @@
+// Writes .br and .gz copies of the text files in build/ so that the backend
+// (StaticResourceConfig) can send them precompressed. Runs after `npm run build`.
+const fs = require("fs");
+const path = require("path");
+const zlib = require("zlib");
+
+const BUILD_DIR = path.join(__dirname, "..", "build");
+const COMPRESSIBLE = /\.(js|css|html|json|svg|txt|map|ico)$/;
+const MIN_BYTES = 1024;
+
+function* files(dir) {
+  for (const entry of fs.readdirSync(dir, { withFileTypes: true })) {
+    const file = path.join(dir, entry.name);
+    if (entry.isDirectory()) {
+      yield* files(file);
+    } else {
+      yield file;
+    }
+  }
+}
+
+for (const file of files(BUILD_DIR)) {
+  if (!COMPRESSIBLE.test(file)) continue;
+  const content = fs.readFileSync(file);
+  if (content.length < MIN_BYTES) continue;
+  const brotli = zlib.brotliCompressSync(content, {
+    params: { [zlib.constants.BROTLI_PARAM_QUALITY]: 11 },
+  });
+  const gzip = zlib.gzipSync(content, { level: 9 });
+  if (brotli.length < content.length) fs.writeFileSync(`${file}.br`, brotli);
+  if (gzip.length < content.length) fs.writeFileSync(`${file}.gz`, gzip);
+}
@@ -17,7 +17,7 @@ import lombok.extern.slf4j.Slf4j;
  */
 @SpringBootApplication
 @Slf4j
-@EnableAsync // for @Async annotation for JobsService
+@EnableAsync // for @Async annotation for JobsService (see JobExecutorConfig)
 @EnableScheduling // for @Scheduled annotation for JobsService
 public class ExampleApplication {
 
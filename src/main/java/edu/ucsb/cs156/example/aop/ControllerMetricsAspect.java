@@ -0,0 +1,186 @@
+package edu.ucsb.cs156.example.aop;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * This class is an Aspect that records metrics for all invocations of controller methods that are
+ * annotated with {@code @RequestMapping}, {@code @GetMapping}, {@code @PostMapping}, {@code
+ * @PutMapping}, {@code @DeleteMapping}, or {@code @PatchMapping}.
+ *
+ * <p>For each controller method it keeps, tagged with {@code controller} and {@code method}:
+ *
+ * <ul>
+ *   <li>{@code app.controller.requests}, a latency timer with a percentile histogram;
+ *   <li>{@code app.controller.errors}, a count of calls that threw, also tagged with {@code
+ *       exception};
+ *   <li>{@code app.controller.request.size}, the request body size in bytes, when one is sent;
+ *   <li>{@code app.controller.response.size}, the response body size in bytes, which {@link
+ *       ResponseSizeFilter} records once the body has been written, streamed or not.
+ * </ul>
+ *
+ * These are available at {@code /actuator/metrics}. The meters for a method are looked up once and
+ * kept, so a call costs a map lookup and a few atomic updates.
+ *
+ * <p>One in {@code app.controllers.log-every} calls is also logged; 0 (the default outside
+ * development) turns the log off.
+ *
+ * <p>For more information on Aspect Oriented Programming (AOP) and AspectJ, including what a {@code
+ * JoinPoint} is, refer to <a
+ * href="https://www.baeldung.com/aspectj">https://www.baeldung.com/aspectj</a>
+ */
+@Slf4j
+@Aspect
+@Component
+public class ControllerMetricsAspect {
+  // language=PointcutExpression
+  private static final String pointcut = """
+      @annotation(org.springframework.web.bind.annotation.RequestMapping) ||
+      @annotation(org.springframework.web.bind.annotation.GetMapping) ||
+      @annotation(org.springframework.web.bind.annotation.PostMapping) ||
+      @annotation(org.springframework.web.bind.annotation.PutMapping) ||
+      @annotation(org.springframework.web.bind.annotation.DeleteMapping) ||
+      @annotation(org.springframework.web.bind.annotation.PatchMapping)
+      """;
+
+  private static final Set<String> stoplist = Set.of(
+      "edu.ucsb.cs156.example.controllers.FrontendController",
+      "edu.ucsb.cs156.example.controllers.FrontendProxyController");
+
+  /** Stands in for stoplisted methods in {@link #endpoints}, which cannot hold null. */
+  private static final Endpoint IGNORED = new Endpoint(null, null, null, null, null, null);
+
+  private final MeterRegistry meterRegistry;
+  private final long logEvery;
+  private final AtomicLong calls = new AtomicLong();
+  private final Map<Method, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+  record Endpoint(
+      String controller,
+      String method,
+      Timer requests,
+      DistributionSummary requestSize,
+      DistributionSummary responseSize,
+      Map<Class<?>, Counter> errors) {}
+
+  public ControllerMetricsAspect(
+      MeterRegistry meterRegistry, @Value("${app.controllers.log-every:0}") long logEvery) {
+    this.meterRegistry = meterRegistry;
+    this.logEvery = logEvery;
+  }
+
+  /**
+   * This method wraps any controller method that is annotated with {@code @RequestMapping},
+   * {@code @GetMapping}, {@code @PostMapping}, {@code @PutMapping}, {@code @DeleteMapping}, or
+   * {@code @PatchMapping}.
+   *
+   * @param joinPoint the join point (injected by Spring framework)
+   * @return whatever the controller method returns
+   * @throws Throwable whatever the controller method throws
+   */
+  @Around(pointcut)
+  public Object recordControllers(ProceedingJoinPoint joinPoint) throws Throwable {
+    Endpoint endpoint =
+        endpoints.computeIfAbsent(
+            ((MethodSignature) joinPoint.getSignature()).getMethod(), this::endpoint);
+    if (endpoint == IGNORED) {
+      return joinPoint.proceed();
+    }
+
+    HttpServletRequest request = currentHttpRequest();
+    if (request != null) {
+      request.setAttribute(ResponseSizeFilter.RESPONSE_SIZE, endpoint.responseSize());
+    }
+    long start = System.nanoTime();
+    try {
+      return joinPoint.proceed();
+    } catch (Throwable t) {
+      endpoint.errors().computeIfAbsent(t.getClass(), type -> errorCounter(endpoint, type)).increment();
+      throw t;
+    } finally {
+      long nanos = System.nanoTime() - start;
+      endpoint.requests().record(nanos, TimeUnit.NANOSECONDS);
+      if (request != null) {
+        long contentLength = request.getContentLengthLong();
+        if (contentLength >= 0) {
+          endpoint.requestSize().record(contentLength);
+        }
+        if (logEvery > 0 && calls.incrementAndGet() % logEvery == 0) {
+          log.info(
+              "===== {} {} handled by {} in {} took {}us sampled=1/{}",
+              request.getMethod(),
+              request.getRequestURI(),
+              endpoint.method(),
+              endpoint.controller(),
+              nanos / 1000,
+              logEvery);
+        }
+      }
+    }
+  }
+
+  private Endpoint endpoint(Method method) {
+    String declaringTypeName = method.getDeclaringClass().getName();
+    if (stoplist.contains(declaringTypeName)) {
+      return IGNORED;
+    }
+    String controller = method.getDeclaringClass().getSimpleName();
+    String name = method.getName();
+    return new Endpoint(
+        controller,
+        name,
+        Timer.builder("app.controller.requests")
+            .description("Time spent in controller methods")
+            .tags("controller", controller, "method", name)
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .publishPercentileHistogram()
+            .register(meterRegistry),
+        DistributionSummary.builder("app.controller.request.size")
+            .description("Request body sizes")
+            .baseUnit("bytes")
+            .tags("controller", controller, "method", name)
+            .register(meterRegistry),
+        DistributionSummary.builder("app.controller.response.size")
+            .description("Response body sizes, before compression")
+            .baseUnit("bytes")
+            .tags("controller", controller, "method", name)
+            .register(meterRegistry),
+        new ConcurrentHashMap<>());
+  }
+
+  private Counter errorCounter(Endpoint endpoint, Class<?> exception) {
+    return Counter.builder("app.controller.errors")
+        .description("Controller method calls that threw an exception")
+        .tags(
+            "controller", endpoint.controller(),
+            "method", endpoint.method(),
+            "exception", exception.getSimpleName())
+        .register(meterRegistry);
+  }
+
+  private static HttpServletRequest currentHttpRequest() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    return attributes instanceof ServletRequestAttributes servletAttributes
+        ? servletAttributes.getRequest()
+        : null;
+  }
+}
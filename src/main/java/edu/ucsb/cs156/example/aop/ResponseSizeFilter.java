@@ -0,0 +1,115 @@
+package edu.ucsb.cs156.example.aop;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Counts the bytes of response body written through the output stream, and records them in the
+ * {@code app.controller.response.size} summary that {@link ControllerMetricsAspect} leaves on the
+ * request for the controller method that handled it.
+ *
+ * <p>The body of a {@code ResponseEntity} or returned object is written after the controller
+ * method returns, and a streamed or asynchronous response after the request has left this filter
+ * once, so the count is only recorded when the response is complete: at the end of the last
+ * dispatch of the request. The bytes are counted before Tomcat compresses them. Bodies written
+ * through {@code getWriter()} are not counted; Spring's message converters do not use it.
+ */
+@Component
+public class ResponseSizeFilter extends OncePerRequestFilter {
+  static final String RESPONSE_SIZE = ResponseSizeFilter.class.getName() + ".RESPONSE_SIZE";
+
+  private static final String COUNTING_RESPONSE =
+      ResponseSizeFilter.class.getName() + ".COUNTING_RESPONSE";
+
+  @Override
+  protected boolean shouldNotFilterAsyncDispatch() {
+    return false;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    // an async dispatch gets the original response again; keep counting into the first wrapper
+    CountingResponse counting =
+        request.getAttribute(COUNTING_RESPONSE) instanceof CountingResponse existing
+            ? existing
+            : new CountingResponse(response);
+    request.setAttribute(COUNTING_RESPONSE, counting);
+
+    filterChain.doFilter(request, counting);
+
+    if (!request.isAsyncStarted()
+        && request.getAttribute(RESPONSE_SIZE) instanceof DistributionSummary responseSize) {
+      responseSize.record(counting.bytes);
+    }
+  }
+
+  private static class CountingResponse extends HttpServletResponseWrapper {
+    private ServletOutputStream outputStream;
+    private long bytes;
+
+    CountingResponse(HttpServletResponse response) {
+      super(response);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      if (outputStream == null) {
+        outputStream = new CountingOutputStream(this, super.getOutputStream());
+      }
+      return outputStream;
+    }
+  }
+
+  private static class CountingOutputStream extends ServletOutputStream {
+    private final CountingResponse response;
+    private final ServletOutputStream delegate;
+
+    CountingOutputStream(CountingResponse response, ServletOutputStream delegate) {
+      this.response = response;
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      delegate.write(b);
+      response.bytes++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      delegate.write(b, off, len);
+      response.bytes += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+      delegate.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      delegate.close();
+    }
+
+    @Override
+    public boolean isReady() {
+      return delegate.isReady();
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+      delegate.setWriteListener(writeListener);
+    }
+  }
+}
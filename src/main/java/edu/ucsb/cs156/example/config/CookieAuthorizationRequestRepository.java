@@ -0,0 +1,73 @@
+package edu.ucsb.cs156.example.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.services.SessionTokenService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import org.springframework.security.jackson2.SecurityJackson2Modules;
+import org.springframework.security.oauth2.client.web.AuthorizationRequestRepository;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+
+/**
+ * In stateless mode, keeps the OAuth2 authorization request between the redirect to the provider
+ * and the callback in a short-lived signed cookie instead of the {@code HttpSession}, so the
+ * callback may land on any instance.
+ */
+public class CookieAuthorizationRequestRepository
+    implements AuthorizationRequestRepository<OAuth2AuthorizationRequest> {
+  static final String COOKIE_NAME = "OAUTH2_AUTH_REQUEST";
+  private static final Duration MAX_AGE = Duration.ofMinutes(5);
+
+  private final SessionTokenService sessionTokenService;
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  public CookieAuthorizationRequestRepository(SessionTokenService sessionTokenService) {
+    this.sessionTokenService = sessionTokenService;
+    mapper.registerModules(SecurityJackson2Modules.getModules(getClass().getClassLoader()));
+  }
+
+  @Override
+  public OAuth2AuthorizationRequest loadAuthorizationRequest(HttpServletRequest request) {
+    Optional<byte[]> json =
+        SessionTokenService.readCookie(request, COOKIE_NAME).flatMap(sessionTokenService::unsign);
+    if (json.isEmpty()) {
+      return null;
+    }
+    try {
+      return mapper.readValue(json.get(), OAuth2AuthorizationRequest.class);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public void saveAuthorizationRequest(
+      OAuth2AuthorizationRequest authorizationRequest,
+      HttpServletRequest request,
+      HttpServletResponse response) {
+    if (authorizationRequest == null) {
+      SessionTokenService.addCookie(request, response, COOKIE_NAME, "", Duration.ZERO);
+      return;
+    }
+    try {
+      String value = sessionTokenService.sign(mapper.writeValueAsBytes(authorizationRequest));
+      SessionTokenService.addCookie(request, response, COOKIE_NAME, value, MAX_AGE);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Could not write OAuth2 authorization request", e);
+    }
+  }
+
+  @Override
+  public OAuth2AuthorizationRequest removeAuthorizationRequest(
+      HttpServletRequest request, HttpServletResponse response) {
+    OAuth2AuthorizationRequest authorizationRequest = loadAuthorizationRequest(request);
+    if (authorizationRequest != null) {
+      SessionTokenService.addCookie(request, response, COOKIE_NAME, "", Duration.ZERO);
+    }
+    return authorizationRequest;
+  }
+}
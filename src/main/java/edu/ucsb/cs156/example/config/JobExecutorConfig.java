@@ -0,0 +1,74 @@
+package edu.ucsb.cs156.example.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * The {@code JobExecutorConfig} class defines the executor that runs background jobs started
+ * through {@code JobService}.
+ *
+ * <p>The pool and its queue are bounded; when both are full, new jobs are rejected instead of
+ * piling up in memory. With {@code app.jobs.executor.virtual-threads=true} the workers are virtual
+ * threads, which suits jobs that mostly sleep or wait on I/O.
+ *
+ * <p>Declaring any {@code Executor} bean turns off Spring Boot's auto-configured {@code
+ * applicationTaskExecutor}, so it is declared again here. Plain {@code @Async} methods and Spring
+ * MVC's async requests keep running on it, and only jobs use the bounded job pool.
+ *
+ * <p>Queue depth and active workers are published by Spring Boot Actuator as {@code
+ * executor.queued} and {@code executor.active} with the tag {@code name=jobExecutor}.
+ */
+@Configuration
+public class JobExecutorConfig {
+
+  /**
+   * The name of the job executor bean, for use in {@code @Async}.
+   */
+  public static final String JOB_EXECUTOR = "jobExecutor";
+
+  /**
+   * Builds the bounded executor used for jobs.
+   *
+   * @param poolSize number of jobs that may run at the same time
+   * @param queueCapacity number of jobs that may wait for a free worker
+   * @param virtualThreads whether workers should be virtual threads
+   * @return the job executor
+   */
+  @Bean(name = JOB_EXECUTOR)
+  public ThreadPoolTaskExecutor jobExecutor(
+      @Value("${app.jobs.executor.pool-size:4}") int poolSize,
+      @Value("${app.jobs.executor.queue-capacity:100}") int queueCapacity,
+      @Value("${app.jobs.executor.virtual-threads:false}") boolean virtualThreads) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(poolSize);
+    executor.setMaxPoolSize(poolSize);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setVirtualThreads(virtualThreads);
+    executor.setThreadNamePrefix("job-");
+    return executor;
+  }
+
+  /**
+   * Builds the executor that Spring Boot would have auto-configured, from the {@code
+   * spring.task.execution.*} properties. It is the default for {@code @Async} methods without a
+   * qualifier and for Spring MVC's async requests.
+   *
+   * @param builder Spring Boot's builder for the default executor
+   * @return the default executor
+   */
+  @Lazy
+  @Bean(
+      name = {
+        TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+        AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME
+      })
+  public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+    return builder.build();
+  }
+}
@@ -0,0 +1,30 @@
+package edu.ucsb.cs156.example.config;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.auditing.DateTimeProvider;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+
+/**
+ * The `JpaAuditingConfig` class turns on Spring Data auditing, which fills in fields annotated
+ * with `@CreatedDate` and `@LastModifiedDate` (e.g. `Job.createdAt`) when an entity is saved.
+ *
+ * The default provider produces `LocalDateTime`; ours produces `ZonedDateTime` to match the
+ * entity fields.
+ */
+@Configuration
+@EnableJpaAuditing(dateTimeProviderRef = "auditingDateTimeProvider")
+public class JpaAuditingConfig {
+
+  /**
+   * Supplies the current time for auditing fields.
+   *
+   * @return a provider of the current time
+   */
+  @Bean
+  public DateTimeProvider auditingDateTimeProvider() {
+    return () -> Optional.of(ZonedDateTime.now());
+  }
+}
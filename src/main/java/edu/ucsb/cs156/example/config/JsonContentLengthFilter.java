@@ -0,0 +1,112 @@
+package edu.ucsb.cs156.example.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Lets Tomcat see the length of small JSON responses, so that {@code
+ * server.compression.min-response-size} applies to them.
+ *
+ * <p>Spring's message converters flush the body once it is written, which commits the response
+ * without a Content-Length, and Tomcat compresses every response of unknown length. This filter
+ * ignores those flushes for {@code application/json} and {@code +json} types; a body that fits in
+ * Tomcat's buffer then gets a Content-Length when the request ends, and a larger one is committed
+ * when the buffer fills. Other types, in particular {@code text/event-stream}, are flushed as usual.
+ */
+@Component
+public class JsonContentLengthFilter extends OncePerRequestFilter {
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    filterChain.doFilter(request, new DeferredFlushResponse(response));
+  }
+
+  static boolean isJson(String contentType) {
+    if (contentType == null) {
+      return false;
+    }
+    try {
+      MediaType type = MediaType.parseMediaType(contentType);
+      return MediaType.APPLICATION_JSON.isCompatibleWith(type)
+          || ("application".equals(type.getType()) && "json".equals(type.getSubtypeSuffix()));
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  private static class DeferredFlushResponse extends HttpServletResponseWrapper {
+    private ServletOutputStream outputStream;
+
+    DeferredFlushResponse(HttpServletResponse response) {
+      super(response);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      if (outputStream == null) {
+        outputStream = new DeferredFlushOutputStream(this, super.getOutputStream());
+      }
+      return outputStream;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      if (!isJson(getContentType())) {
+        super.flushBuffer();
+      }
+    }
+  }
+
+  private static class DeferredFlushOutputStream extends ServletOutputStream {
+    private final HttpServletResponse response;
+    private final ServletOutputStream delegate;
+
+    DeferredFlushOutputStream(HttpServletResponse response, ServletOutputStream delegate) {
+      this.response = response;
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      delegate.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      delegate.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (!isJson(response.getContentType())) {
+        delegate.flush();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      delegate.close();
+    }
+
+    @Override
+    public boolean isReady() {
+      return delegate.isReady();
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+      delegate.setWriteListener(writeListener);
+    }
+  }
+}
@@ -1,16 +1,17 @@
 package edu.ucsb.cs156.example.config;
 
-import edu.ucsb.cs156.example.entities.User;
-import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.AdminDirectory;
+import edu.ucsb.cs156.example.services.SessionTokenService;
+import edu.ucsb.cs156.example.services.UserProvisioningService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -22,16 +23,23 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.authority.mapping.GrantedAuthoritiesMapper;
+import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.client.web.OAuth2AuthorizationRequestRedirectFilter;
+import org.springframework.security.oauth2.client.web.OAuth2AuthorizedClientRepository;
 import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
 import org.springframework.security.web.authentication.Http403ForbiddenEntryPoint;
 import org.springframework.security.web.authentication.SavedRequestAwareAuthenticationSuccessHandler;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 import org.springframework.security.web.csrf.CsrfTokenRequestAttributeHandler;
 import org.springframework.security.web.csrf.CsrfTokenRequestHandler;
 import org.springframework.security.web.csrf.XorCsrfTokenRequestAttributeHandler;
 import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.security.web.savedrequest.NullRequestCache;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -40,11 +48,8 @@ import static org.springframework.security.web.util.matcher.AntPathRequestMatche
 
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.function.Supplier;
 
@@ -56,14 +61,16 @@ import java.util.function.Supplier;
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
-@Slf4j
 public class SecurityConfig {
 
-  @Value("${app.admin.emails}")
-  private final List<String> adminEmails = new ArrayList<>();
+  @Autowired
+  AdminDirectory adminDirectory;
+
+  @Autowired
+  UserProvisioningService userProvisioningService;
 
   @Autowired
-  UserRepository userRepository;
+  SessionTokenService sessionTokenService;
 
   /**
    * The `filterChain` method in this Java code configures various security
@@ -79,38 +86,67 @@ public class SecurityConfig {
   public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
     http
         .exceptionHandling(handling -> handling.authenticationEntryPoint(new Http403ForbiddenEntryPoint()))
-        .oauth2Login(
-            oauth2 -> oauth2.userInfoEndpoint(userInfo -> userInfo.userAuthoritiesMapper(this.userAuthoritiesMapper())))
+        .oauth2Login(oauth2 -> oauth2
+            .userInfoEndpoint(userInfo -> userInfo.userAuthoritiesMapper(this.userAuthoritiesMapper()))
+            .successHandler(this.provisioningSuccessHandler()))
         .csrf(csrf -> csrf
             .csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
             .csrfTokenRequestHandler(new SpaCsrfTokenRequestHandler()))
         .addFilterAfter(new CsrfCookieFilter(), BasicAuthenticationFilter.class)
-        .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+        .authorizeHttpRequests(auth -> auth
+            .requestMatchers(antMatcher("/actuator/**")).hasRole("ADMIN")
+            .anyRequest().permitAll())
         .logout(logout -> logout.logoutRequestMatcher(new AntPathRequestMatcher("/logout")).logoutSuccessUrl("/"));
+    if (sessionTokenService.getEnabled()) {
+      configureStatelessSessions(http);
+    }
     return http.build();
   }
 
+  /**
+   * With app.session.stateless=true nothing is stored in the HttpSession: the login
+   * is carried in the signed cookie issued by SessionTokenService, and the OAuth2
+   * authorization request in a signed cookie of its own, so any instance can serve
+   * any request.
+   */
+  private void configureStatelessSessions(HttpSecurity http) throws Exception {
+    http
+        .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+        .securityContext(context -> context.securityContextRepository(new RequestAttributeSecurityContextRepository()))
+        .requestCache(cache -> cache.requestCache(new NullRequestCache()))
+        .oauth2Login(oauth2 -> oauth2
+            .authorizationEndpoint(authorization -> authorization
+                .authorizationRequestRepository(new CookieAuthorizationRequestRepository(sessionTokenService)))
+            .authorizedClientRepository(new NoOpAuthorizedClientRepository()))
+        .addFilterBefore(new SessionTokenAuthenticationFilter(sessionTokenService), OAuth2AuthorizationRequestRedirectFilter.class)
+        .logout(logout -> logout.deleteCookies(sessionTokenService.getCookieName()));
+  }
+
   /**
    * The `webSecurityCustomizer` method is used to configure web security in Java,
    * specifically ignoring requests
-   * to the "/h2-console/**" path.
+   * to the "/h2-console/**" path and to the frontend's static files
+   * (see StaticResourceConfig), which need no authentication, CSRF cookie or
+   * security headers.
    */
   @Bean
   public WebSecurityCustomizer webSecurityCustomizer() {
-    return web -> web.ignoring().requestMatchers(antMatcher("/h2-console/**"));
+    return web -> {
+      web.ignoring().requestMatchers(antMatcher("/h2-console/**"));
+      for (String path : StaticResourceConfig.UNSECURED_PATHS) {
+        web.ignoring().requestMatchers(antMatcher(HttpMethod.GET, path));
+      }
+    };
   }
 
   private GrantedAuthoritiesMapper userAuthoritiesMapper() {
     return (authorities) -> {
       Set<GrantedAuthority> mappedAuthorities = new HashSet<>();
-      log.info("********** authorities={}", authorities);
 
       authorities.forEach(authority -> {
-        log.info("********** authority={}", authority);
         mappedAuthorities.add(authority);
         if (authority instanceof OAuth2UserAuthority oauth2UserAuthority) {
           Map<String, Object> userAttributes = oauth2UserAuthority.getAttributes();
-          log.info("********** userAttributes={}", userAttributes);
 
           mappedAuthorities.add(new SimpleGrantedAuthority("ROLE_USER"));
 
@@ -125,25 +161,38 @@ public class SecurityConfig {
         }
 
       });
-      log.info("********** mappedAuthorities={}", mappedAuthorities);
       return mappedAuthorities;
     };
   }
 
+  /**
+   * Creates or updates the user's row once, when the OAuth2 login succeeds, and then
+   * redirects as Spring Security would by default. Requests made during the session
+   * only read that row (see CurrentUserServiceImpl).
+   */
+  private AuthenticationSuccessHandler provisioningSuccessHandler() {
+    SavedRequestAwareAuthenticationSuccessHandler redirect = new SavedRequestAwareAuthenticationSuccessHandler();
+    return (request, response, authentication) -> {
+      if (authentication instanceof OAuth2AuthenticationToken token) {
+        userProvisioningService.provision(token.getPrincipal());
+        if (sessionTokenService.getEnabled()) {
+          sessionTokenService.writeCookie(request, response, sessionTokenService.issue(token));
+        }
+      }
+      redirect.onAuthenticationSuccess(request, response, authentication);
+    };
+  }
+
   /**
    * This method checks if the given email belongs to an admin user either from a
    * predefined
-   * list or by querying the user repository.
+   * list or by querying the user repository (see AdminDirectory).
    * 
    * @param email email address of the user
    * @return whether the user with the given email is an admin
    */
   public boolean getAdmin(String email) {
-    if (adminEmails.contains(email)) {
-      return true;
-    }
-    Optional<User> u = userRepository.findByEmail(email);
-    return u.isPresent() && u.get().getAdmin();
+    return adminDirectory.isAdmin(email);
   }
 }
 
@@ -185,7 +234,41 @@ final class SpaCsrfTokenRequestHandler extends CsrfTokenRequestAttributeHandler
   }
 }
 
+/**
+ * Issues the XSRF-TOKEN cookie that the frontend echoes back in the X-XSRF-TOKEN header.
+ *
+ * The cookie lives for the browser session, so once it has been issued there is nothing
+ * to refresh; loading the token again would only spend a random number and an XOR encoding
+ * on every request. The filter therefore only runs when the request carries no cookie yet,
+ * and never for static files (any path whose last segment has an extension other than .html),
+ * which a page requests alongside the HTML that already issues the cookie.
+ */
 final class CsrfCookieFilter extends OncePerRequestFilter {
+  // the default cookie name of CookieCsrfTokenRepository
+  static final String CSRF_COOKIE_NAME = "XSRF-TOKEN";
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return hasCsrfCookie(request) || isStaticResource(request.getRequestURI());
+  }
+
+  static boolean hasCsrfCookie(HttpServletRequest request) {
+    Cookie[] cookies = request.getCookies();
+    if (cookies == null) {
+      return false;
+    }
+    for (Cookie cookie : cookies) {
+      if (CSRF_COOKIE_NAME.equals(cookie.getName()) && StringUtils.hasText(cookie.getValue())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  static boolean isStaticResource(String path) {
+    String lastSegment = path.substring(path.lastIndexOf('/') + 1);
+    return lastSegment.contains(".") && !lastSegment.endsWith(".html");
+  }
 
   @Override
   protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -195,4 +278,27 @@ final class CsrfCookieFilter extends OncePerRequestFilter {
     csrfToken.getToken();
     filterChain.doFilter(request, response);
   }
-}
\ No newline at end of file
+}
+
+/**
+ * Stateless mode never calls the provider's APIs after login, so authorized clients
+ * (access tokens) are not kept anywhere.
+ */
+final class NoOpAuthorizedClientRepository implements OAuth2AuthorizedClientRepository {
+
+  @Override
+  public <T extends OAuth2AuthorizedClient> T loadAuthorizedClient(String clientRegistrationId,
+      Authentication principal, HttpServletRequest request) {
+    return null;
+  }
+
+  @Override
+  public void saveAuthorizedClient(OAuth2AuthorizedClient authorizedClient, Authentication principal,
+      HttpServletRequest request, HttpServletResponse response) {
+  }
+
+  @Override
+  public void removeAuthorizedClient(String clientRegistrationId, Authentication principal,
+      HttpServletRequest request, HttpServletResponse response) {
+  }
+}
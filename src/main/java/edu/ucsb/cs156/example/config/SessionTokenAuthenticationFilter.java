@@ -0,0 +1,46 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.services.SessionTokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * In stateless mode, authenticates each request from the signed session cookie (see {@link
+ * SessionTokenService}). A cookie that fails the check is deleted and the request continues as
+ * anonymous.
+ */
+public class SessionTokenAuthenticationFilter extends OncePerRequestFilter {
+  private final SessionTokenService sessionTokenService;
+
+  public SessionTokenAuthenticationFilter(SessionTokenService sessionTokenService) {
+    this.sessionTokenService = sessionTokenService;
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    String cookieName = sessionTokenService.getCookieName();
+    Optional<String> token = SessionTokenService.readCookie(request, cookieName);
+    if (token.isPresent()) {
+      Optional<OAuth2AuthenticationToken> authentication = sessionTokenService.verify(token.get());
+      if (authentication.isPresent()) {
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(authentication.get());
+        SecurityContextHolder.setContext(context);
+      } else {
+        SessionTokenService.addCookie(request, response, cookieName, "", Duration.ZERO);
+      }
+    }
+    filterChain.doFilter(request, response);
+  }
+}
@@ -0,0 +1,67 @@
+package edu.ucsb.cs156.example.config;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+
+/**
+ * Serves the built frontend (copied to {@code app.frontend.location} by the Maven build).
+ *
+ * <p>Files under {@code /static/} have a content hash in their name, so they are cached for a year
+ * as immutable. The other top-level files ({@code index.html}, {@code manifest.json}, icons) keep
+ * their names across builds and are revalidated on every use with an ETag. Where the build left a
+ * {@code .br} or {@code .gz} copy next to a file, it is sent to clients that accept that encoding.
+ * Apart from {@code index.html}, which needs the security headers like any other page, none of
+ * these paths go through the Spring Security filter chain (see {@link #UNSECURED_PATHS}).
+ *
+ * <p>Not used in development, where {@code FrontendProxyController} forwards to the dev server.
+ */
+@Profile("!development")
+@Configuration
+public class StaticResourceConfig implements WebMvcConfigurer {
+  /** Paths of the built frontend's non-HTML files; SecurityConfig ignores them. */
+  public static final String[] UNSECURED_PATHS = {
+    "/static/**", "/*.ico", "/*.png", "/*.json", "/*.txt", "/*.js"
+  };
+
+  @Value("${app.frontend.location:classpath:/public/}")
+  private String location;
+
+  @Override
+  public void addResourceHandlers(ResourceHandlerRegistry registry) {
+    registry
+        .addResourceHandler("/static/**")
+        .addResourceLocations(location + "static/")
+        .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+        .resourceChain(true)
+        .addResolver(new EncodedResourceResolver());
+
+    registry
+        .addResourceHandler("/index.html", "/*.ico", "/*.png", "/*.json", "/*.txt", "/*.js")
+        .addResourceLocations(location)
+        .setCacheControl(CacheControl.noCache())
+        .setEtagGenerator(StaticResourceConfig::etag)
+        .resourceChain(true)
+        .addResolver(new EncodedResourceResolver());
+  }
+
+  /**
+   * An ETag for a file that only changes when the frontend is rebuilt, taken from its timestamp and
+   * length so that the file need not be read to compute it. It is weak because Tomcat does not
+   * gzip responses that carry a strong ETag.
+   */
+  public static String etag(Resource resource) {
+    try {
+      return "W/\"%x-%x\"".formatted(resource.lastModified(), resource.contentLength());
+    } catch (IOException e) {
+      return null;
+    }
+  }
+}
@@ -1,16 +1,34 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
-import org.springframework.beans.factory.annotation.Autowired;
-
+import edu.ucsb.cs156.example.errors.InvalidBulkRequestException;
+import edu.ucsb.cs156.example.errors.InvalidPageRequestException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.repositories.KeysetPagingRepository;
+import edu.ucsb.cs156.example.services.BulkWriter;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.services.JsonArrayStreamer;
+import edu.ucsb.cs156.example.services.KeysetPager;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * This is an abstract class that provides common functionality for all API controllers.
@@ -21,6 +39,15 @@ public abstract class ApiController {
   @Autowired
   private CurrentUserService currentUserService;
 
+  @Autowired
+  private KeysetPager keysetPager;
+
+  @Autowired
+  private JsonArrayStreamer jsonArrayStreamer;
+
+  @Autowired
+  private BulkWriter bulkWriter;
+
   /**
    * This method returns the current user.
    * @return the current user
@@ -38,6 +65,87 @@ public abstract class ApiController {
     return Map.of("message", message);
   }
 
+  /**
+   * This method returns one page of entities, sorted by id or by one of the given sort keys.
+   * When there may be more, the Link header (rel=next) gives the URL of the next page, and the
+   * X-Next-Cursor header its cursor.
+   * @param repository the entity's repository
+   * @param type the entity class
+   * @param sortKeys the properties, other than the id, that the page may be sorted by
+   * @param sort the sort requested, e.g. "name" or "name,desc"
+   * @param cursor the cursor of the page requested, or null for the first page
+   * @param size the page size requested
+   * @return the page
+   */
+  protected <T> ResponseEntity<List<T>> keysetPage(KeysetPagingRepository<T, ?> repository,
+      Class<T> type, Set<String> sortKeys, String sort, String cursor, int size) {
+    KeysetPage<T> page = keysetPager.page(repository, type, sortKeys, sort, cursor, size);
+
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+    if (page.getNextCursor() != null) {
+      String next = ServletUriComponentsBuilder.fromCurrentRequest()
+          .replaceQueryParam("cursor", page.getNextCursor())
+          .toUriString();
+      response.header(HttpHeaders.LINK, "<%s>; rel=\"next\"".formatted(next));
+      response.header("X-Next-Cursor", page.getNextCursor());
+    }
+    return response.body(page.getItems());
+  }
+
+  /**
+   * This method writes every entity in the repository to the response as a JSON array, one row
+   * at a time as it is read, rather than loading the whole table into a list first. It writes on
+   * the request thread rather than returning a StreamingResponseBody, so that the read-only
+   * transaction, the open result set and the response stay on one thread from start to end.
+   * @param repository the entity's repository
+   * @param response the response to write to
+   * @throws IOException if writing the response fails
+   */
+  protected <T> void streamAll(KeysetPagingRepository<T, ?> repository,
+      HttpServletResponse response) throws IOException {
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    long count = jsonArrayStreamer.write(repository::streamAllBy, response.getOutputStream());
+    log.debug("Streamed {} rows", count);
+  }
+
+  /**
+   * This method creates or updates one entity per row of the request body (a JSON array or
+   * NDJSON) in one transaction. If any row is in error, nothing is written and the response is a
+   * 400 Bad Request listing the errors.
+   * @param repository the entity's repository
+   * @param type the entity class
+   * @param request the request whose body holds the entities
+   * @return the number of entities created and updated, or the errors
+   * @throws IOException if reading the request fails
+   */
+  protected <T, ID> ResponseEntity<BulkResult> bulkSave(KeysetPagingRepository<T, ID> repository,
+      Class<T> type, HttpServletRequest request) throws IOException {
+    List<JsonNode> rows = bulkWriter.read(request.getInputStream());
+    return bulkResponse(bulkWriter.save(repository, type, rows));
+  }
+
+  /**
+   * This method deletes one entity per row of the request body (a JSON array or NDJSON of ids)
+   * in one transaction. If any row is in error, nothing is deleted and the response is a 400 Bad
+   * Request listing the errors.
+   * @param repository the entity's repository
+   * @param type the entity class
+   * @param request the request whose body holds the ids
+   * @return the number of entities deleted, or the errors
+   * @throws IOException if reading the request fails
+   */
+  protected <T, ID> ResponseEntity<BulkResult> bulkDelete(KeysetPagingRepository<T, ID> repository,
+      Class<T> type, HttpServletRequest request) throws IOException {
+    List<JsonNode> rows = bulkWriter.read(request.getInputStream());
+    return bulkResponse(bulkWriter.delete(repository, type, rows));
+  }
+
+  private static ResponseEntity<BulkResult> bulkResponse(BulkResult result) {
+    return result.getErrors().isEmpty()
+        ? ResponseEntity.ok(result)
+        : ResponseEntity.badRequest().body(result);
+  }
+
   /**
    * This method handles the EntityNotFoundException.
    * @param e the exception
@@ -51,4 +159,18 @@ public abstract class ApiController {
       "message", e.getMessage()
     );
   }
+
+  /**
+   * This method handles the InvalidPageRequestException and InvalidBulkRequestException.
+   * @param e the exception
+   * @return a map with the type and message of the exception
+   */
+  @ExceptionHandler({ InvalidPageRequestException.class, InvalidBulkRequestException.class })
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Object handleBadRequest(Throwable e) {
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", e.getMessage()
+    );
+  }
 }
@@ -2,6 +2,7 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.Articles;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,6 +14,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,9 +26,14 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
 
 /**
  * This is a REST controller for Articles
@@ -43,14 +51,64 @@ public class ArticlesController extends ApiController {
     /**
      * List all Articles
      * 
-     * @return an iterable of Articles
+     * @param response the response the JSON array is written to
+     * @throws IOException if writing the response fails
      */
     @Operation(summary= "List all articles")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<Articles> allArticles() {
-        Iterable<Articles> articles = articlesRepository.findAll();
-        return articles;
+    public void allArticles(HttpServletResponse response) throws IOException {
+        streamAll(articlesRepository, response);
+    }
+
+    /**
+     * This method returns one page of articles, sorted by id or by dateAdded.
+     * When there may be more, the Link header (rel=next) gives the URL of the next page.
+     * @param sort id or dateAdded, optionally followed by ",asc" or ",desc"
+     * @param cursor the next-page cursor from the previous page, or null for the first page
+     * @param size the page size (at most 1000)
+     * @return a page of articles
+     */
+    @Operation(summary = "List one page of articles",
+            description = "Sorted by id or dateAdded. When there may be more, the Link header (rel=next) gives the URL of the next page.")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public ResponseEntity<List<Articles>> pageArticles(
+            @Parameter(name = "sort", description = "id or dateAdded, optionally followed by ,asc or ,desc")
+            @RequestParam(defaultValue = "id") String sort,
+            @Parameter(name = "cursor", description = "next-page cursor from the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(name = "size", description = "page size (at most 1000)")
+            @RequestParam(defaultValue = "100") int size) {
+        return keysetPage(articlesRepository, Articles.class, Set.of("dateAdded"), sort, cursor, size);
+    }
+
+    /**
+     * This method creates or updates many articles in one transaction.
+     * @param request the request, whose body is a JSON array or NDJSON of articles
+     * @return how many were created and updated, or the rows in error
+     * @throws IOException if reading the request fails
+     */
+    @Operation(summary = "Create or update many articles",
+            description = "Takes a JSON array or NDJSON. Rows without an id are created; rows with an id update that row, which must exist. Nothing is written if any row is in error.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<BulkResult> bulkSaveArticles(HttpServletRequest request) throws IOException {
+        return bulkSave(articlesRepository, Articles.class, request);
+    }
+
+    /**
+     * This method deletes many articles in one transaction.
+     * @param request the request, whose body is a JSON array or NDJSON of ids
+     * @return how many were deleted, or the rows in error
+     * @throws IOException if reading the request fails
+     */
+    @Operation(summary = "Delete many articles",
+            description = "Takes a JSON array or NDJSON of ids. Nothing is deleted if any row is in error.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<BulkResult> bulkDeleteArticles(HttpServletRequest request) throws IOException {
+        return bulkDelete(articlesRepository, Articles.class, request);
     }
 
     /**
@@ -119,10 +177,9 @@ public class ArticlesController extends ApiController {
     @DeleteMapping("")
     public Object deleteArticles(
             @Parameter(name="id") @RequestParam Long id) {
-        Articles articles = articlesRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Articles.class, id));
-
-        articlesRepository.delete(articles);
+        if (articlesRepository.deleteRowById(id) == 0) {
+            throw new EntityNotFoundException(Articles.class, id);
+        }
         return genericMessage("Articles with id %s deleted".formatted(id));
     }
 
@@ -139,18 +196,11 @@ public class ArticlesController extends ApiController {
     public Articles updateArticles(
             @Parameter(name="id") @RequestParam Long id,
             @RequestBody @Valid Articles incoming) {
+        if (articlesRepository.updateById(id, incoming) == 0) {
+            throw new EntityNotFoundException(Articles.class, id);
+        }
+        incoming.setId(id);
 
-        Articles articles = articlesRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Articles.class, id));
-
-        articles.setTitle(incoming.getTitle());
-        articles.setUrl(incoming.getUrl());
-        articles.setExplanation(incoming.getExplanation());
-        articles.setEmail(incoming.getEmail());
-        articles.setDateAdded(incoming.getDateAdded());
-
-        articlesRepository.save(articles);
-
-        return articles;
+        return incoming;
     }
 }
\ No newline at end of file
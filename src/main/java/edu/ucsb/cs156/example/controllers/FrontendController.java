@@ -1,17 +1,25 @@
 package edu.ucsb.cs156.example.controllers;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 
+import edu.ucsb.cs156.example.config.StaticResourceConfig;
 import edu.ucsb.cs156.example.services.wiremock.WiremockService;
 
+import java.io.IOException;
+
 /**
  * The FrontendController is used to serve the frontend of the application.
  * 
  * This is only enabled in the production profile, and is used to serve the frontend of the application.
+ * The frontend's static files are served by StaticResourceConfig.
  * For development, see the FrontendProxyController.
  * 
  * @see edu.ucsb.cs156.example.controllers.FrontendProxyController
@@ -24,14 +32,28 @@ public class FrontendController {
   @Autowired
   WiremockService wiremockService;
   
+  @Value("${app.frontend.location:classpath:/public/}")
+  Resource frontendLocation;
+
   /**
-   * Serve home page of application
-   * @return the home page (via index.html)
+   * Serve home page of application. The page is written directly rather than by
+   * forwarding to /index.html, and carries an ETag so that browsers revalidate it
+   * instead of downloading it again.
+   * @return the home page (index.html)
+   * @throws IOException if index.html cannot be read
    */
 
-  @GetMapping("/**/{path:[^\\.]*}")
-  public String index() {
-    return "forward:/index.html";
+  @GetMapping({"/", "/**/{path:[^\\.]*}"})
+  public ResponseEntity<Resource> index() throws IOException {
+    Resource index = frontendLocation.createRelative("index.html");
+    if (!index.exists()) {
+      return ResponseEntity.notFound().build();
+    }
+    return ResponseEntity.ok()
+        .contentType(MediaType.TEXT_HTML)
+        .cacheControl(CacheControl.noCache())
+        .eTag(StaticResourceConfig.etag(index))
+        .body(index);
   }
 
   /**
@@ -2,6 +2,7 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.HelpRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,6 +14,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,9 +26,14 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
 
 /**
  * This is a REST controller for HeloRequests
@@ -42,14 +50,64 @@ public class HelpRequestsController extends ApiController {
     /**
      * List all UCSB helprequests
      * 
-     * @return an iterable of HelpRequest
+     * @param response the response the JSON array is written to
+     * @throws IOException if writing the response fails
      */
     @Operation(summary= "List all ucsb helprequests")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<HelpRequest> allHelpRequests() {
-        Iterable<HelpRequest> helprequests = helpRequestRepository.findAll();
-        return helprequests;
+    public void allHelpRequests(HttpServletResponse response) throws IOException {
+        streamAll(helpRequestRepository, response);
+    }
+
+    /**
+     * This method returns one page of help requests, sorted by id or by requestTime.
+     * When there may be more, the Link header (rel=next) gives the URL of the next page.
+     * @param sort id or requestTime, optionally followed by ",asc" or ",desc"
+     * @param cursor the next-page cursor from the previous page, or null for the first page
+     * @param size the page size (at most 1000)
+     * @return a page of help requests
+     */
+    @Operation(summary = "List one page of help requests",
+            description = "Sorted by id or requestTime. When there may be more, the Link header (rel=next) gives the URL of the next page.")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public ResponseEntity<List<HelpRequest>> pageHelpRequests(
+            @Parameter(name = "sort", description = "id or requestTime, optionally followed by ,asc or ,desc")
+            @RequestParam(defaultValue = "id") String sort,
+            @Parameter(name = "cursor", description = "next-page cursor from the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(name = "size", description = "page size (at most 1000)")
+            @RequestParam(defaultValue = "100") int size) {
+        return keysetPage(helpRequestRepository, HelpRequest.class, Set.of("requestTime"), sort, cursor, size);
+    }
+
+    /**
+     * This method creates or updates many help requests in one transaction.
+     * @param request the request, whose body is a JSON array or NDJSON of help requests
+     * @return how many were created and updated, or the rows in error
+     * @throws IOException if reading the request fails
+     */
+    @Operation(summary = "Create or update many help requests",
+            description = "Takes a JSON array or NDJSON. Rows without an id are created; rows with an id update that row, which must exist. Nothing is written if any row is in error.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<BulkResult> bulkSaveHelpRequests(HttpServletRequest request) throws IOException {
+        return bulkSave(helpRequestRepository, HelpRequest.class, request);
+    }
+
+    /**
+     * This method deletes many help requests in one transaction.
+     * @param request the request, whose body is a JSON array or NDJSON of ids
+     * @return how many were deleted, or the rows in error
+     * @throws IOException if reading the request fails
+     */
+    @Operation(summary = "Delete many help requests",
+            description = "Takes a JSON array or NDJSON of ids. Nothing is deleted if any row is in error.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<BulkResult> bulkDeleteHelpRequests(HttpServletRequest request) throws IOException {
+        return bulkDelete(helpRequestRepository, HelpRequest.class, request);
     }
 
      /**
@@ -125,23 +183,12 @@ public class HelpRequestsController extends ApiController {
     public HelpRequest updateHelpRequest(
             @Parameter(name="id") @RequestParam Long id,
             @RequestBody @Valid HelpRequest incoming) {
+        if (helpRequestRepository.updateById(id, incoming) == 0) {
+            throw new EntityNotFoundException(HelpRequest.class, id);
+        }
+        incoming.setId(id);
 
-        HelpRequest helprequest = helpRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
-
-
-        helprequest.setRequesterEmail(incoming.getRequesterEmail());
-        helprequest.setTeamId(incoming.getTeamId());
-        helprequest.setTableOrBreakoutRoom(incoming.getTableOrBreakoutRoom());
-        helprequest.setRequestTime(incoming.getRequestTime());
-        helprequest.setExplanation(incoming.getExplanation());
-        helprequest.setSolved(incoming.getSolved());
-
-        
-
-        helpRequestRepository.save(helprequest);
-
-        return helprequest;
+        return incoming;
     }
 
     /**
@@ -155,10 +202,9 @@ public class HelpRequestsController extends ApiController {
     @DeleteMapping("")
     public Object deleteHelpRequest(
             @Parameter(name="id") @RequestParam Long id) {
-        HelpRequest helprequest = helpRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
-
-        helpRequestRepository.delete(helprequest);
+        if (helpRequestRepository.deleteRowById(id) == 0) {
+            throw new EntityNotFoundException(HelpRequest.class, id);
+        }
         return genericMessage("HelpRequest with id %s deleted".formatted(id));
     }
 
@@ -5,48 +5,182 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.models.JobPurgeReport;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.models.RunningJob;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.jobs.JobLogStreamer;
+import edu.ucsb.cs156.example.services.jobs.JobRetentionService;
 import edu.ucsb.cs156.example.services.jobs.JobService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 @Tag(name = "Jobs")
 @RequestMapping("/api/jobs")
 @RestController
 @Slf4j
 public class JobsController extends ApiController {
+  private static final int MAX_PAGE_SIZE = 1000;
+
+  private static final MediaType TEXT_PLAIN_UTF8 =
+      new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+  // Range header for job logs, e.g. "lines=0-99", "lines=100-" or "lines=-50" (the last 50)
+  private static final Pattern LINE_RANGE = Pattern.compile("lines=(\\d{0,9})-(\\d{0,9})");
+
+  /** A gzip entry of an Accept-Encoding header, with its q-value if it has one. */
+  private static final Pattern GZIP_CODING =
+      Pattern.compile(
+          "(?:^|,)\\s*(?:x-)?gzip\\s*(?:;\\s*q=(\\d(?:\\.\\d{0,3})?))?\\s*(?=,|$)",
+          Pattern.CASE_INSENSITIVE);
+
   @Autowired private JobsRepository jobsRepository;
 
   @Autowired private JobService jobService;
 
+  @Autowired private JobLogStreamer jobLogStreamer;
+
+  @Autowired private JobRetentionService jobRetentionService;
+
   @Autowired ObjectMapper mapper;
 
-  @Operation(summary = "List all jobs")
+  @Operation(
+      summary = "List jobs, newest first, without their logs",
+      description =
+          "Returns at most size jobs. When there may be more, the Link header (rel=next) gives the"
+              + " URL of the next page.")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @GetMapping("/all")
-  public Iterable<Job> allJobs() {
-    Iterable<Job> jobs = jobsRepository.findAll();
-    return jobs;
+  public ResponseEntity<List<JobSummary>> allJobs(
+      @Parameter(name = "status", description = "only jobs with this status")
+          @RequestParam(required = false)
+          String status,
+      @Parameter(name = "createdById", description = "only jobs started by this user id")
+          @RequestParam(required = false)
+          Long createdById,
+      @Parameter(name = "createdAfter", description = "only jobs created at or after (ISO date-time)")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          ZonedDateTime createdAfter,
+      @Parameter(name = "createdBefore", description = "only jobs created before (ISO date-time)")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          ZonedDateTime createdBefore,
+      @Parameter(name = "beforeId", description = "only jobs with a smaller id (next-page cursor)")
+          @RequestParam(required = false)
+          Long beforeId,
+      @Parameter(name = "size", description = "page size (at most 1000)")
+          @RequestParam(defaultValue = "100")
+          int size) {
+    int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    List<JobSummary> jobs =
+        jobsRepository.findSummaries(
+            status,
+            createdById,
+            createdAfter,
+            createdBefore,
+            beforeId,
+            PageRequest.ofSize(pageSize));
+
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+    if (jobs.size() == pageSize) {
+      String next =
+          ServletUriComponentsBuilder.fromCurrentRequest()
+              .replaceQueryParam("beforeId", jobs.get(jobs.size() - 1).getId())
+              .toUriString();
+      response.header(HttpHeaders.LINK, "<%s>; rel=\"next\"".formatted(next));
+    }
+    return response.body(jobs);
+  }
+
+  @Operation(summary = "List running jobs with their progress and elapsed time")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/running")
+  public List<RunningJob> runningJobs() {
+    ZonedDateTime now = ZonedDateTime.now();
+    return jobsRepository
+        .findSummaries("running", null, null, null, null, PageRequest.ofSize(MAX_PAGE_SIZE))
+        .stream()
+        .map(
+            job ->
+                RunningJob.builder()
+                    .id(job.getId())
+                    .jobType(job.getJobType())
+                    .createdById(job.getCreatedById())
+                    .createdAt(job.getCreatedAt())
+                    .attempts(job.getAttempts())
+                    .progress(job.getProgress())
+                    .elapsedMs(
+                        job.getCreatedAt() != null
+                            ? Duration.between(job.getCreatedAt(), now).toMillis()
+                            : null)
+                    .build())
+        .toList();
+  }
+
+  @Operation(summary = "Cancel a running job")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/cancel")
+  public Object cancelJob(
+      @Parameter(name = "id", description = "ID of the job") @RequestParam Long id) {
+    if (!jobsRepository.existsById(id)) {
+      throw new EntityNotFoundException(Job.class, id);
+    }
+    if (!jobService.cancel(id)) {
+      return genericMessage("Job with id %d is not running".formatted(id));
+    }
+    return genericMessage("Job with id %d is being cancelled".formatted(id));
   }
 
-  @Operation(summary = "Delete all job records")
+  @Operation(summary = "Delete all job records except those of running jobs")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("/all")
-  public Map<String, String> deleteAllJobs() {
-    jobsRepository.deleteAll();
-    return Map.of("message", "All jobs deleted");
+  public Map<String, Object> deleteAllJobs() {
+    JobPurgeReport report = jobRetentionService.deleteAll();
+    return Map.of(
+        "message",
+        "All finished jobs deleted",
+        "deleted",
+        report.getDeleted(),
+        "skipped",
+        report.getSkipped(),
+        "millis",
+        report.getMillis());
+  }
+
+  @Operation(summary = "Delete finished jobs past the retention limits now")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/purge")
+  public JobPurgeReport purgeJobs() {
+    return jobRetentionService.purge();
   }
 
   @Operation(summary = "Get a specific Job Log by ID if it is in the database")
@@ -59,6 +193,7 @@ public class JobsController extends ApiController {
     Job job =
         jobsRepository.findById(id).orElseThrow(() -> new EntityNotFoundException(Job.class, id));
 
+    job.setLog(jobService.getJobLogs(job));
     return job;
   }
 
@@ -85,13 +220,112 @@ public class JobsController extends ApiController {
   }
 
 
-  @Operation(summary = "Get long job logs")
+  @Operation(
+      summary = "Get long job logs, or part of them",
+      description =
+          "With no parameters the whole log is returned. fromLine/limit or tail select lines;"
+              + " a Range header such as 'lines=100-199' or 'lines=-50' returns 206 Partial"
+              + " Content with a Content-Range header. Line numbers start at 0.")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @GetMapping("/logs/{id}")
-  public String getJobLogs(@Parameter(name = "id", description = "Job ID") @PathVariable Long id) {
+  public ResponseEntity<byte[]> getJobLogs(
+      @Parameter(name = "id", description = "Job ID") @PathVariable Long id,
+      @Parameter(name = "fromLine", description = "first line to return")
+          @RequestParam(required = false)
+          Integer fromLine,
+      @Parameter(name = "limit", description = "maximum number of lines to return")
+          @RequestParam(required = false)
+          Integer limit,
+      @Parameter(name = "tail", description = "return only the last tail lines")
+          @RequestParam(required = false)
+          Integer tail,
+      @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.RANGE, required = false)
+          String range,
+      @Parameter(hidden = true)
+          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+          String acceptEncoding) {
+    Matcher lineRange = range != null ? LINE_RANGE.matcher(range.trim()) : null;
+    boolean ranged =
+        lineRange != null && lineRange.matches() && lineRange.group(0).length() > "lines=-".length();
+    if (!ranged && fromLine == null && limit == null && tail == null) {
+      // finished logs are stored gzipped; send them as they are to clients that accept gzip
+      Optional<byte[]> compressed =
+          acceptEncoding != null && acceptsGzip(acceptEncoding)
+              ? jobService.getCompressedJobLogs(id)
+              : Optional.empty();
+      if (compressed.isPresent()) {
+        return ResponseEntity.ok()
+            .header(HttpHeaders.ACCEPT_RANGES, "lines")
+            .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+            .contentType(TEXT_PLAIN_UTF8)
+            .body(compressed.get());
+      }
+      return text(ResponseEntity.ok(), jobService.getJobLogs(id));
+    }
+
+    if (!jobsRepository.existsById(id)) {
+      throw new EntityNotFoundException(Job.class, id);
+    }
+    int total = jobService.countJobLogLines(id);
+
+    if (ranged) {
+      String start = lineRange.group(1);
+      String end = lineRange.group(2);
+      int first;
+      int last = total - 1;
+      if (start.isEmpty()) {
+        first = Math.max(0, total - Integer.parseInt(end));
+      } else {
+        first = Integer.parseInt(start);
+        if (!end.isEmpty()) {
+          last = Math.min(last, Integer.parseInt(end));
+        }
+      }
+      if (first > last) {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+            .header(HttpHeaders.CONTENT_RANGE, "lines */%d".formatted(total))
+            .build();
+      }
+      return text(
+          ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+              .header(HttpHeaders.CONTENT_RANGE, "lines %d-%d/%d".formatted(first, last, total)),
+          String.join("\n", jobService.getJobLogLines(id, first, last - first + 1)));
+    }
+
+    int first = Math.max(0, tail != null ? total - tail : fromLine != null ? fromLine : 0);
+    int count = limit != null ? Math.min(limit, total - first) : total - first;
+    return text(
+        ResponseEntity.ok(), String.join("\n", jobService.getJobLogLines(id, first, count)));
+  }
 
-    return jobService.getJobLogs(id);
+  /** Whether an Accept-Encoding header lists gzip with a q-value above 0, as in "gzip;q=0.5". */
+  private static boolean acceptsGzip(String acceptEncoding) {
+    Matcher coding = GZIP_CODING.matcher(acceptEncoding);
+    return coding.find() && (coding.group(1) == null || Double.parseDouble(coding.group(1)) > 0);
   }
 
+  private static ResponseEntity<byte[]> text(ResponseEntity.BodyBuilder response, String body) {
+    return response
+        .header(HttpHeaders.ACCEPT_RANGES, "lines")
+        .contentType(TEXT_PLAIN_UTF8)
+        .body(body.getBytes(StandardCharsets.UTF_8));
+  }
 
+  @Operation(summary = "Stream new job log lines as server-sent events, starting at fromLine")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping(value = "/logs/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamJobLogs(
+      @Parameter(name = "id", description = "Job ID") @PathVariable Long id,
+      @Parameter(name = "fromLine", description = "first line to send (0-based)")
+          @RequestParam(defaultValue = "0")
+          int fromLine,
+      @Parameter(hidden = true) @RequestHeader(value = "Last-Event-ID", required = false)
+          Integer lastEventId) {
+    if (!jobsRepository.existsById(id)) {
+      throw new EntityNotFoundException(Job.class, id);
+    }
+    int firstLine = lastEventId != null ? lastEventId + 1 : fromLine;
+    return jobLogStreamer.stream(id, firstLine);
+  }
 }
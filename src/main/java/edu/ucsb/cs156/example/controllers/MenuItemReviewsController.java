@@ -3,6 +3,7 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.MenuItemsReviewRepository;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 
@@ -16,6 +17,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import org.eclipse.jetty.client.Request.CommitListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -26,9 +29,14 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
 
 /**
  * This is a REST controller for MenuItemReviews
@@ -47,14 +55,64 @@ public class MenuItemReviewsController extends ApiController {
     /**
      * List all MenuItemReviews
      * 
-     * @return an iterable of MenuItemReviews
+     * @param response the response the JSON array is written to
+     * @throws IOException if writing the response fails
      */
     @Operation(summary = "List all menuitemreviews")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<MenuItemReview> allMenuItemReviews() {
-        Iterable<MenuItemReview> menuitemreviews = menuItemsReviewRepository.findAll();
-        return menuitemreviews;
+    public void allMenuItemReviews(HttpServletResponse response) throws IOException {
+        streamAll(menuItemsReviewRepository, response);
+    }
+
+    /**
+     * This method returns one page of menu item reviews, sorted by id or by dateReviewed.
+     * When there may be more, the Link header (rel=next) gives the URL of the next page.
+     * @param sort id or dateReviewed, optionally followed by ",asc" or ",desc"
+     * @param cursor the next-page cursor from the previous page, or null for the first page
+     * @param size the page size (at most 1000)
+     * @return a page of menu item reviews
+     */
+    @Operation(summary = "List one page of menu item reviews",
+            description = "Sorted by id or dateReviewed. When there may be more, the Link header (rel=next) gives the URL of the next page.")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public ResponseEntity<List<MenuItemReview>> pageMenuItemReviews(
+            @Parameter(name = "sort", description = "id or dateReviewed, optionally followed by ,asc or ,desc")
+            @RequestParam(defaultValue = "id") String sort,
+            @Parameter(name = "cursor", description = "next-page cursor from the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(name = "size", description = "page size (at most 1000)")
+            @RequestParam(defaultValue = "100") int size) {
+        return keysetPage(menuItemsReviewRepository, MenuItemReview.class, Set.of("dateReviewed"), sort, cursor, size);
+    }
+
+    /**
+     * This method creates or updates many menu item reviews in one transaction.
+     * @param request the request, whose body is a JSON array or NDJSON of menu item reviews
+     * @return how many were created and updated, or the rows in error
+     * @throws IOException if reading the request fails
+     */
+    @Operation(summary = "Create or update many menu item reviews",
+            description = "Takes a JSON array or NDJSON. Rows without an id are created; rows with an id update that row, which must exist. Nothing is written if any row is in error.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<BulkResult> bulkSaveMenuItemReviews(HttpServletRequest request) throws IOException {
+        return bulkSave(menuItemsReviewRepository, MenuItemReview.class, request);
+    }
+
+    /**
+     * This method deletes many menu item reviews in one transaction.
+     * @param request the request, whose body is a JSON array or NDJSON of ids
+     * @return how many were deleted, or the rows in error
+     * @throws IOException if reading the request fails
+     */
+    @Operation(summary = "Delete many menu item reviews",
+            description = "Takes a JSON array or NDJSON of ids. Nothing is deleted if any row is in error.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<BulkResult> bulkDeleteMenuItemReviews(HttpServletRequest request) throws IOException {
+        return bulkDelete(menuItemsReviewRepository, MenuItemReview.class, request);
     }
 
     /**
@@ -125,19 +183,12 @@ public class MenuItemReviewsController extends ApiController {
     public MenuItemReview updateMenuItemReview(
             @Parameter(name="id") @RequestParam Long id,
             @RequestBody @Valid MenuItemReview incoming) {
+        if (menuItemsReviewRepository.updateById(id, incoming) == 0) {
+            throw new EntityNotFoundException(MenuItemReview.class, id);
+        }
+        incoming.setId(id);
 
-        MenuItemReview menuItemReview = menuItemsReviewRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
-
-        menuItemReview.setItemId(incoming.getItemId());
-        menuItemReview.setReviewerEmail(incoming.getReviewerEmail());
-        menuItemReview.setStars(incoming.getStars());
-        menuItemReview.setDateReviewed(incoming.getDateReviewed());
-        menuItemReview.setComments(incoming.getComments());
-
-        menuItemsReviewRepository.save(menuItemReview);
-
-        return menuItemReview;
+        return incoming;
     }
 
     /**
@@ -151,10 +202,9 @@ public class MenuItemReviewsController extends ApiController {
     @DeleteMapping("")
     public Object deleteMenuItemReview(
             @Parameter(name="id") @RequestParam Long id) {
-        MenuItemReview menuItemReview = menuItemsReviewRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
-
-        menuItemsReviewRepository.delete(menuItemReview);
+        if (menuItemsReviewRepository.deleteRowById(id) == 0) {
+            throw new EntityNotFoundException(MenuItemReview.class, id);
+        }
         return genericMessage("MenuItemReview with id %s deleted".formatted(id));
     }
 }
@@ -3,6 +3,7 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 
@@ -16,6 +17,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cglib.core.Local;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -26,10 +29,15 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
 
 /**
  * This is a REST controller for RecommendationRequest
@@ -47,14 +55,64 @@ public class RecommendationRequestController extends ApiController {
     /**
      * List all RecommendationRequest
      * 
-     * @return an iterable of RecommendationRequest
+     * @param response the response the JSON array is written to
+     * @throws IOException if writing the response fails
      */
     @Operation(summary = "List all Recommendation Requests")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<RecommendationRequest> allRecommendationRequest() {
-        Iterable<RecommendationRequest> RecommendationRequest = recommendationRequestRepository.findAll();
-        return RecommendationRequest;
+    public void allRecommendationRequest(HttpServletResponse response) throws IOException {
+        streamAll(recommendationRequestRepository, response);
+    }
+
+    /**
+     * This method returns one page of recommendation requests, sorted by id or by dateRequested.
+     * When there may be more, the Link header (rel=next) gives the URL of the next page.
+     * @param sort id or dateRequested, optionally followed by ",asc" or ",desc"
+     * @param cursor the next-page cursor from the previous page, or null for the first page
+     * @param size the page size (at most 1000)
+     * @return a page of recommendation requests
+     */
+    @Operation(summary = "List one page of recommendation requests",
+            description = "Sorted by id or dateRequested. When there may be more, the Link header (rel=next) gives the URL of the next page.")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public ResponseEntity<List<RecommendationRequest>> pageRecommendationRequests(
+            @Parameter(name = "sort", description = "id or dateRequested, optionally followed by ,asc or ,desc")
+            @RequestParam(defaultValue = "id") String sort,
+            @Parameter(name = "cursor", description = "next-page cursor from the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(name = "size", description = "page size (at most 1000)")
+            @RequestParam(defaultValue = "100") int size) {
+        return keysetPage(recommendationRequestRepository, RecommendationRequest.class, Set.of("dateRequested"), sort, cursor, size);
+    }
+
+    /**
+     * This method creates or updates many recommendation requests in one transaction.
+     * @param request the request, whose body is a JSON array or NDJSON of recommendation requests
+     * @return how many were created and updated, or the rows in error
+     * @throws IOException if reading the request fails
+     */
+    @Operation(summary = "Create or update many recommendation requests",
+            description = "Takes a JSON array or NDJSON. Rows without an id are created; rows with an id update that row, which must exist. Nothing is written if any row is in error.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<BulkResult> bulkSaveRecommendationRequests(HttpServletRequest request) throws IOException {
+        return bulkSave(recommendationRequestRepository, RecommendationRequest.class, request);
+    }
+
+    /**
+     * This method deletes many recommendation requests in one transaction.
+     * @param request the request, whose body is a JSON array or NDJSON of ids
+     * @return how many were deleted, or the rows in error
+     * @throws IOException if reading the request fails
+     */
+    @Operation(summary = "Delete many recommendation requests",
+            description = "Takes a JSON array or NDJSON of ids. Nothing is deleted if any row is in error.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<BulkResult> bulkDeleteRecommendationRequests(HttpServletRequest request) throws IOException {
+        return bulkDelete(recommendationRequestRepository, RecommendationRequest.class, request);
     }
 
     /**
@@ -129,20 +187,12 @@ public class RecommendationRequestController extends ApiController {
     public RecommendationRequest updateRecommendationRequest(
             @Parameter(name="id") @RequestParam Long id,
             @RequestBody @Valid RecommendationRequest incoming) {
+        if (recommendationRequestRepository.updateById(id, incoming) == 0) {
+            throw new EntityNotFoundException(RecommendationRequest.class, id);
+        }
+        incoming.setId(id);
 
-        RecommendationRequest recommendationRequest = recommendationRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
-
-        recommendationRequest.setRequesterEmail(incoming.getRequesterEmail());
-        recommendationRequest.setProfessorEmail(incoming.getProfessorEmail());
-        recommendationRequest.setExplanation(incoming.getExplanation());
-        recommendationRequest.setDateRequested(incoming.getDateRequested());
-        recommendationRequest.setDateNeeded(incoming.getDateNeeded());
-        recommendationRequest.setDone(incoming.getDone());
-
-        recommendationRequestRepository.save(recommendationRequest);
-
-        return recommendationRequest;
+        return incoming;
     }
 
     /**
@@ -156,10 +206,9 @@ public class RecommendationRequestController extends ApiController {
     @DeleteMapping("")
     public Object deleteRecommendationRequest(
             @Parameter(name="id") @RequestParam Long id) {
-                RecommendationRequest recommendationRequest = recommendationRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
-
-        recommendationRequestRepository.delete(recommendationRequest);
+        if (recommendationRequestRepository.deleteRowById(id) == 0) {
+            throw new EntityNotFoundException(RecommendationRequest.class, id);
+        }
         return genericMessage("RecommendationRequest with id %s deleted".formatted(id));
     }
 }
@@ -2,6 +2,7 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -9,6 +10,8 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -19,8 +22,14 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
 /**
  * This is a REST controller for Restaurants
  */
@@ -35,14 +44,64 @@ public class RestaurantsController extends ApiController {
 
     /**
      * This method returns a list of all restaurants.
-     * @return a list of all restaurants
+     * @param response the response the JSON array is written to
+     * @throws IOException if writing the response fails
      */
     @Operation(summary = "List all restaurants")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<Restaurant> allRestaurants() {
-        Iterable<Restaurant> restaurants = restaurantRepository.findAll();
-        return restaurants;
+    public void allRestaurants(HttpServletResponse response) throws IOException {
+        streamAll(restaurantRepository, response);
+    }
+
+    /**
+     * This method returns one page of restaurants, sorted by id or by name.
+     * When there may be more, the Link header (rel=next) gives the URL of the next page.
+     * @param sort id or name, optionally followed by ",asc" or ",desc"
+     * @param cursor the next-page cursor from the previous page, or null for the first page
+     * @param size the page size (at most 1000)
+     * @return a page of restaurants
+     */
+    @Operation(summary = "List one page of restaurants",
+            description = "Sorted by id or name. When there may be more, the Link header (rel=next) gives the URL of the next page.")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public ResponseEntity<List<Restaurant>> pageRestaurants(
+            @Parameter(name = "sort", description = "id or name, optionally followed by ,asc or ,desc")
+            @RequestParam(defaultValue = "id") String sort,
+            @Parameter(name = "cursor", description = "next-page cursor from the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(name = "size", description = "page size (at most 1000)")
+            @RequestParam(defaultValue = "100") int size) {
+        return keysetPage(restaurantRepository, Restaurant.class, Set.of("name"), sort, cursor, size);
+    }
+
+    /**
+     * This method creates or updates many restaurants in one transaction.
+     * @param request the request, whose body is a JSON array or NDJSON of restaurants
+     * @return how many were created and updated, or the rows in error
+     * @throws IOException if reading the request fails
+     */
+    @Operation(summary = "Create or update many restaurants",
+            description = "Takes a JSON array or NDJSON. Rows without an id are created; rows with an id update that row, which must exist. Nothing is written if any row is in error.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<BulkResult> bulkSaveRestaurants(HttpServletRequest request) throws IOException {
+        return bulkSave(restaurantRepository, Restaurant.class, request);
+    }
+
+    /**
+     * This method deletes many restaurants in one transaction.
+     * @param request the request, whose body is a JSON array or NDJSON of ids
+     * @return how many were deleted, or the rows in error
+     * @throws IOException if reading the request fails
+     */
+    @Operation(summary = "Delete many restaurants",
+            description = "Takes a JSON array or NDJSON of ids. Nothing is deleted if any row is in error.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<BulkResult> bulkDeleteRestaurants(HttpServletRequest request) throws IOException {
+        return bulkDelete(restaurantRepository, Restaurant.class, request);
     }
 
     /**
@@ -92,10 +151,9 @@ public class RestaurantsController extends ApiController {
     @DeleteMapping("")
     public Object deleteRestaurant(
             @Parameter(name = "id") @RequestParam Long id) {
-        Restaurant restaurant = restaurantRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
-
-        restaurantRepository.delete(restaurant);
+        if (restaurantRepository.deleteRowById(id) == 0) {
+            throw new EntityNotFoundException(Restaurant.class, id);
+        }
         return genericMessage("Restaurant with id %s deleted".formatted(id));
     }
 
@@ -111,15 +169,11 @@ public class RestaurantsController extends ApiController {
     public Restaurant updateRestaurant(
             @Parameter(name = "id") @RequestParam Long id,
             @RequestBody @Valid Restaurant incoming) {
+        if (restaurantRepository.updateById(id, incoming) == 0) {
+            throw new EntityNotFoundException(Restaurant.class, id);
+        }
+        incoming.setId(id);
 
-        Restaurant restaurant = restaurantRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
-
-        restaurant.setName(incoming.getName());
-        restaurant.setDescription(incoming.getDescription());
-
-        restaurantRepository.save(restaurant);
-
-        return restaurant;
+        return incoming;
     }
 }
\ No newline at end of file
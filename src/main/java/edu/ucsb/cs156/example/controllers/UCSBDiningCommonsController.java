@@ -2,6 +2,7 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -10,6 +11,8 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,8 +23,14 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
 /**
  * This is a REST controller for UCSBDiningCommons
  */
@@ -37,14 +46,64 @@ public class UCSBDiningCommonsController extends ApiController {
 
     /**
      * THis method returns a list of all ucsbdiningcommons.
-     * @return a list of all ucsbdiningcommons
+     * @param response the response the JSON array is written to
+     * @throws IOException if writing the response fails
      */
     @Operation(summary= "List all ucsb dining commons")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDiningCommons> allCommonss() {
-        Iterable<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAll();
-        return commons;
+    public void allCommonss(HttpServletResponse response) throws IOException {
+        streamAll(ucsbDiningCommonsRepository, response);
+    }
+
+    /**
+     * This method returns one page of ucsb dining commons, sorted by code or by name.
+     * When there may be more, the Link header (rel=next) gives the URL of the next page.
+     * @param sort code or name, optionally followed by ",asc" or ",desc"
+     * @param cursor the next-page cursor from the previous page, or null for the first page
+     * @param size the page size (at most 1000)
+     * @return a page of ucsb dining commons
+     */
+    @Operation(summary = "List one page of ucsb dining commons",
+            description = "Sorted by code or name. When there may be more, the Link header (rel=next) gives the URL of the next page.")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public ResponseEntity<List<UCSBDiningCommons>> pageCommons(
+            @Parameter(name = "sort", description = "code or name, optionally followed by ,asc or ,desc")
+            @RequestParam(defaultValue = "code") String sort,
+            @Parameter(name = "cursor", description = "next-page cursor from the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(name = "size", description = "page size (at most 1000)")
+            @RequestParam(defaultValue = "100") int size) {
+        return keysetPage(ucsbDiningCommonsRepository, UCSBDiningCommons.class, Set.of("name"), sort, cursor, size);
+    }
+
+    /**
+     * This method creates or updates many dining commons in one transaction.
+     * @param request the request, whose body is a JSON array or NDJSON of dining commons
+     * @return how many were created and updated, or the rows in error
+     * @throws IOException if reading the request fails
+     */
+    @Operation(summary = "Create or update many dining commons",
+            description = "Takes a JSON array or NDJSON. Each row with an existing code replaces that row; other rows are created. Nothing is written if any row is in error.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<BulkResult> bulkSaveUCSBDiningCommons(HttpServletRequest request) throws IOException {
+        return bulkSave(ucsbDiningCommonsRepository, UCSBDiningCommons.class, request);
+    }
+
+    /**
+     * This method deletes many dining commons in one transaction.
+     * @param request the request, whose body is a JSON array or NDJSON of codes
+     * @return how many were deleted, or the rows in error
+     * @throws IOException if reading the request fails
+     */
+    @Operation(summary = "Delete many dining commons",
+            description = "Takes a JSON array or NDJSON of codes. Nothing is deleted if any row is in error.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<BulkResult> bulkDeleteUCSBDiningCommons(HttpServletRequest request) throws IOException {
+        return bulkDelete(ucsbDiningCommonsRepository, UCSBDiningCommons.class, request);
     }
 
     /**
@@ -112,10 +171,9 @@ public class UCSBDiningCommonsController extends ApiController {
     @DeleteMapping("")
     public Object deleteCommons(
             @Parameter(name="code") @RequestParam String code) {
-        UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
-
-        ucsbDiningCommonsRepository.delete(commons);
+        if (ucsbDiningCommonsRepository.deleteRowById(code) == 0) {
+            throw new EntityNotFoundException(UCSBDiningCommons.class, code);
+        }
         return genericMessage("UCSBDiningCommons with id %s deleted".formatted(code));
     }
 
@@ -131,20 +189,11 @@ public class UCSBDiningCommonsController extends ApiController {
     public UCSBDiningCommons updateCommons(
             @Parameter(name="code") @RequestParam String code,
             @RequestBody @Valid UCSBDiningCommons incoming) {
+        if (ucsbDiningCommonsRepository.updateById(code, incoming) == 0) {
+            throw new EntityNotFoundException(UCSBDiningCommons.class, code);
+        }
+        incoming.setCode(code);
 
-        UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
-
-
-        commons.setName(incoming.getName());  
-        commons.setHasSackMeal(incoming.getHasSackMeal());
-        commons.setHasTakeOutMeal(incoming.getHasTakeOutMeal());
-        commons.setHasDiningCam(incoming.getHasDiningCam());
-        commons.setLatitude(incoming.getLatitude());
-        commons.setLongitude(incoming.getLongitude());
-
-        ucsbDiningCommonsRepository.save(commons);
-
-        return commons;
+        return incoming;
     }
 }
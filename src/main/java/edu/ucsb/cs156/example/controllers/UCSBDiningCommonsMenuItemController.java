@@ -2,6 +2,7 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,6 +14,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,9 +26,14 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
 
 /**
  * This is a REST controller for UCSBDiningCommonsMenuItems
@@ -43,14 +51,64 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
     /**
      * List all UCSB dining commons menu items
      *
-     * @return an iterable of UCSBDiningCommonsMenuItem
+     * @param response the response the JSON array is written to
+     * @throws IOException if writing the response fails
      */
     @Operation(summary="List all ucsb dining commons menu items")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDiningCommonsMenuItem> allUCSBDiningCommonsMenuItems() {
-        Iterable<UCSBDiningCommonsMenuItem> diningCommonsMenuItems = ucsbDiningCommonsMenuItemRepository.findAll();
-        return diningCommonsMenuItems;
+    public void allUCSBDiningCommonsMenuItems(HttpServletResponse response) throws IOException {
+        streamAll(ucsbDiningCommonsMenuItemRepository, response);
+    }
+
+    /**
+     * This method returns one page of ucsb dining commons menu items, sorted by id or by name.
+     * When there may be more, the Link header (rel=next) gives the URL of the next page.
+     * @param sort id or name, optionally followed by ",asc" or ",desc"
+     * @param cursor the next-page cursor from the previous page, or null for the first page
+     * @param size the page size (at most 1000)
+     * @return a page of ucsb dining commons menu items
+     */
+    @Operation(summary = "List one page of ucsb dining commons menu items",
+            description = "Sorted by id or name. When there may be more, the Link header (rel=next) gives the URL of the next page.")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public ResponseEntity<List<UCSBDiningCommonsMenuItem>> pageUCSBDiningCommonsMenuItems(
+            @Parameter(name = "sort", description = "id or name, optionally followed by ,asc or ,desc")
+            @RequestParam(defaultValue = "id") String sort,
+            @Parameter(name = "cursor", description = "next-page cursor from the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(name = "size", description = "page size (at most 1000)")
+            @RequestParam(defaultValue = "100") int size) {
+        return keysetPage(ucsbDiningCommonsMenuItemRepository, UCSBDiningCommonsMenuItem.class, Set.of("name"), sort, cursor, size);
+    }
+
+    /**
+     * This method creates or updates many dining commons menu items in one transaction.
+     * @param request the request, whose body is a JSON array or NDJSON of dining commons menu items
+     * @return how many were created and updated, or the rows in error
+     * @throws IOException if reading the request fails
+     */
+    @Operation(summary = "Create or update many dining commons menu items",
+            description = "Takes a JSON array or NDJSON. Rows without an id are created; rows with an id update that row, which must exist. Nothing is written if any row is in error.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<BulkResult> bulkSaveUCSBDiningCommonsMenuItems(HttpServletRequest request) throws IOException {
+        return bulkSave(ucsbDiningCommonsMenuItemRepository, UCSBDiningCommonsMenuItem.class, request);
+    }
+
+    /**
+     * This method deletes many dining commons menu items in one transaction.
+     * @param request the request, whose body is a JSON array or NDJSON of ids
+     * @return how many were deleted, or the rows in error
+     * @throws IOException if reading the request fails
+     */
+    @Operation(summary = "Delete many dining commons menu items",
+            description = "Takes a JSON array or NDJSON of ids. Nothing is deleted if any row is in error.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<BulkResult> bulkDeleteUCSBDiningCommonsMenuItems(HttpServletRequest request) throws IOException {
+        return bulkDelete(ucsbDiningCommonsMenuItemRepository, UCSBDiningCommonsMenuItem.class, request);
     }
 
     /**
@@ -110,27 +168,21 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
     public UCSBDiningCommonsMenuItem updateUCSBDiningCommonsMenuItem(
             @Parameter(name="id") @RequestParam Long id,
             @RequestBody @Valid UCSBDiningCommonsMenuItem incoming) {
+        if (ucsbDiningCommonsMenuItemRepository.updateById(id, incoming) == 0) {
+            throw new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id);
+        }
+        incoming.setId(id);
 
-        UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem = ucsbDiningCommonsMenuItemRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
-
-        ucsbDiningCommonsMenuItem.setDiningCommonsCode(incoming.getDiningCommonsCode());
-        ucsbDiningCommonsMenuItem.setName(incoming.getName());
-        ucsbDiningCommonsMenuItem.setStation(incoming.getStation());
-
-        ucsbDiningCommonsMenuItemRepository.save(ucsbDiningCommonsMenuItem);
-
-        return ucsbDiningCommonsMenuItem;
+        return incoming;
     }
     @Operation(summary= "Delete a UCSBDiningCommonsMenuItem")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
     public Object deleteUCSBDiningCommonsMenuItem(
             @Parameter(name="id") @RequestParam Long id) {
-        UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem = ucsbDiningCommonsMenuItemRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
-
-        ucsbDiningCommonsMenuItemRepository.delete(ucsbDiningCommonsMenuItem);
+        if (ucsbDiningCommonsMenuItemRepository.deleteRowById(id) == 0) {
+            throw new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id);
+        }
         return genericMessage("UCSBDiningCommonsMenuItem with id %s deleted".formatted(id));
     }
 }
@@ -2,6 +2,7 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,6 +14,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,9 +26,14 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
 
 /**
  * This is a REST controller for UCSBOrganization
@@ -43,14 +51,64 @@ public class UCSBOrganizationController extends ApiController{
     /**
      * List all UCSB Organizations
      * 
-     * @return an iterable of UCSBOrganization
+     * @param response the response the JSON array is written to
+     * @throws IOException if writing the response fails
      */
     @Operation(summary= "List all ucsb organizations")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBOrganization> allUCSBOrganization() {
-        Iterable<UCSBOrganization> organizations = ucsbOrganizationRepository.findAll();
-        return organizations;
+    public void allUCSBOrganization(HttpServletResponse response) throws IOException {
+        streamAll(ucsbOrganizationRepository, response);
+    }
+
+    /**
+     * This method returns one page of ucsb organizations, sorted by orgCode or by orgTranslationShort.
+     * When there may be more, the Link header (rel=next) gives the URL of the next page.
+     * @param sort orgCode or orgTranslationShort, optionally followed by ",asc" or ",desc"
+     * @param cursor the next-page cursor from the previous page, or null for the first page
+     * @param size the page size (at most 1000)
+     * @return a page of ucsb organizations
+     */
+    @Operation(summary = "List one page of ucsb organizations",
+            description = "Sorted by orgCode or orgTranslationShort. When there may be more, the Link header (rel=next) gives the URL of the next page.")
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/page")
+    public ResponseEntity<List<UCSBOrganization>> pageUCSBOrganizations(
+            @Parameter(name = "sort", description = "orgCode or orgTranslationShort, optionally followed by ,asc or ,desc")
+            @RequestParam(defaultValue = "orgCode") String sort,
+            @Parameter(name = "cursor", description = "next-page cursor from the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(name = "size", description = "page size (at most 1000)")
+            @RequestParam(defaultValue = "100") int size) {
+        return keysetPage(ucsbOrganizationRepository, UCSBOrganization.class, Set.of("orgTranslationShort"), sort, cursor, size);
+    }
+
+    /**
+     * This method creates or updates many organizations in one transaction.
+     * @param request the request, whose body is a JSON array or NDJSON of organizations
+     * @return how many were created and updated, or the rows in error
+     * @throws IOException if reading the request fails
+     */
+    @Operation(summary = "Create or update many organizations",
+            description = "Takes a JSON array or NDJSON. Each row with an existing orgCode replaces that row; other rows are created. Nothing is written if any row is in error.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<BulkResult> bulkSaveUCSBOrganizations(HttpServletRequest request) throws IOException {
+        return bulkSave(ucsbOrganizationRepository, UCSBOrganization.class, request);
+    }
+
+    /**
+     * This method deletes many organizations in one transaction.
+     * @param request the request, whose body is a JSON array or NDJSON of orgCodes
+     * @return how many were deleted, or the rows in error
+     * @throws IOException if reading the request fails
+     */
+    @Operation(summary = "Delete many organizations",
+            description = "Takes a JSON array or NDJSON of orgCodes. Nothing is deleted if any row is in error.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @DeleteMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<BulkResult> bulkDeleteUCSBOrganizations(HttpServletRequest request) throws IOException {
+        return bulkDelete(ucsbOrganizationRepository, UCSBOrganization.class, request);
     }
 
     /**
@@ -117,17 +175,12 @@ public class UCSBOrganizationController extends ApiController{
     public UCSBOrganization updateUCSBOrganization(
             @Parameter(name="orgCode") @RequestParam String orgCode,
             @RequestBody @Valid UCSBOrganization incoming) {
+        if (ucsbOrganizationRepository.updateById(orgCode, incoming) == 0) {
+            throw new EntityNotFoundException(UCSBOrganization.class, orgCode);
+        }
+        incoming.setOrgCode(orgCode);
 
-        UCSBOrganization ucsbOrganization = ucsbOrganizationRepository.findById(orgCode)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, orgCode));
-
-        ucsbOrganization.setOrgTranslationShort(incoming.getOrgTranslationShort());
-        ucsbOrganization.setOrgTranslation(incoming.getOrgTranslation());
-        ucsbOrganization.setInactive(incoming.getInactive());
-
-        ucsbOrganizationRepository.save(ucsbOrganization);
-
-        return ucsbOrganization;
+        return incoming;
     }
 
 
@@ -142,10 +195,9 @@ public class UCSBOrganizationController extends ApiController{
     @DeleteMapping("")
     public Object deleteUCSBOrganization(
             @Parameter(name="orgCode") @RequestParam String orgCode) {
-        UCSBOrganization ucsbOrganization = ucsbOrganizationRepository.findById(orgCode)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, orgCode));
-
-        ucsbOrganizationRepository.delete(ucsbOrganization);
+        if (ucsbOrganizationRepository.deleteRowById(orgCode) == 0) {
+            throw new EntityNotFoundException(UCSBOrganization.class, orgCode);
+        }
         return genericMessage("UCSBOrganization with id %s deleted".formatted(orgCode));
     }
 
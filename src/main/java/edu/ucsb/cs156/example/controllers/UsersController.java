@@ -7,14 +7,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.AdminDirectory;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import java.util.List;
+import java.util.Set;
+
 /**
  * This is a REST controller for getting information about the users.
  * 
@@ -31,6 +39,9 @@ public class UsersController extends ApiController {
     @Autowired
     ObjectMapper mapper;
 
+    @Autowired
+    AdminDirectory adminDirectory;
+
     /**
      * This method returns a list of all users.  Accessible only to users with the role "ROLE_ADMIN".
      * @return a list of all users
@@ -45,4 +56,53 @@ public class UsersController extends ApiController {
         String body = mapper.writeValueAsString(users);
         return ResponseEntity.ok().body(body);
     }
-}
\ No newline at end of file
+
+    /**
+     * This method returns one page of users, sorted by id or by email.
+     * When there may be more, the Link header (rel=next) gives the URL of the next page.
+     * @param sort id or email, optionally followed by ",asc" or ",desc"
+     * @param cursor the next-page cursor from the previous page, or null for the first page
+     * @param size the page size (at most 1000)
+     * @return a page of users
+     */
+    @Operation(summary = "List one page of users",
+            description = "Sorted by id or email. When there may be more, the Link header (rel=next) gives the URL of the next page.")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/page")
+    public ResponseEntity<List<User>> pageUsers(
+            @Parameter(name = "sort", description = "id or email, optionally followed by ,asc or ,desc")
+            @RequestParam(defaultValue = "id") String sort,
+            @Parameter(name = "cursor", description = "next-page cursor from the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(name = "size", description = "page size (at most 1000)")
+            @RequestParam(defaultValue = "100") int size) {
+        return keysetPage(userRepository, User.class, Set.of("email"), sort, cursor, size);
+    }
+
+    /**
+     * This method returns the emails that are always admins (app.admin.emails).
+     * Accessible only to users with the role "ROLE_ADMIN".
+     * @return the admin emails
+     */
+    @Operation(summary= "Get the list of admin emails")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/admins")
+    public Set<String> adminEmails() {
+        return adminDirectory.getAdminEmails();
+    }
+
+    /**
+     * This method replaces the admin emails without a restart; the configured
+     * app.admin.emails applies again after the next restart.
+     * Accessible only to users with the role "ROLE_ADMIN".
+     * @param emails the new list of admin emails
+     * @return the admin emails now in effect
+     */
+    @Operation(summary= "Replace the list of admin emails until the next restart")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PutMapping("/admins")
+    public Set<String> replaceAdminEmails(@RequestBody List<String> emails) {
+        adminDirectory.setAdminEmails(emails);
+        return adminDirectory.getAdminEmails();
+    }
+}
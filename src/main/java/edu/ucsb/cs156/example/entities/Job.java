@@ -16,7 +16,8 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 @EntityListeners(AuditingEntityListener.class)
 public class Job {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "jobs_seq")
+  @SequenceGenerator(name = "jobs_seq", sequenceName = "jobs_seq", allocationSize = 50)
   private long id;
 
   @JsonIgnore
@@ -29,6 +30,27 @@ public class Job {
 
   private String status;
 
+  // Class name and JSON fields of the JobContextConsumer, so that another instance can rerun the
+  // job if the one holding its lease dies. Null for jobs that cannot be rebuilt (e.g. lambdas).
+  private String jobType;
+
+  @JsonIgnore
+  @Column(columnDefinition = "TEXT")
+  private String params;
+
+  private String leaseOwner;
+  private ZonedDateTime leaseExpiresAt;
+  private int attempts;
+
+  // percent complete, as last reported through JobContext.progress; null if never reported
+  private Integer progress;
+
+  // the job is cancelled if it is still running at this time; null for no timeout
+  private ZonedDateTime timeoutAt;
+
+  // set by an admin; the instance running the job sees it on its next lease heartbeat
+  private boolean cancelRequested;
+
   // 1048576 is 2^20, which is the max size of a mediumtext in MySQL
   @Column(
       columnDefinition = "TEXT",
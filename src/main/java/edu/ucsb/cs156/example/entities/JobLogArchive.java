@@ -0,0 +1,31 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * The log of a finished job, compressed.
+ *
+ * <p>When a job completes or fails its {@link JobLogLine}s are compressed into {@link
+ * JobLogArchiveChunk}s and deleted. Finished logs never change, and log text compresses well. This
+ * row holds what is needed to serve the chunks as one gzip file: the CRC-32 and the size of the
+ * uncompressed text.
+ *
+ * <p>Archives written before chunks existed have the whole log gzipped in {@code content} instead.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+@Entity(name = "job_log_archives")
+public class JobLogArchive {
+  @Id private long jobId;
+
+  private int lineCount;
+
+  private long crc32;
+
+  private long uncompressedSize;
+
+  private byte[] content;
+}
@@ -0,0 +1,34 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * A run of consecutive lines of an archived job log, compressed on its own.
+ *
+ * <p>{@code content} is raw deflate data ending in a full flush, so each chunk inflates without
+ * the chunks before it, and the chunks of a log concatenated in order are one deflate stream. A
+ * slice of a finished log is read by inflating only the chunks it overlaps.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+@Entity(name = "job_log_archive_chunks")
+public class JobLogArchiveChunk {
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "job_log_archive_chunks_seq")
+  @SequenceGenerator(
+      name = "job_log_archive_chunks_seq",
+      sequenceName = "job_log_archive_chunks_seq",
+      allocationSize = 50)
+  private long id;
+
+  private long jobId;
+
+  private int firstLine;
+
+  private int lineCount;
+
+  private byte[] content;
+}
@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One line of output written by a running job through {@code JobContext.log}.
+ *
+ * <p>Lines are append-only; the full log of a job is the lines for its id in lineNumber order.
+ * Ids come from a pooled sequence so that batches of lines can be inserted with JDBC batching.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+@Entity(name = "job_log_lines")
+public class JobLogLine {
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "job_log_lines_seq")
+  @SequenceGenerator(name = "job_log_lines_seq", sequenceName = "job_log_lines_seq", allocationSize = 50)
+  private long id;
+
+  private long jobId;
+
+  private int lineNumber;
+
+  @Column(columnDefinition = "TEXT")
+  private String message;
+}
@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * This is an error class for a custom RuntimeException in Java that is thrown when the body of a
+ * bulk request cannot be read at all, e.g. because it is not JSON or has too many rows. Errors in
+ * single rows are reported per row instead. It is reported as a 400 Bad Request.
+ */
+public class InvalidBulkRequestException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   *
+   * @param message what is wrong with the request
+   */
+  public InvalidBulkRequestException(String message) {
+    super(message);
+  }
+}
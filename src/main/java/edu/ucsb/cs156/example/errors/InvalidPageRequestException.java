@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * This is an error class for a custom RuntimeException in Java that is thrown when a request for a
+ * page of results has a sort key or cursor that cannot be used. It is reported as a 400 Bad
+ * Request.
+ */
+public class InvalidPageRequestException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   *
+   * @param message what is wrong with the request
+   */
+  public InvalidPageRequestException(String message) {
+    super(message);
+  }
+}
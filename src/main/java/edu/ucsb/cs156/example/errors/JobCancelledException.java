@@ -0,0 +1,16 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * This is an error class for a custom RuntimeException in Java that is thrown by
+ * {@code JobContext.checkCancelled()} when a job has been cancelled or has timed out.
+ */
+public class JobCancelledException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   *
+   * @param reason why the job was stopped
+   */
+  public JobCancelledException(String reason) {
+    super(reason);
+  }
+}
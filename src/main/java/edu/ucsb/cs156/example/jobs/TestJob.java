@@ -3,10 +3,14 @@ package edu.ucsb.cs156.example.jobs;
 import edu.ucsb.cs156.example.services.jobs.JobContext;
 import edu.ucsb.cs156.example.services.jobs.JobContextConsumer;
 import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 @Builder
+@Getter
+@Jacksonized
 public class TestJob implements JobContextConsumer {
 
   private boolean fail;
@@ -18,10 +22,12 @@ public class TestJob implements JobContextConsumer {
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
     ctx.log("Hello World! from test job!");
+    ctx.progress(50);
     Thread.sleep(sleepMs);
     if (fail) {
       throw new Exception("Fail!");
     }
+    ctx.progress(100);
     ctx.log("Goodbye from test job!");
   }
 }
@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class for the outcome of a bulk request: how many rows were created, updated
+ * and deleted, or, when any row is in error, the errors (and nothing written).
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class BulkResult {
+  private int created;
+  private int updated;
+  private int deleted;
+  @Builder.Default private List<BulkRowError> errors = new ArrayList<>();
+}
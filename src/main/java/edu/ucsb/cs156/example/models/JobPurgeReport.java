@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that reports the outcome of deleting jobs in bulk: how many job rows were
+ * deleted, how many running jobs were left in place, and how long it took.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobPurgeReport {
+  private int deleted;
+  private long skipped;
+  private long millis;
+}
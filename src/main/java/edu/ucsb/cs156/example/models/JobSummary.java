@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.ZonedDateTime;
+
+/**
+ * A job as shown in the admin job list: everything except the log.
+ *
+ * This is a Spring Data projection, so queries returning it never read the (possibly very large)
+ * `log` column.
+ */
+public interface JobSummary {
+  Long getId();
+
+  Long getCreatedById();
+
+  ZonedDateTime getCreatedAt();
+
+  ZonedDateTime getUpdatedAt();
+
+  String getStatus();
+
+  String getJobType();
+
+  Integer getAttempts();
+
+  Integer getProgress();
+}
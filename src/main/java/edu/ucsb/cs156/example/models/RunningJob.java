@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.ZonedDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents a job that is still running, for the admin list of
+ * running jobs.
+ */
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class RunningJob {
+  private Long id;
+  private String jobType;
+  private Long createdById;
+  private ZonedDateTime createdAt;
+  private Integer attempts;
+  private Integer progress; // percent, null if the job has not reported any
+  private Long elapsedMs; // time since the job was created, null if that is unknown
+}
@@ -2,14 +2,24 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Articles;
 
-import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * The ArticlesRepository is a repository for Articles entities.
  */
 
 @Repository
-public interface ArticlesRepository extends CrudRepository<Articles, Long> {
+public interface ArticlesRepository
+    extends KeysetPagingRepository<Articles, Long>, SingleStatementWrites<Articles, Long> {
 
-}
\ No newline at end of file
+  @Modifying
+  @Transactional
+  @Query(
+      "UPDATE articles e SET e.title = :#{#values.title}, e.url = :#{#values.url},"
+          + " e.explanation = :#{#values.explanation}, e.email = :#{#values.email},"
+          + " e.dateAdded = :#{#values.dateAdded} WHERE e.id = :id")
+  int updateById(Long id, Articles values);
+}
@@ -2,14 +2,26 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.HelpRequest;
 
-import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * The HelpRequestRepository is a repository for HelpRequest entities.
  */
 
 @Repository
-public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long> {
-  
-}
\ No newline at end of file
+public interface HelpRequestRepository
+    extends KeysetPagingRepository<HelpRequest, Long>, SingleStatementWrites<HelpRequest, Long> {
+
+  @Modifying
+  @Transactional
+  @Query(
+      "UPDATE helprequests e SET e.requesterEmail = :#{#values.requesterEmail},"
+          + " e.teamId = :#{#values.teamId},"
+          + " e.tableOrBreakoutRoom = :#{#values.tableOrBreakoutRoom},"
+          + " e.requestTime = :#{#values.requestTime}, e.explanation = :#{#values.explanation},"
+          + " e.solved = :#{#values.solved} WHERE e.id = :id")
+  int updateById(Long id, HelpRequest values);
+}
@@ -0,0 +1,18 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.JobLogArchiveChunk;
+import java.util.List;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JobLogArchiveChunksRepository extends CrudRepository<JobLogArchiveChunk, Long> {
+  List<JobLogArchiveChunk> findAllByJobIdOrderByFirstLineAsc(long jobId);
+
+  /** The chunks of an archived log holding any of the lines {@code fromLine <= n < toLine}. */
+  @Query(
+      "SELECT c FROM job_log_archive_chunks c WHERE c.jobId = :jobId AND c.firstLine < :toLine"
+          + " AND c.firstLine + c.lineCount > :fromLine ORDER BY c.firstLine")
+  List<JobLogArchiveChunk> findOverlapping(long jobId, int fromLine, int toLine);
+}
@@ -0,0 +1,14 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.JobLogArchive;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JobLogArchivesRepository extends CrudRepository<JobLogArchive, Long> {
+  /** Number of lines in an archived log, without reading the compressed content. */
+  @Query("SELECT a.lineCount FROM job_log_archives a WHERE a.jobId = :jobId")
+  Optional<Integer> findLineCountByJobId(long jobId);
+}
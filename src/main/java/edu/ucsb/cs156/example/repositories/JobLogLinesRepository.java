@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface JobLogLinesRepository extends CrudRepository<JobLogLine, Long> {
+  List<JobLogLine> findAllByJobIdOrderByLineNumberAsc(long jobId);
+
+  List<JobLogLine> findAllByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+      long jobId, int fromLine, Pageable pageable);
+
+  int countByJobId(long jobId);
+
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM job_log_lines l WHERE l.jobId = :jobId")
+  int deleteByJobId(long jobId);
+}
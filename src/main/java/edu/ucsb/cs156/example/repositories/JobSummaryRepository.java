@@ -0,0 +1,35 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.models.JobSummary;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Reads pages of {@link JobSummary}. Part of {@link JobsRepository}, implemented with the Criteria
+ * API by {@link JobSummaryRepositoryImpl}.
+ */
+public interface JobSummaryRepository {
+
+  /**
+   * One page of jobs, newest first, without their logs. Every filter is optional (pass null to
+   * skip it), and only the filters that are given end up in the SQL, so the database can pick an
+   * index such as {@code JOBS_STATUS_ID_IDX} for that combination. Paging is by keyset: pass the
+   * smallest id of the previous page as {@code beforeId}.
+   *
+   * @param status only jobs with this status
+   * @param createdById only jobs started by this user
+   * @param createdAfter only jobs created at or after this time
+   * @param createdBefore only jobs created before this time
+   * @param beforeId only jobs with a smaller id
+   * @param pageable the page size; its sort is ignored
+   * @return the jobs, in descending order of id
+   */
+  List<JobSummary> findSummaries(
+      String status,
+      Long createdById,
+      ZonedDateTime createdAfter,
+      ZonedDateTime createdBefore,
+      Long beforeId,
+      Pageable pageable);
+}
@@ -1,8 +1,125 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Job;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface JobsRepository extends CrudRepository<Job, Long> {}
+public interface JobsRepository extends CrudRepository<Job, Long>, JobSummaryRepository {
+
+  /** Status of a job, without loading the rest of the row. */
+  @Query("SELECT j.status FROM jobs j WHERE j.id = :id")
+  Optional<String> findStatusById(long id);
+
+  /** Ids of running jobs whose lease has expired (or that never had one), oldest first. */
+  @Query(
+      "SELECT j.id FROM jobs j WHERE j.status = 'running'"
+          + " AND (j.leaseExpiresAt IS NULL OR j.leaseExpiresAt < :now) ORDER BY j.id")
+  List<Long> findIdsWithExpiredLease(ZonedDateTime now, Pageable pageable);
+
+  /**
+   * Takes over the lease of a running job if it is still expired. The condition is re-checked by
+   * the UPDATE itself, so when several instances race for the same job only one gets a row count
+   * of 1.
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      "UPDATE jobs j SET j.leaseOwner = :owner, j.leaseExpiresAt = :until,"
+          + " j.attempts = j.attempts + 1 WHERE j.id = :id AND j.status = 'running'"
+          + " AND (j.leaseExpiresAt IS NULL OR j.leaseExpiresAt < :now)")
+  int claimExpiredLease(long id, String owner, ZonedDateTime until, ZonedDateTime now);
+
+  /**
+   * Gives up a lease just claimed for a job that could not be started, so that a later recovery
+   * pass claims it again without counting this attempt.
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      "UPDATE jobs j SET j.leaseOwner = NULL, j.leaseExpiresAt = NULL, j.attempts = j.attempts - 1"
+          + " WHERE j.id = :id AND j.leaseOwner = :owner")
+  int releaseLease(long id, String owner);
+
+  /** Records the progress of a running job. */
+  @Modifying
+  @Transactional
+  @Query("UPDATE jobs j SET j.progress = :progress WHERE j.id = :id")
+  int updateProgress(long id, int progress);
+
+  /** Flags a job for cancellation; returns 0 if it is not running. */
+  @Modifying
+  @Transactional
+  @Query(
+      "UPDATE jobs j SET j.cancelRequested = true WHERE j.id = :id AND j.status = 'running'")
+  int requestCancel(long id);
+
+  /** Which of the given jobs an admin has asked to cancel. */
+  @Query("SELECT j.id FROM jobs j WHERE j.id IN :ids AND j.cancelRequested = true")
+  List<Long> findCancelRequestedIds(Collection<Long> ids);
+
+  /** Extends the leases this instance holds on the given jobs. */
+  @Modifying
+  @Transactional
+  @Query(
+      "UPDATE jobs j SET j.leaseExpiresAt = :until WHERE j.id IN :ids AND j.leaseOwner = :owner")
+  int renewLeases(Collection<Long> ids, String owner, ZonedDateTime until);
+
+  /** Which of the given jobs this instance still holds the lease of. */
+  @Query("SELECT j.id FROM jobs j WHERE j.id IN :ids AND j.leaseOwner = :owner")
+  List<Long> findIdsLeasedBy(Collection<Long> ids, String owner);
+
+  /**
+   * Records how a job ended and releases its lease, if {@code owner} still holds it. Returns 0,
+   * and writes nothing, if another instance has taken the job over in the meantime.
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      "UPDATE jobs j SET j.status = :status, j.progress = :progress, j.leaseOwner = NULL,"
+          + " j.leaseExpiresAt = NULL, j.updatedAt = :now WHERE j.id = :id AND j.leaseOwner = :owner")
+  int finish(long id, String owner, String status, Integer progress, ZonedDateTime now);
+
+  /** Ids of finished jobs created before the cutoff, oldest first. */
+  @Query(
+      "SELECT j.id FROM jobs j WHERE j.status <> 'running' AND j.createdAt < :cutoff"
+          + " ORDER BY j.id")
+  List<Long> findFinishedIdsCreatedBefore(ZonedDateTime cutoff, Pageable pageable);
+
+  /** Ids of finished jobs, newest first. */
+  @Query("SELECT j.id FROM jobs j WHERE j.status <> 'running' ORDER BY j.id DESC")
+  List<Long> findFinishedIdsNewestFirst(Pageable pageable);
+
+  /** Ids of finished jobs with an id of at most {@code maxId}, oldest first. */
+  @Query("SELECT j.id FROM jobs j WHERE j.status <> 'running' AND j.id <= :maxId ORDER BY j.id")
+  List<Long> findFinishedIdsUpTo(long maxId, Pageable pageable);
+
+  /**
+   * Deletes the given jobs in one statement. Their log lines and archives are removed by the
+   * database through ON DELETE CASCADE.
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM jobs j WHERE j.id IN :ids")
+  int deleteByIds(Collection<Long> ids);
+
+  /**
+   * Deletes every job that is not running in one statement, unlike {@code deleteAll()}, which
+   * loads and deletes each entity separately. Running jobs stay so that their executions can
+   * still record how they end.
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM jobs j WHERE j.status <> 'running'")
+  int deleteAllFinished();
+
+  long countByStatus(String status);
+}
@@ -0,0 +1,70 @@
+package edu.ucsb.cs156.example.repositories;
+
+import jakarta.persistence.QueryHint;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * The KeysetPagingRepository is the base of the repositories behind the CRUD controllers. Besides
+ * the usual CRUD methods it can sort and page, and scroll by keyset through {@link #findBy}, which
+ * is what {@code KeysetPager} uses for the {@code /page} endpoints. {@link #streamAllBy} reads the
+ * whole table row by row for the {@code /all} endpoints, and {@link #deleteRowById} deletes a row
+ * without loading it first.
+ *
+ * @param <T> the entity type
+ * @param <ID> the type of the entity's id
+ */
+@NoRepositoryBean
+public interface KeysetPagingRepository<T, ID>
+    extends CrudRepository<T, ID>, PagingAndSortingRepository<T, ID> {
+  /**
+   * Runs a query for the entities matching a specification, e.g. {@code findBy(spec, q ->
+   * q.sortBy(sort).limit(100).scroll(position))}. Only this method of {@code
+   * JpaSpecificationExecutor} is declared, so that its {@code delete(Specification)} does not make
+   * {@code delete} ambiguous.
+   *
+   * @param spec the condition entities must meet
+   * @param queryFunction defines the query and its result
+   * @return the result of the query
+   */
+  <S extends T, R> R findBy(
+      Specification<T> spec, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction);
+
+  /**
+   * Reads every entity as a stream, fetching rows from the database {@value #STREAM_FETCH_SIZE} at
+   * a time. The entities are read-only, so Hibernate keeps no snapshot of them. Must be called
+   * inside a transaction, and the stream closed when done.
+   *
+   * @return the entities, in no particular order
+   */
+  @Query("SELECT e FROM #{#entityName} e")
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  Stream<T> streamAllBy();
+
+  /**
+   * Deletes the entity with an id in a single DELETE statement, without loading it first.
+   *
+   * @param id the id of the entity
+   * @return the number of rows deleted: 1, or 0 if there is no such entity
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM #{#entityName} e WHERE id(e) = :id")
+  int deleteRowById(ID id);
+
+  /** The number of rows fetched per round trip by {@link #streamAllBy}. */
+  int STREAM_FETCH_SIZE = 500;
+}
@@ -3,13 +3,24 @@ package edu.ucsb.cs156.example.repositories;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 
 import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
-import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * The UCSBDiningCommonsRepository is a repository for MenuItemReview entities
  */
 @Repository
-public interface MenuItemsReviewRepository extends CrudRepository<MenuItemReview, Long> {
- 
-}
\ No newline at end of file
+public interface MenuItemsReviewRepository
+    extends KeysetPagingRepository<MenuItemReview, Long>,
+        SingleStatementWrites<MenuItemReview, Long> {
+
+  @Modifying
+  @Transactional
+  @Query(
+      "UPDATE menuitemreviews e SET e.itemId = :#{#values.itemId},"
+          + " e.reviewerEmail = :#{#values.reviewerEmail}, e.stars = :#{#values.stars},"
+          + " e.dateReviewed = :#{#values.dateReviewed}, e.comments = :#{#values.comments} WHERE e.id = :id")
+  int updateById(Long id, MenuItemReview values);
+}
@@ -2,14 +2,26 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 
-import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * The RecommendationRequestRepository is a repository for RecommendationRequest entities.
  */
 
 @Repository
-public interface RecommendationRequestRepository extends CrudRepository<RecommendationRequest, Long> {
+public interface RecommendationRequestRepository
+    extends KeysetPagingRepository<RecommendationRequest, Long>,
+        SingleStatementWrites<RecommendationRequest, Long> {
 
-}
\ No newline at end of file
+  @Modifying
+  @Transactional
+  @Query(
+      "UPDATE RecommendationRequest e SET e.requesterEmail = :#{#values.requesterEmail},"
+          + " e.professorEmail = :#{#values.professorEmail},"
+          + " e.explanation = :#{#values.explanation}, e.dateRequested = :#{#values.dateRequested},"
+          + " e.dateNeeded = :#{#values.dateNeeded}, e.done = :#{#values.done} WHERE e.id = :id")
+  int updateById(Long id, RecommendationRequest values);
+}
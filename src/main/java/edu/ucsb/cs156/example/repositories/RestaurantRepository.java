@@ -2,12 +2,22 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Restaurant;
 
-import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * The RestaurantRepository is a repository for Restaurant entities
  */
 @Repository
-public interface RestaurantRepository extends CrudRepository<Restaurant, Long> {
+public interface RestaurantRepository
+    extends KeysetPagingRepository<Restaurant, Long>, SingleStatementWrites<Restaurant, Long> {
+
+  @Modifying
+  @Transactional
+  @Query(
+      "UPDATE restaurants e SET e.name = :#{#values.name},"
+          + " e.description = :#{#values.description} WHERE e.id = :id")
+  int updateById(Long id, Restaurant values);
 }
@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.repositories;
+
+import org.springframework.data.repository.NoRepositoryBean;
+
+/**
+ * The SingleStatementWrites interface is for repositories whose entities the CRUD controllers
+ * update in place. Each repository declares the {@code @Query} of {@link #updateById}, since it has
+ * to name the entity's columns.
+ *
+ * @param <T> the entity type
+ * @param <ID> the type of the entity's id
+ */
+@NoRepositoryBean
+public interface SingleStatementWrites<T, ID> {
+  /**
+   * Replaces every column of the entity with an id in a single UPDATE statement, without loading
+   * it first.
+   *
+   * @param id the id of the entity
+   * @param values the new values; the id of this object is ignored
+   * @return the number of rows updated: 1, or 0 if there is no such entity
+   */
+  int updateById(ID id, T values);
+}
@@ -2,13 +2,25 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 
-import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * The UCSBDiningCommonsMenuItem is a repository for UCSBDiningCommonsMenuItem entities.
  */
 
 @Repository
-public interface UCSBDiningCommonsMenuItemRepository extends CrudRepository<UCSBDiningCommonsMenuItem, Long> {
+public interface UCSBDiningCommonsMenuItemRepository
+    extends KeysetPagingRepository<UCSBDiningCommonsMenuItem, Long>,
+        SingleStatementWrites<UCSBDiningCommonsMenuItem, Long> {
+
+  @Modifying
+  @Transactional
+  @Query(
+      "UPDATE ucsbdiningcommonsmenuitem e SET"
+          + " e.diningCommonsCode = :#{#values.diningCommonsCode}, e.name = :#{#values.name},"
+          + " e.station = :#{#values.station} WHERE e.id = :id")
+  int updateById(Long id, UCSBDiningCommonsMenuItem values);
 }
@@ -3,13 +3,26 @@ package edu.ucsb.cs156.example.repositories;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 
 import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
-import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * The UCSBDiningCommonsRepository is a repository for UCSBDiningCommons entities
  */
 @Repository
-public interface UCSBDiningCommonsRepository extends CrudRepository<UCSBDiningCommons, String> {
- 
-}
\ No newline at end of file
+public interface UCSBDiningCommonsRepository
+    extends KeysetPagingRepository<UCSBDiningCommons, String>,
+        SingleStatementWrites<UCSBDiningCommons, String> {
+
+  @Modifying
+  @Transactional
+  @Query(
+      "UPDATE ucsbdiningcommons e SET e.name = :#{#values.name},"
+          + " e.hasSackMeal = :#{#values.hasSackMeal},"
+          + " e.hasTakeOutMeal = :#{#values.hasTakeOutMeal},"
+          + " e.hasDiningCam = :#{#values.hasDiningCam}, e.latitude = :#{#values.latitude},"
+          + " e.longitude = :#{#values.longitude} WHERE e.code = :code")
+  int updateById(String code, UCSBDiningCommons values);
+}
@@ -2,14 +2,24 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 
-import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * The UCSBOrganizationRepository is a repository for UCSBOrganization entities.
  */
 
 @Repository
-public interface UCSBOrganizationRepository extends CrudRepository<UCSBOrganization, String> {
-  
-}
\ No newline at end of file
+public interface UCSBOrganizationRepository
+    extends KeysetPagingRepository<UCSBOrganization, String>,
+        SingleStatementWrites<UCSBOrganization, String> {
+
+  @Modifying
+  @Transactional
+  @Query(
+      "UPDATE ucsborganization e SET e.orgTranslationShort = :#{#values.orgTranslationShort},"
+          + " e.orgTranslation = :#{#values.orgTranslation}, e.inactive = :#{#values.inactive} WHERE e.orgCode = :orgCode")
+  int updateById(String orgCode, UCSBOrganization values);
+}
@@ -1,20 +1,39 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.User;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 /**
  * The UserRepository is a repository for User entities.
+ *
+ * Users are looked up by email and by Google sub, both of which have a unique
+ * index (USERS_EMAIL_IDX, USERS_GOOGLE_SUB_IDX).
  */
 @Repository
-public interface UserRepository extends CrudRepository<User, Long> {
+public interface UserRepository extends KeysetPagingRepository<User, Long> {
   /**
    * This method returns a User entity with a given email.
    * @param email email address of the user
    * @return Optional of User (empty if not found)
    */
   Optional<User> findByEmail(String email);
+
+  /**
+   * This method returns a User entity with a given Google subject id.
+   * @param googleSub the OAuth2 {@code sub} of the user
+   * @return Optional of User (empty if not found)
+   */
+  Optional<User> findByGoogleSub(String googleSub);
+
+  /**
+   * This method returns only the admin flag of the user with a given email,
+   * without loading the rest of the row.
+   * @param email email address of the user
+   * @return Optional of the admin flag (empty if not found)
+   */
+  @Query("SELECT u.admin FROM users u WHERE u.email = :email")
+  Optional<Boolean> findAdminByEmail(String email);
 }
@@ -0,0 +1,104 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Answers whether an email belongs to an admin, for the authorities mapper in {@code
+ * SecurityConfig} and for {@link UserProvisioningService}.
+ *
+ * <p>An email is an admin email if it is listed in {@code app.admin.emails}, which is held as an
+ * immutable hash set. A user is an admin if their email is an admin email or their row in {@code
+ * users} has the admin flag; flags read from the database are cached for {@code
+ * app.admin.cache.ttl-ms}. The email list can be replaced at runtime with {@link
+ * #setAdminEmails(Collection)}, which lasts until the next restart.
+ */
+@Slf4j
+@Component
+public class AdminDirectory {
+  private final UserRepository userRepository;
+  private final long ttlNanos;
+  private final int maxSize;
+
+  private volatile Set<String> adminEmails;
+  private final Map<String, CachedFlag> flags = new ConcurrentHashMap<>();
+
+  public AdminDirectory(
+      UserRepository userRepository,
+      @Value("${app.admin.emails}") List<String> adminEmails,
+      @Value("${app.admin.cache.ttl-ms:60000}") long ttlMs,
+      @Value("${app.admin.cache.max-size:10000}") int maxSize) {
+    this.userRepository = userRepository;
+    this.adminEmails = toSet(adminEmails);
+    this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+    this.maxSize = maxSize;
+  }
+
+  /** Whether the email is listed in {@code app.admin.emails}. */
+  public boolean isAdminEmail(String email) {
+    return email != null && adminEmails.contains(email);
+  }
+
+  /** Whether the email is an admin email or belongs to a user flagged as admin in the database. */
+  public boolean isAdmin(String email) {
+    if (isAdminEmail(email)) {
+      return true;
+    }
+    if (email == null) {
+      return false;
+    }
+    long now = System.nanoTime();
+    CachedFlag cached = flags.get(email);
+    if (cached != null && now - cached.storedNanos < ttlNanos) {
+      return cached.admin;
+    }
+    boolean admin = userRepository.findAdminByEmail(email).orElse(false);
+    if (ttlNanos > 0) {
+      if (flags.size() >= maxSize) {
+        flags.clear();
+      }
+      flags.put(email, new CachedFlag(admin, now));
+    }
+    return admin;
+  }
+
+  /** Forgets the cached database flag for an email; call it after changing a user's admin flag. */
+  public void evict(String email) {
+    flags.remove(email);
+  }
+
+  public Set<String> getAdminEmails() {
+    return adminEmails;
+  }
+
+  /**
+   * Replaces the admin email list. Users already promoted to admin keep their database flag.
+   *
+   * @param emails the new admin emails
+   */
+  public void setAdminEmails(Collection<String> emails) {
+    adminEmails = toSet(emails);
+    flags.clear();
+    log.info("Admin email list replaced ({} emails)", adminEmails.size());
+  }
+
+  private static Set<String> toSet(Collection<String> emails) {
+    return emails.stream()
+        .filter(Objects::nonNull)
+        .map(String::trim)
+        .filter(email -> !email.isEmpty())
+        .collect(Collectors.toUnmodifiableSet());
+  }
+
+  private record CachedFlag(boolean admin, long storedNanos) {}
+}
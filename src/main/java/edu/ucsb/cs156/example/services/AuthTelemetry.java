@@ -0,0 +1,78 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts authentication events instead of logging each one.
+ *
+ * <p>Logins and admin promotions are rare and each gets a one-line {@code key=value} log entry.
+ * Resolving the current user happens on every request, so it is only counted, with one in {@code
+ * app.auth.telemetry.log-every} resolutions logged as a sample of the running totals. Users are
+ * identified in logs by id, never by their OAuth2 attributes.
+ */
+@Slf4j
+@Component
+public class AuthTelemetry {
+  private final long logEvery;
+  private final AtomicLong resolutions = new AtomicLong();
+
+  private final Counter loginsCreated;
+  private final Counter loginsReturning;
+  private final Counter cacheHits;
+  private final Counter cacheMisses;
+  private final Counter adminPromotions;
+
+  public AuthTelemetry(
+      MeterRegistry meterRegistry, @Value("${app.auth.telemetry.log-every:1000}") long logEvery) {
+    this.logEvery = logEvery;
+    this.loginsCreated = logins(meterRegistry, "created");
+    this.loginsReturning = logins(meterRegistry, "returning");
+    this.cacheHits = userCache(meterRegistry, "hit");
+    this.cacheMisses = userCache(meterRegistry, "miss");
+    this.adminPromotions =
+        Counter.builder("auth.admin.promotions")
+            .description("Users promoted to admin because their email is in app.admin.emails")
+            .register(meterRegistry);
+  }
+
+  public void login(User user, boolean created) {
+    (created ? loginsCreated : loginsReturning).increment();
+    log.info("auth event=login userId={} created={} admin={}", user.getId(), created, user.getAdmin());
+  }
+
+  public void adminPromotion(User user) {
+    adminPromotions.increment();
+    log.info("auth event=admin_promotion userId={}", user.getId());
+  }
+
+  public void userResolved(boolean cacheHit) {
+    (cacheHit ? cacheHits : cacheMisses).increment();
+    if (logEvery > 0 && resolutions.incrementAndGet() % logEvery == 0) {
+      log.info(
+          "auth event=user_resolved sampled=1/{} cacheHits={} cacheMisses={}",
+          logEvery,
+          (long) cacheHits.count(),
+          (long) cacheMisses.count());
+    }
+  }
+
+  private static Counter logins(MeterRegistry meterRegistry, String outcome) {
+    return Counter.builder("auth.logins")
+        .description("Successful OAuth2 logins")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+
+  private static Counter userCache(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("auth.user.cache")
+        .description("Lookups of the current user in the user cache")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,224 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.errors.InvalidBulkRequestException;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.BulkRowError;
+import edu.ucsb.cs156.example.repositories.KeysetPagingRepository;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Creates, updates and deletes many entities in one transaction, for the {@code /bulk} endpoints
+ * of the CRUD controllers.
+ *
+ * <p>A request body is a JSON array or NDJSON (one JSON value per line), and is read before the
+ * transaction starts. Every row is checked first; if any row is in error, nothing is written and
+ * the errors are returned with the index of their row. Otherwise all rows are written together, so
+ * Hibernate sends them in JDBC batches of {@code hibernate.jdbc.batch_size}.
+ */
+@Service
+public class BulkWriter {
+  public static final int MAX_ROWS = 10_000;
+
+  @Autowired ObjectMapper mapper;
+
+  /**
+   * Reads the rows of a request body.
+   *
+   * @param body a JSON array or NDJSON
+   * @return the rows, as JSON trees
+   * @throws InvalidBulkRequestException if the body is not JSON or has more than {@link #MAX_ROWS}
+   *     rows
+   * @throws IOException if reading the body fails
+   */
+  public List<JsonNode> read(InputStream body) throws IOException {
+    List<JsonNode> rows = new ArrayList<>();
+    try (MappingIterator<JsonNode> values = mapper.readerFor(JsonNode.class).readValues(body)) {
+      while (values.hasNextValue()) {
+        if (rows.size() == MAX_ROWS) {
+          throw new InvalidBulkRequestException("At most %d rows per request".formatted(MAX_ROWS));
+        }
+        rows.add(values.nextValue());
+      }
+    } catch (JsonProcessingException e) {
+      throw new InvalidBulkRequestException("Invalid JSON: " + e.getOriginalMessage());
+    }
+    return rows;
+  }
+
+  /**
+   * Creates or updates one entity per row. A row without an id creates an entity; a row with an
+   * id updates that entity, which must exist if ids are generated, and is created otherwise.
+   *
+   * @param repository the entity's repository
+   * @param type the entity class
+   * @param rows the entities, as JSON trees
+   * @return the number of entities created and updated, or the errors
+   */
+  @Transactional
+  public <T, ID> BulkResult save(
+      KeysetPagingRepository<T, ID> repository, Class<T> type, List<JsonNode> rows) {
+    Field idField = idField(type);
+    boolean generatedId = idField.isAnnotationPresent(GeneratedValue.class);
+    List<BulkRowError> errors = new ArrayList<>();
+    List<T> entities = new ArrayList<>(rows.size());
+    Map<ID, Integer> rowsById = new LinkedHashMap<>();
+    for (int i = 0; i < rows.size(); i++) {
+      T entity;
+      try {
+        entity = mapper.treeToValue(rows.get(i), type);
+      } catch (JsonProcessingException | IllegalArgumentException e) {
+        errors.add(new BulkRowError(i, "Invalid %s: %s".formatted(type.getSimpleName(), message(e))));
+        continue;
+      }
+      if (entity == null) {
+        errors.add(new BulkRowError(i, "Invalid %s: null".formatted(type.getSimpleName())));
+        continue;
+      }
+      @SuppressWarnings("unchecked")
+      ID id = (ID) ReflectionUtils.getField(idField, entity);
+      if (isUnset(id)) {
+        if (!generatedId) {
+          errors.add(new BulkRowError(i, idField.getName() + " is required"));
+          continue;
+        }
+      } else if (rowsById.putIfAbsent(id, i) != null) {
+        errors.add(new BulkRowError(i, "Duplicate %s %s".formatted(idField.getName(), id)));
+        continue;
+      }
+      entities.add(entity);
+    }
+
+    Set<Object> existing = existingIds(repository, idField, rowsById.keySet());
+    if (generatedId) {
+      rowsById.forEach(
+          (id, i) -> {
+            if (!existing.contains(id)) {
+              errors.add(new BulkRowError(i, notFound(type, id)));
+            }
+          });
+    }
+    if (!errors.isEmpty()) {
+      return failed(errors);
+    }
+
+    repository.saveAll(entities);
+    return BulkResult.builder()
+        .created(entities.size() - existing.size())
+        .updated(existing.size())
+        .build();
+  }
+
+  /**
+   * Deletes one entity per row. A row is either an id or an object with the id property.
+   *
+   * @param repository the entity's repository
+   * @param type the entity class
+   * @param rows the ids, as JSON trees
+   * @return the number of entities deleted, or the errors
+   */
+  @Transactional
+  public <T, ID> BulkResult delete(
+      KeysetPagingRepository<T, ID> repository, Class<T> type, List<JsonNode> rows) {
+    Field idField = idField(type);
+    Class<?> idType = ClassUtils.resolvePrimitiveIfNecessary(idField.getType());
+    List<BulkRowError> errors = new ArrayList<>();
+    Map<ID, Integer> rowsById = new LinkedHashMap<>();
+    for (int i = 0; i < rows.size(); i++) {
+      JsonNode row = rows.get(i);
+      JsonNode value = row.isObject() ? row.path(idField.getName()) : row;
+      ID id;
+      try {
+        @SuppressWarnings("unchecked")
+        ID converted = value.isValueNode() ? (ID) mapper.treeToValue(value, idType) : null;
+        id = converted;
+      } catch (JsonProcessingException | IllegalArgumentException e) {
+        id = null;
+      }
+      if (isUnset(id)) {
+        errors.add(new BulkRowError(i, "Invalid %s %s".formatted(idField.getName(), row)));
+      } else if (rowsById.putIfAbsent(id, i) != null) {
+        errors.add(new BulkRowError(i, "Duplicate %s %s".formatted(idField.getName(), id)));
+      }
+    }
+
+    List<T> found = new ArrayList<>();
+    repository.findAllById(rowsById.keySet()).forEach(found::add);
+    Set<Object> foundIds =
+        found.stream().map(e -> ReflectionUtils.getField(idField, e)).collect(Collectors.toSet());
+    rowsById.forEach(
+        (id, i) -> {
+          if (!foundIds.contains(id)) {
+            errors.add(new BulkRowError(i, notFound(type, id)));
+          }
+        });
+    if (!errors.isEmpty()) {
+      return failed(errors);
+    }
+
+    repository.deleteAll(found);
+    return BulkResult.builder().deleted(found.size()).build();
+  }
+
+  private static <T, ID> Set<Object> existingIds(
+      KeysetPagingRepository<T, ID> repository, Field idField, Set<ID> ids) {
+    if (ids.isEmpty()) {
+      return Set.of();
+    }
+    return StreamSupport.stream(repository.findAllById(ids).spliterator(), false)
+        .map(e -> ReflectionUtils.getField(idField, e))
+        .collect(Collectors.toSet());
+  }
+
+  private static BulkResult failed(List<BulkRowError> errors) {
+    errors.sort(Comparator.comparingInt(BulkRowError::getIndex));
+    return BulkResult.builder().errors(errors).build();
+  }
+
+  private static String notFound(Class<?> type, Object id) {
+    return "%s with id %s not found".formatted(type.getSimpleName(), id);
+  }
+
+  private static String message(Exception e) {
+    return e instanceof JsonProcessingException j ? j.getOriginalMessage() : e.getMessage();
+  }
+
+  /** True for a missing id: null, blank, or the 0 of a primitive id that has not been assigned. */
+  private static boolean isUnset(Object id) {
+    return id == null
+        || (id instanceof Number n && n.longValue() == 0)
+        || (id instanceof String s && s.isBlank());
+  }
+
+  private static Field idField(Class<?> type) {
+    for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        if (field.isAnnotationPresent(Id.class)) {
+          ReflectionUtils.makeAccessible(field);
+          return field;
+        }
+      }
+    }
+    throw new IllegalArgumentException(type.getName() + " has no @Id field");
+  }
+}
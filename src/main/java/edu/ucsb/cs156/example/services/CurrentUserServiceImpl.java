@@ -2,16 +2,11 @@ package edu.ucsb.cs156.example.services;
 
 import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.models.CurrentUser;
-import edu.ucsb.cs156.example.repositories.UserRepository;
-import lombok.extern.slf4j.Slf4j;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -27,37 +22,39 @@ import org.springframework.stereotype.Service;
  * This is the version of the service used in production.
  */
 
-@Slf4j
 @Service("currentUser")
 @Primary
 public class CurrentUserServiceImpl extends CurrentUserService {
   @Autowired
-  private UserRepository userRepository;
+  GrantedAuthoritiesService grantedAuthoritiesService;
 
   @Autowired
-  GrantedAuthoritiesService grantedAuthoritiesService;
+  UserCache userCache;
 
-  @Value("${app.admin.emails}")
-  final private List<String> adminEmails = new ArrayList<String>();
+  @Autowired
+  UserProvisioningService userProvisioningService;
+
+  @Autowired
+  AuthTelemetry authTelemetry;
 
   /**
    * This method returns the current user as a User object.
    * @return the current user
    */
   public CurrentUser getCurrentUser() {
-    CurrentUser cu = CurrentUser.builder()
+    return CurrentUser.builder()
       .user(this.getUser())
       .roles(this.getRoles())
       .build();
-    log.info("getCurrentUser returns {}",cu);
-    return cu;
   }
 
   /**
    * This method obtains the current user that is logged in with OAuth2, if any.
    * The parameters are automatically injected by Spring.
    * 
-   * This method also has a side effect of storing the user in the database if they are not already there.
+   * The users row is created or updated once per login by {@link UserProvisioningService};
+   * this method only reads it, from the {@link UserCache} when possible. A session that
+   * began before the row existed is provisioned here as a fallback.
    * 
    * @param securityContext the security context (provided by Spring)
    * @param authentication the authentication token (provided by Spring)
@@ -68,41 +65,20 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     OAuth2User oAuthUser = ((OAuth2AuthenticationToken) authentication).getPrincipal();
     String email = oAuthUser.getAttribute("email");
     String googleSub = oAuthUser.getAttribute("sub");
-    String pictureUrl = oAuthUser.getAttribute("picture");
-    String fullName = oAuthUser.getAttribute("name");
-    String givenName = oAuthUser.getAttribute("given_name");
-    String familyName = oAuthUser.getAttribute("family_name");
-    boolean emailVerified = oAuthUser.getAttribute("email_verified");
-    String locale = oAuthUser.getAttribute("locale");
-    String hostedDomain = oAuthUser.getAttribute("hd");
-
-    java.util.Map<java.lang.String,java.lang.Object> attrs = oAuthUser.getAttributes();
-    log.info("attrs={}",attrs);
 
-    Optional<User> ou = userRepository.findByEmail(email);
-    if (ou.isPresent()) {
-      User u = ou.get();
-      if (adminEmails.contains(email) && !u.getAdmin()) {
-        u.setAdmin(true);
-        userRepository.save(u);
-      }
-      return u;
+    String cacheKey = UserCache.keyFor(googleSub, email);
+    User cached = userCache.get(cacheKey);
+    authTelemetry.userResolved(cached != null);
+    if (cached != null) {
+      return cached;
     }
 
-    User u = User.builder()
-        .googleSub(googleSub)
-        .email(email)
-        .pictureUrl(pictureUrl)
-        .fullName(fullName)
-        .givenName(givenName)
-        .familyName(familyName)
-        .emailVerified(emailVerified)
-        .locale(locale)
-        .hostedDomain(hostedDomain)
-        .admin(adminEmails.contains(email))
-        .build();
-    userRepository.save(u);
-    return u;
+    Optional<User> ou = userProvisioningService.findUser(googleSub, email);
+    if (ou.isEmpty()) {
+      return userProvisioningService.provision(oAuthUser);
+    }
+    userCache.put(cacheKey, ou.get());
+    return ou.get();
   }
 
   /**
@@ -0,0 +1,63 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Writes a stream of entities as a JSON array, one element at a time, for the {@code /all}
+ * endpoints of the CRUD controllers.
+ *
+ * <p>The stream is read inside a read-only transaction, and each entity is detached once written,
+ * so neither the persistence context nor the response body ever holds more than a few rows: memory
+ * use stays flat however large the table is. The output is flushed only when Jackson's buffer
+ * fills, not after every row.
+ */
+@Service
+public class JsonArrayStreamer {
+
+  @Autowired ObjectMapper mapper;
+
+  @Autowired ObjectProvider<EntityManager> entityManager;
+
+  /**
+   * Writes every entity of a stream to {@code out} as a JSON array. {@code out} is not closed.
+   *
+   * @param rows opens the stream, e.g. {@code repository::streamAllBy}
+   * @param out where to write the array
+   * @return the number of entities written
+   * @throws IOException if writing fails
+   */
+  @Transactional(readOnly = true)
+  public <T> long write(Supplier<Stream<T>> rows, OutputStream out) throws IOException {
+    EntityManager em = entityManager.getIfAvailable();
+    ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    long count = 0;
+    try (Stream<T> stream = rows.get();
+        JsonGenerator generator =
+            mapper.getFactory().createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+      generator.writeStartArray();
+      for (Iterator<T> it = stream.iterator(); it.hasNext(); ) {
+        T row = it.next();
+        writer.writeValue(generator, row);
+        if (em != null) {
+          em.detach(row);
+        }
+        count++;
+      }
+      generator.writeEndArray();
+    }
+    return count;
+  }
+}
@@ -0,0 +1,156 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.errors.InvalidPageRequestException;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.repositories.KeysetPagingRepository;
+import jakarta.persistence.Id;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Reads a table one page at a time by keyset, for the {@code /page} endpoints of the CRUD
+ * controllers.
+ *
+ * <p>A page is sorted by the entity's id or by one of the sort keys the controller allows (always
+ * with the id as a tie-breaker), and starts after the row the cursor points at, so every page costs
+ * one index range scan however deep into the table it is. The cursor is the sort and the keys of
+ * the last row of the previous page, as base64url-encoded JSON; clients should treat it as opaque.
+ * Rows whose sort key is null are left out of pages sorted by that key.
+ */
+@Service
+public class KeysetPager {
+  public static final int MAX_PAGE_SIZE = 1000;
+
+  @Autowired ObjectMapper mapper;
+
+  private final Map<Class<?>, String> idProperties = new ConcurrentHashMap<>();
+
+  /** What a cursor holds: the sort it was made for and the sort keys of the last row. */
+  record Cursor(String sort, Map<String, Object> keys) {}
+
+  /**
+   * Returns one page of entities.
+   *
+   * @param repository the entity's repository
+   * @param type the entity class
+   * @param sortKeys the properties, other than the id, that the page may be sorted by
+   * @param sort a property, optionally followed by {@code ,asc} or {@code ,desc}
+   * @param cursor the cursor from the previous page, or null for the first page
+   * @param size the page size, clamped to 1..{@link #MAX_PAGE_SIZE}
+   * @return the page and the cursor of the next one
+   * @throws InvalidPageRequestException if the sort key is not allowed or the cursor is invalid
+   */
+  public <T> KeysetPage<T> page(
+      KeysetPagingRepository<T, ?> repository,
+      Class<T> type,
+      Set<String> sortKeys,
+      String sort,
+      String cursor,
+      int size) {
+    String idProperty = idProperty(type);
+    String[] parts = sort.split(",", 2);
+    String property = parts[0].trim();
+    if (!property.equals(idProperty) && !sortKeys.contains(property)) {
+      throw new InvalidPageRequestException(
+          "Cannot sort %s by %s".formatted(type.getSimpleName(), property));
+    }
+    Sort.Direction direction =
+        parts.length > 1
+            ? Sort.Direction.fromOptionalString(parts[1].trim())
+                .orElseThrow(() -> new InvalidPageRequestException("Unknown direction " + parts[1]))
+            : Sort.Direction.ASC;
+    String canonicalSort = property + "," + direction.name().toLowerCase();
+
+    Sort order = Sort.by(direction, property);
+    Specification<T> specification = (root, query, cb) -> cb.conjunction();
+    if (!property.equals(idProperty)) {
+      order = order.and(Sort.by(direction, idProperty));
+      specification = (root, query, cb) -> cb.isNotNull(root.get(property));
+    }
+    Sort finalOrder = order;
+    int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    ScrollPosition position =
+        cursor == null || cursor.isEmpty()
+            ? ScrollPosition.keyset()
+            : ScrollPosition.forward(decode(cursor, type, canonicalSort, order));
+
+    Window<T> window =
+        repository.findBy(specification, q -> q.sortBy(finalOrder).limit(limit).scroll(position));
+
+    List<T> items = window.getContent();
+    String nextCursor = null;
+    if (window.hasNext() && !items.isEmpty()) {
+      KeysetScrollPosition last = (KeysetScrollPosition) window.positionAt(items.size() - 1);
+      nextCursor = encode(new Cursor(canonicalSort, last.getKeys()));
+    }
+    return new KeysetPage<>(items, nextCursor);
+  }
+
+  String encode(Cursor cursor) {
+    try {
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(mapper.writeValueAsBytes(cursor));
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** The keys of a cursor, each converted to the type of its property. */
+  Map<String, Object> decode(String encoded, Class<?> type, String sort, Sort order) {
+    Cursor cursor;
+    try {
+      cursor = mapper.readValue(Base64.getUrlDecoder().decode(encoded), Cursor.class);
+    } catch (IOException | IllegalArgumentException e) {
+      throw new InvalidPageRequestException("Invalid cursor");
+    }
+    if (!sort.equals(cursor.sort()) || cursor.keys() == null) {
+      throw new InvalidPageRequestException("Cursor does not match sort " + sort);
+    }
+    Map<String, Object> keys = new LinkedHashMap<>();
+    for (Sort.Order o : order) {
+      Object value = cursor.keys().get(o.getProperty());
+      if (value == null) {
+        throw new InvalidPageRequestException("Cursor does not match sort " + sort);
+      }
+      Field field = ReflectionUtils.findField(type, o.getProperty());
+      try {
+        keys.put(
+            o.getProperty(),
+            mapper.convertValue(value, ClassUtils.resolvePrimitiveIfNecessary(field.getType())));
+      } catch (IllegalArgumentException e) {
+        throw new InvalidPageRequestException("Invalid cursor");
+      }
+    }
+    return keys;
+  }
+
+  String idProperty(Class<?> type) {
+    return idProperties.computeIfAbsent(
+        type,
+        t -> {
+          for (Class<?> c = t; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+              if (field.isAnnotationPresent(Id.class)) {
+                return field.getName();
+              }
+            }
+          }
+          throw new IllegalArgumentException(t.getName() + " has no @Id field");
+        });
+  }
+}
@@ -0,0 +1,197 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.stereotype.Service;
+
+/**
+ * Issues and checks the signed session cookie used when {@code app.session.stateless} is true.
+ *
+ * <p>In stateless mode nothing about a login is kept in the {@code HttpSession}. After the OAuth2
+ * login succeeds the principal's {@code sub}, email and roles are written to a cookie as {@code
+ * base64url(json).base64url(hmac-sha256)}, and each request is authenticated by checking that
+ * signature and the expiry in the payload, without a session or database lookup. Every instance
+ * sharing {@code app.session.token.secret} accepts the cookie, so no sticky sessions are needed.
+ * Roles are fixed when the token is issued and change at the next login.
+ */
+@Service
+public class SessionTokenService {
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  @Getter private final boolean enabled;
+  @Getter private final String cookieName;
+  private final Duration ttl;
+  private final SecretKeySpec key;
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  public SessionTokenService(
+      @Value("${app.session.stateless:false}") boolean enabled,
+      @Value("${app.session.token.secret:}") String secret,
+      @Value("${app.session.token.ttl-ms:28800000}") long ttlMs,
+      @Value("${app.session.token.cookie:SESSION_TOKEN}") String cookieName) {
+    if (enabled && secret.length() < 32) {
+      throw new IllegalStateException(
+          "app.session.token.secret must be at least 32 characters when app.session.stateless is true");
+    }
+    this.enabled = enabled;
+    this.cookieName = cookieName;
+    this.ttl = Duration.ofMillis(ttlMs);
+    this.key =
+        secret.isEmpty() ? null : new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+  }
+
+  /**
+   * Builds a token carrying the principal's {@code sub}, email and roles.
+   *
+   * @param authentication the OAuth2 login that has just succeeded
+   * @return the signed token
+   */
+  public String issue(OAuth2AuthenticationToken authentication) {
+    Map<String, Object> claims = new HashMap<>();
+    claims.put("sub", authentication.getPrincipal().getAttribute("sub"));
+    claims.put("email", authentication.getPrincipal().getAttribute("email"));
+    claims.put(
+        "roles",
+        authentication.getAuthorities().stream()
+            .map(GrantedAuthority::getAuthority)
+            .filter(authority -> authority.startsWith("ROLE_"))
+            .sorted()
+            .toList());
+    claims.put("reg", authentication.getAuthorizedClientRegistrationId());
+    claims.put("exp", Instant.now().plus(ttl).getEpochSecond());
+    try {
+      return sign(mapper.writeValueAsBytes(claims));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Could not write session token", e);
+    }
+  }
+
+  /**
+   * Checks a token's signature and expiry and rebuilds the authentication it carries.
+   *
+   * @param token the cookie value
+   * @return the authentication, or empty if the token is forged, malformed or expired
+   */
+  @SuppressWarnings("unchecked")
+  public Optional<OAuth2AuthenticationToken> verify(String token) {
+    Optional<byte[]> payload = unsign(token);
+    if (payload.isEmpty()) {
+      return Optional.empty();
+    }
+    Map<String, Object> claims;
+    try {
+      claims = mapper.readValue(payload.get(), Map.class);
+    } catch (IOException e) {
+      return Optional.empty();
+    }
+    if (!(claims.get("exp") instanceof Number exp)
+        || Instant.now().getEpochSecond() >= exp.longValue()
+        || !(claims.get("sub") instanceof String sub)
+        || !(claims.get("reg") instanceof String registrationId)) {
+      return Optional.empty();
+    }
+    List<GrantedAuthority> authorities =
+        ((List<String>) claims.getOrDefault("roles", List.of()))
+            .stream().map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role)).toList();
+    Map<String, Object> attributes = new HashMap<>();
+    attributes.put("sub", sub);
+    attributes.put("email", claims.get("email"));
+    DefaultOAuth2User principal = new DefaultOAuth2User(authorities, attributes, "sub");
+    return Optional.of(
+        new OAuth2AuthenticationToken(principal, authorities, registrationId));
+  }
+
+  /** Appends an HMAC-SHA256 signature to the payload. */
+  public String sign(byte[] payload) {
+    return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(mac(payload));
+  }
+
+  /** Returns the payload of a value produced by {@link #sign(byte[])}, if its signature holds. */
+  public Optional<byte[]> unsign(String value) {
+    if (key == null || value == null) {
+      return Optional.empty();
+    }
+    int dot = value.indexOf('.');
+    if (dot < 0) {
+      return Optional.empty();
+    }
+    try {
+      byte[] payload = DECODER.decode(value.substring(0, dot));
+      byte[] signature = DECODER.decode(value.substring(dot + 1));
+      return MessageDigest.isEqual(mac(payload), signature) ? Optional.of(payload) : Optional.empty();
+    } catch (IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+
+  /** Sets the session cookie for a newly issued token. */
+  public void writeCookie(HttpServletRequest request, HttpServletResponse response, String token) {
+    addCookie(request, response, cookieName, token, ttl);
+  }
+
+  /** Returns the value of a cookie sent with the request, if any. */
+  public static Optional<String> readCookie(HttpServletRequest request, String name) {
+    if (request.getCookies() == null) {
+      return Optional.empty();
+    }
+    for (Cookie cookie : request.getCookies()) {
+      if (cookie.getName().equals(name)) {
+        return Optional.of(cookie.getValue());
+      }
+    }
+    return Optional.empty();
+  }
+
+  /** Adds an HttpOnly, SameSite=Lax cookie; a zero max age deletes it. */
+  public static void addCookie(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      String name,
+      String value,
+      Duration maxAge) {
+    ResponseCookie cookie =
+        ResponseCookie.from(name, value)
+            .path("/")
+            .httpOnly(true)
+            .secure(request.isSecure())
+            .sameSite("Lax")
+            .maxAge(maxAge)
+            .build();
+    response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+  }
+
+  private byte[] mac(byte[] payload) {
+    try {
+      Mac mac = Mac.getInstance("HmacSHA256");
+      mac.init(key);
+      return mac.doFinal(payload);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("HmacSHA256 is not available", e);
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers the {@link User} row resolved for each logged-in principal, so that {@link
+ * CurrentUserServiceImpl} does not query the {@code users} table on every request.
+ *
+ * <p>Entries are keyed by the OAuth2 {@code sub} (or the email when there is none), expire {@code
+ * app.users.cache.ttl-ms} after they were stored, and the least recently used entry is dropped once
+ * the cache holds {@code app.users.cache.max-size} users. Anything that changes a user's admin flag
+ * must {@link #evict(User)} that user.
+ */
+@Component
+public class UserCache {
+  private final long ttlNanos;
+  private final int maxSize;
+
+  private final LinkedHashMap<String, Entry> entries;
+
+  public UserCache(
+      @Value("${app.users.cache.ttl-ms:300000}") long ttlMs,
+      @Value("${app.users.cache.max-size:10000}") int maxSize) {
+    this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+    this.maxSize = maxSize;
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > UserCache.this.maxSize;
+          }
+        };
+  }
+
+  /** Returns the cached user for a key, or null if there is none or it has expired. */
+  public synchronized User get(String key) {
+    Entry entry = entries.get(key);
+    if (entry == null) return null;
+    if (System.nanoTime() - entry.storedNanos >= ttlNanos) {
+      entries.remove(key);
+      return null;
+    }
+    return entry.user;
+  }
+
+  public synchronized void put(String key, User user) {
+    if (ttlNanos <= 0 || maxSize <= 0) return;
+    entries.put(key, new Entry(user, System.nanoTime()));
+  }
+
+  /** Drops every entry for this user, whichever key it was stored under. */
+  public synchronized void evict(User user) {
+    entries.values().removeIf(entry -> sameUser(entry.user, user));
+  }
+
+  public synchronized void evictAll() {
+    entries.clear();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /** The key a user is cached under: their Google {@code sub}, or their email without one. */
+  public static String keyFor(String googleSub, String email) {
+    return googleSub != null ? "sub:" + googleSub : "email:" + email;
+  }
+
+  private static boolean sameUser(User a, User b) {
+    if (a.getId() != 0 && a.getId() == b.getId()) return true;
+    return a.getEmail() != null && a.getEmail().equals(b.getEmail());
+  }
+
+  private record Entry(User user, long storedNanos) {}
+}
@@ -0,0 +1,99 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.stereotype.Service;
+
+/**
+ * Creates or updates the {@code users} row for someone who has just logged in with OAuth2.
+ *
+ * <p>{@link #provision(OAuth2User)} runs once per login, from the authentication success handler
+ * in {@code SecurityConfig}. It looks the user up by Google {@code sub} (or email) and then
+ * inserts or updates, so running it twice for the same login leaves a single row. The request
+ * path only calls {@link #findUser(String, String)}, which never writes.
+ *
+ * <p>The lookup and the save are not atomic. Two first logins racing each other both see no row
+ * and both insert; only the unique indexes on {@code EMAIL} and {@code GOOGLE_SUB} (changesets
+ * {@code Users-2} and {@code Users-3}) turn the second insert into a {@link
+ * DataIntegrityViolationException}, which is caught here by re-reading the winner's row. On a
+ * database without those indexes the race leaves duplicate rows.
+ */
+@Service
+public class UserProvisioningService {
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private UserCache userCache;
+
+  @Autowired
+  private AdminDirectory adminDirectory;
+
+  @Autowired
+  private AuthTelemetry authTelemetry;
+
+  /**
+   * Inserts the user if they are new, otherwise refreshes their profile from the OAuth2
+   * attributes and promotes them to admin if their email is in {@code app.admin.emails}.
+   *
+   * @param oAuthUser the principal returned by the OAuth2 provider
+   * @return the saved User
+   */
+  public User provision(OAuth2User oAuthUser) {
+    String email = oAuthUser.getAttribute("email");
+    String googleSub = oAuthUser.getAttribute("sub");
+
+    Optional<User> existing = findUser(googleSub, email);
+    User u = existing.orElseGet(() -> User.builder().build());
+    boolean promoted = adminDirectory.isAdminEmail(email) && !u.getAdmin();
+    u.setGoogleSub(googleSub);
+    u.setEmail(email);
+    u.setPictureUrl(oAuthUser.getAttribute("picture"));
+    u.setFullName(oAuthUser.getAttribute("name"));
+    u.setGivenName(oAuthUser.getAttribute("given_name"));
+    u.setFamilyName(oAuthUser.getAttribute("family_name"));
+    u.setEmailVerified(Boolean.TRUE.equals(oAuthUser.getAttribute("email_verified")));
+    u.setLocale(oAuthUser.getAttribute("locale"));
+    u.setHostedDomain(oAuthUser.getAttribute("hd"));
+    u.setAdmin(u.getAdmin() || promoted);
+
+    try {
+      userRepository.save(u);
+    } catch (DataIntegrityViolationException e) {
+      // a concurrent login inserted the same user first and the unique index rejected ours;
+      // theirs is as good as ours
+      u = findUser(googleSub, email).orElseThrow(() -> e);
+    }
+
+    if (promoted) {
+      userCache.evict(u);
+      adminDirectory.evict(email);
+      authTelemetry.adminPromotion(u);
+    }
+    authTelemetry.login(u, existing.isEmpty());
+    userCache.put(UserCache.keyFor(googleSub, email), u);
+    return u;
+  }
+
+  /**
+   * Looks up an already provisioned user by Google {@code sub}, falling back to the email for rows
+   * saved before the {@code sub} was recorded.
+   *
+   * @param googleSub the OAuth2 {@code sub} attribute (may be null)
+   * @param email the OAuth2 {@code email} attribute
+   * @return Optional of User (empty if the user has never been provisioned)
+   */
+  public Optional<User> findUser(String googleSub, String email) {
+    if (googleSub != null) {
+      Optional<User> bySub = userRepository.findByGoogleSub(googleSub);
+      if (bySub.isPresent()) {
+        return bySub;
+      }
+    }
+    return userRepository.findByEmail(email);
+  }
+}
@@ -1,20 +1,71 @@
 package edu.ucsb.cs156.example.services.jobs;
 
 import edu.ucsb.cs156.example.entities.Job;
-import edu.ucsb.cs156.example.repositories.JobsRepository;
-import lombok.AllArgsConstructor;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.errors.JobCancelledException;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
-@AllArgsConstructor
+/**
+ * What a running job can see of itself: its log, its progress, and whether it has been asked to
+ * stop.
+ *
+ * <p>Cancellation is cooperative. When an admin cancels a job or it runs past its timeout,
+ * {@link #isCancelled()} becomes true and the worker thread is interrupted, which ends any
+ * {@code Thread.sleep} or blocking wait with an {@code InterruptedException}. Long loops should
+ * call {@link #checkCancelled()} between units of work.
+ */
 @Slf4j
 public class JobContext {
-  private JobsRepository jobsRepository;
-  private Job job;
+  private final JobLogBuffer jobLogBuffer;
+  @Getter private final Job job;
+  @Getter private int lineCount;
+  @Getter private volatile Integer progress;
+  @Getter private volatile String cancelReason;
 
+  public JobContext(JobLogBuffer jobLogBuffer, Job job, int lineCount) {
+    this.jobLogBuffer = jobLogBuffer;
+    this.job = job;
+    this.lineCount = lineCount;
+  }
+
+  public JobContext(JobLogBuffer jobLogBuffer, Job job) {
+    this(jobLogBuffer, job, 0);
+  }
+
+  /**
+   * Appends a message to the job's log. A message containing newlines is stored as several
+   * lines, so that line numbers always match the lines of the assembled log text.
+   */
   public void log(String message) {
-    log.info("Job %s: %s".formatted(job.getId(), message));
-    String previousLog = job.getLog() == null ? "" : (job.getLog() + "\n");
-    job.setLog(previousLog + message);
-    if (jobsRepository != null) jobsRepository.save(job);
+    log.debug("Job {}: {}", job.getId(), message);
+    for (String text : String.valueOf(message).split("\n", -1)) {
+      JobLogLine line =
+          JobLogLine.builder().jobId(job.getId()).lineNumber(lineCount++).message(text).build();
+      if (jobLogBuffer != null) jobLogBuffer.append(line);
+    }
+  }
+
+  /** Reports how far the job has got, as a percentage from 0 to 100. */
+  public void progress(int percent) {
+    progress = Math.max(0, Math.min(100, percent));
+  }
+
+  /** Whether the job has been asked to stop. */
+  public boolean isCancelled() {
+    return cancelReason != null;
+  }
+
+  /** Throws {@link JobCancelledException} if the job has been asked to stop. */
+  public void checkCancelled() {
+    if (isCancelled()) {
+      throw new JobCancelledException(cancelReason);
+    }
+  }
+
+  void cancel(String reason) {
+    if (cancelReason == null) {
+      cancelReason = reason;
+    }
   }
 }
@@ -0,0 +1,234 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.JobLogArchive;
+import edu.ucsb.cs156.example.entities.JobLogArchiveChunk;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogArchiveChunksRepository;
+import edu.ucsb.cs156.example.repositories.JobLogArchivesRepository;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Moves the log of a finished job from its {@link JobLogLine}s into a compressed {@link
+ * JobLogArchive}, and reads it back.
+ *
+ * <p>The log is compressed in {@link JobLogArchiveChunk}s of {@link #CHUNK_LINES} lines, with one
+ * deflate stream flushed at every chunk boundary. Reading a few lines only inflates the chunks
+ * that hold them, while the chunks together, between a gzip header and trailer, are a gzip of
+ * exactly the text {@code GET /api/jobs/logs/{id}} returns. That can be sent to clients as-is
+ * with {@code Content-Encoding: gzip}.
+ */
+@Slf4j
+@Component
+public class JobLogArchiver {
+  /** Lines per chunk. A slice read inflates at most this many lines more than it returns. */
+  public static final int CHUNK_LINES = 1000;
+
+  // gzip member header: deflate, no flags, no modification time, unknown OS
+  private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+  // an empty final block with fixed Huffman codes, which ends the deflate stream
+  private static final byte[] FINAL_BLOCK = {3, 0};
+
+  @Autowired private JobLogLinesRepository jobLogLinesRepository;
+
+  @Autowired private JobLogArchivesRepository jobLogArchivesRepository;
+
+  @Autowired private JobLogArchiveChunksRepository jobLogArchiveChunksRepository;
+
+  /** Compresses the lines of a job into an archive and deletes them, in one transaction. */
+  @Transactional
+  public void archive(long jobId) {
+    List<JobLogLine> lines = jobLogLinesRepository.findAllByJobIdOrderByLineNumberAsc(jobId);
+    if (lines.isEmpty()) return;
+
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    CRC32 crc32 = new CRC32();
+    long size = 0;
+    long compressed = 0;
+    List<JobLogArchiveChunk> chunks = new ArrayList<>();
+    try {
+      for (int first = 0; first < lines.size(); first += CHUNK_LINES) {
+        List<JobLogLine> chunkLines =
+            lines.subList(first, Math.min(first + CHUNK_LINES, lines.size()));
+        // every line but the first of the log starts with the newline that separates it
+        String text =
+            chunkLines.stream()
+                .map(JobLogLine::getMessage)
+                .collect(Collectors.joining("\n", first == 0 ? "" : "\n", ""));
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        crc32.update(bytes);
+        size += bytes.length;
+        byte[] content = deflate(deflater, bytes);
+        compressed += content.length;
+        chunks.add(
+            JobLogArchiveChunk.builder()
+                .jobId(jobId)
+                .firstLine(first)
+                .lineCount(chunkLines.size())
+                .content(content)
+                .build());
+      }
+    } finally {
+      deflater.end();
+    }
+
+    jobLogArchivesRepository.save(
+        JobLogArchive.builder()
+            .jobId(jobId)
+            .lineCount(lines.size())
+            .crc32(crc32.getValue())
+            .uncompressedSize(size)
+            .build());
+    jobLogArchiveChunksRepository.saveAll(chunks);
+    jobLogLinesRepository.deleteByJobId(jobId);
+    log.info(
+        "Archived log of job {}: {} lines, {} bytes into {} chunks of {} bytes",
+        jobId,
+        lines.size(),
+        size,
+        chunks.size(),
+        compressed);
+  }
+
+  /** The gzip-compressed log of a job, if it has been archived. */
+  public Optional<byte[]> findCompressedLog(long jobId) {
+    return jobLogArchivesRepository
+        .findById(jobId)
+        .map(archive -> archive.getContent() != null ? archive.getContent() : gzip(archive));
+  }
+
+  /** The log of a job as text, if it has been archived. */
+  public Optional<String> findLog(long jobId) {
+    return findCompressedLog(jobId).map(JobLogArchiver::gunzip);
+  }
+
+  /** The number of lines in the log of a job, if it has been archived. */
+  public Optional<Integer> findLineCount(long jobId) {
+    return jobLogArchivesRepository.findLineCountByJobId(jobId);
+  }
+
+  /**
+   * At most {@code limit} lines of an archived log starting at line {@code fromLine} (0-based), if
+   * the log has been archived. Only the chunks holding those lines are read and inflated.
+   */
+  public Optional<List<String>> findLines(long jobId, int fromLine, int limit) {
+    Optional<Integer> lineCount = findLineCount(jobId);
+    if (lineCount.isEmpty()) {
+      return Optional.empty();
+    }
+    int toLine = (int) Math.min(lineCount.get(), (long) fromLine + Math.max(0, limit));
+    if (fromLine >= toLine) {
+      return Optional.of(List.of());
+    }
+
+    List<JobLogArchiveChunk> chunks =
+        jobLogArchiveChunksRepository.findOverlapping(jobId, fromLine, toLine);
+    if (chunks.isEmpty()) {
+      // an archive from before chunks existed
+      List<String> all = List.of(findLog(jobId).orElse("").split("\n", -1));
+      return Optional.of(all.subList(Math.min(fromLine, all.size()), Math.min(toLine, all.size())));
+    }
+
+    List<String> lines = new ArrayList<>(toLine - fromLine);
+    for (JobLogArchiveChunk chunk : chunks) {
+      String[] chunkLines = inflate(chunk.getContent()).split("\n", -1);
+      int skipped = chunk.getFirstLine() == 0 ? 0 : 1;
+      for (int i = 0; i < chunk.getLineCount(); i++) {
+        int lineNumber = chunk.getFirstLine() + i;
+        if (lineNumber >= fromLine && lineNumber < toLine) {
+          lines.add(chunkLines[skipped + i]);
+        }
+      }
+    }
+    return Optional.of(lines);
+  }
+
+  /** Joins the chunks of an archive into one gzip member. */
+  private byte[] gzip(JobLogArchive archive) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    bytes.writeBytes(GZIP_HEADER);
+    jobLogArchiveChunksRepository
+        .findAllByJobIdOrderByFirstLineAsc(archive.getJobId())
+        .forEach(chunk -> bytes.writeBytes(chunk.getContent()));
+    bytes.writeBytes(FINAL_BLOCK);
+    writeIntLE(bytes, archive.getCrc32());
+    writeIntLE(bytes, archive.getUncompressedSize());
+    return bytes.toByteArray();
+  }
+
+  private static void writeIntLE(ByteArrayOutputStream bytes, long value) {
+    for (int shift = 0; shift < 32; shift += 8) {
+      bytes.write((int) (value >>> shift) & 0xff);
+    }
+  }
+
+  /** Compresses the next part of a deflate stream and flushes it so it can be inflated alone. */
+  static byte[] deflate(Deflater deflater, byte[] input) {
+    deflater.setInput(input);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int n;
+    do {
+      n = deflater.deflate(buffer, 0, buffer.length, Deflater.FULL_FLUSH);
+      bytes.write(buffer, 0, n);
+    } while (n == buffer.length);
+    return bytes.toByteArray();
+  }
+
+  /** Inflates one chunk. */
+  static String inflate(byte[] content) {
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(content);
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      while (!inflater.finished()) {
+        int n = inflater.inflate(buffer);
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+        bytes.write(buffer, 0, n);
+      }
+      return bytes.toString(StandardCharsets.UTF_8);
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Corrupt job log archive chunk", e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  static byte[] gzip(String text) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+      gzip.write(text.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  static String gunzip(byte[] content) {
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(content))) {
+      return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
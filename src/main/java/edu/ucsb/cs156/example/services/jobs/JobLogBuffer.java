@@ -0,0 +1,181 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Buffers job log lines in memory and writes them to the database in batches.
+ *
+ * <p>Each job gets a bounded ring of pending lines. A job's ring is flushed when it holds {@code
+ * app.jobs.log.flush-batch-size} lines, when its oldest line has waited {@code
+ * app.jobs.log.flush-interval-ms}, and when {@link JobService} closes it at the end of the job. If
+ * a ring is full the oldest pending line is dropped and counted in {@code jobs.log.lines.dropped}.
+ */
+@Slf4j
+@Component
+public class JobLogBuffer {
+  private final JobLogLinesRepository jobLogLinesRepository;
+  private final int batchSize;
+  private final int capacity;
+  private final long maxAgeNanos;
+
+  private final Map<Long, PendingLines> pending = new ConcurrentHashMap<>();
+
+  private final Timer flushTimer;
+  private final DistributionSummary flushBatchSize;
+  private final Counter droppedLines;
+
+  public JobLogBuffer(
+      JobLogLinesRepository jobLogLinesRepository,
+      MeterRegistry meterRegistry,
+      @Value("${app.jobs.log.flush-batch-size:100}") int batchSize,
+      @Value("${app.jobs.log.buffer-capacity:10000}") int capacity,
+      @Value("${app.jobs.log.flush-interval-ms:250}") long flushIntervalMs) {
+    this.jobLogLinesRepository = jobLogLinesRepository;
+    this.batchSize = batchSize;
+    this.capacity = capacity;
+    this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+
+    this.flushTimer =
+        Timer.builder("jobs.log.flush")
+            .description("Time taken to write a batch of job log lines")
+            .register(meterRegistry);
+    this.flushBatchSize =
+        DistributionSummary.builder("jobs.log.flush.batch.size")
+            .description("Number of job log lines written per batch")
+            .register(meterRegistry);
+    this.droppedLines =
+        Counter.builder("jobs.log.lines.dropped")
+            .description("Job log lines discarded because a buffer was full or closed unflushed")
+            .register(meterRegistry);
+    Gauge.builder("jobs.log.lines.buffered", this, JobLogBuffer::getBufferedLineCount)
+        .description("Job log lines waiting to be written")
+        .register(meterRegistry);
+  }
+
+  /** Queues a line for writing, flushing the job's buffer if it has reached the batch size. */
+  public void append(JobLogLine line) {
+    PendingLines lines = pending.computeIfAbsent(line.getJobId(), id -> new PendingLines());
+    boolean full;
+    synchronized (lines) {
+      if (lines.queue.isEmpty()) lines.oldestNanos = System.nanoTime();
+      if (lines.queue.size() >= capacity) {
+        lines.queue.pollFirst();
+        droppedLines.increment();
+      }
+      lines.queue.addLast(line);
+      full = lines.queue.size() >= batchSize;
+    }
+    if (full) flush(line.getJobId());
+  }
+
+  /** Writes every pending line of the given job in one batch. */
+  public void flush(long jobId) {
+    PendingLines lines = pending.get(jobId);
+    if (lines != null) flush(lines);
+  }
+
+  /** Flushes the job's remaining lines and releases its buffer; called when the job finishes. */
+  public void close(long jobId) {
+    PendingLines lines = pending.remove(jobId);
+    if (lines == null) return;
+    flush(lines);
+    synchronized (lines) {
+      droppedLines.increment(lines.queue.size());
+      lines.queue.clear();
+    }
+  }
+
+  /** Flushes every buffer whose oldest line has waited longer than the flush interval. */
+  @Scheduled(fixedDelayString = "${app.jobs.log.flush-interval-ms:250}")
+  public void flushAged() {
+    long now = System.nanoTime();
+    pending.forEach(
+        (jobId, lines) -> {
+          boolean aged;
+          synchronized (lines) {
+            aged = !lines.queue.isEmpty() && now - lines.oldestNanos >= maxAgeNanos;
+          }
+          if (aged) flush(lines);
+        });
+  }
+
+  public int getBufferedLineCount() {
+    int count = 0;
+    for (PendingLines lines : pending.values()) {
+      synchronized (lines) {
+        count += lines.queue.size();
+      }
+    }
+    return count;
+  }
+
+  private void flush(PendingLines lines) {
+    // flushLock keeps batches for one job in order without blocking appends during the write
+    synchronized (lines.flushLock) {
+      List<JobLogLine> batch;
+      synchronized (lines) {
+        if (lines.queue.isEmpty()) return;
+        batch = new ArrayList<>(lines.queue);
+        lines.queue.clear();
+      }
+      long start = System.nanoTime();
+      try {
+        jobLogLinesRepository.saveAll(batch);
+      } catch (RuntimeException e) {
+        log.warn("Failed to write {} job log lines, will retry", batch.size(), e);
+        requeue(lines, batch);
+        return;
+      } finally {
+        flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+      flushBatchSize.record(batch.size());
+    }
+  }
+
+  private void requeue(PendingLines lines, List<JobLogLine> batch) {
+    synchronized (lines) {
+      for (int i = batch.size() - 1; i >= 0; i--) {
+        if (lines.queue.size() >= capacity) {
+          droppedLines.increment(i + 1);
+          break;
+        }
+        lines.queue.addFirst(unsaved(batch.get(i)));
+      }
+      lines.oldestNanos = System.nanoTime();
+    }
+  }
+
+  /**
+   * The failed write has already given each line an id from the sequence, which would make the
+   * retry merge rows that were never inserted; a copy without the id is inserted afresh.
+   */
+  private static JobLogLine unsaved(JobLogLine line) {
+    return JobLogLine.builder()
+        .jobId(line.getJobId())
+        .lineNumber(line.getLineNumber())
+        .message(line.getMessage())
+        .build();
+  }
+
+  private static class PendingLines {
+    private final ArrayDeque<JobLogLine> queue = new ArrayDeque<>();
+    private final Object flushLock = new Object();
+    private long oldestNanos;
+  }
+}
@@ -0,0 +1,103 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes new job log lines to server-sent-event subscribers.
+ *
+ * <p>Each subscription remembers the next line number it needs. On every tick only lines at or
+ * after that number are read, so a client watching a long job receives each line once instead of
+ * re-downloading the whole log. Lines are read through {@link JobService}, so a log that is
+ * archived while a client is watching is still sent in full. Each event's id is its line number, so a reconnecting client can
+ * resume with {@code Last-Event-ID}. When the job has finished and every line has been sent, an
+ * {@code end} event carrying the final status closes the stream.
+ */
+@Slf4j
+@Component
+public class JobLogStreamer {
+  private static final int LINES_PER_TICK = 500;
+
+  @Autowired private JobService jobService;
+
+  @Autowired private JobsRepository jobsRepository;
+
+  @Value("${app.jobs.log.stream-timeout-ms:1800000}")
+  private long timeoutMs;
+
+  private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+  public SseEmitter stream(long jobId, int fromLine) {
+    SseEmitter emitter = new SseEmitter(timeoutMs);
+    Subscription subscription = new Subscription(jobId, fromLine, emitter);
+    subscriptions.add(subscription);
+    emitter.onCompletion(() -> subscriptions.remove(subscription));
+    emitter.onTimeout(() -> close(subscription));
+    emitter.onError(e -> subscriptions.remove(subscription));
+    return emitter;
+  }
+
+  public int getSubscriberCount() {
+    return subscriptions.size();
+  }
+
+  @Scheduled(fixedDelayString = "${app.jobs.log.stream-interval-ms:250}")
+  public void pushNewLines() {
+    subscriptions.forEach(this::push);
+  }
+
+  private void push(Subscription subscription) {
+    synchronized (subscription) {
+      if (subscription.closed) return;
+      try {
+        // read the status first: final lines are flushed before a finished status is saved
+        String status = jobsRepository.findStatusById(subscription.jobId).orElse("deleted");
+        List<String> lines =
+            jobService.getJobLogLines(subscription.jobId, subscription.nextLine, LINES_PER_TICK);
+        for (String line : lines) {
+          subscription.emitter.send(
+              SseEmitter.event()
+                  .id(Integer.toString(subscription.nextLine))
+                  .name("line")
+                  .data(line));
+          subscription.nextLine++;
+        }
+        if (lines.isEmpty() && !"running".equals(status)) {
+          subscription.emitter.send(SseEmitter.event().name("end").data(status));
+          close(subscription);
+        }
+      } catch (IOException | IllegalStateException e) {
+        log.debug("Job log stream for job {} closed by client", subscription.jobId);
+        close(subscription);
+      }
+    }
+  }
+
+  private void close(Subscription subscription) {
+    subscription.closed = true;
+    subscriptions.remove(subscription);
+    subscription.emitter.complete();
+  }
+
+  private static class Subscription {
+    private final long jobId;
+    private final SseEmitter emitter;
+    private int nextLine;
+    private boolean closed;
+
+    private Subscription(long jobId, int nextLine, SseEmitter emitter) {
+      this.jobId = jobId;
+      this.nextLine = nextLine;
+      this.emitter = emitter;
+    }
+  }
+}
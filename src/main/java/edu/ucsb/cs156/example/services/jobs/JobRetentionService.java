@@ -0,0 +1,111 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.models.JobPurgeReport;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Deletes old jobs in bulk.
+ *
+ * <p>On a schedule, finished jobs older than {@code max-age-days} are purged, and then all but the
+ * newest {@code max-count} finished jobs. Running jobs are never purged. Rows are removed with
+ * set-based {@code DELETE ... WHERE id IN (...)} statements of {@code batch-size} ids, each in its
+ * own short transaction; log lines and log archives go with their job through ON DELETE CASCADE.
+ */
+@Slf4j
+@Service
+public class JobRetentionService {
+  private final JobsRepository jobsRepository;
+  private final int maxAgeDays;
+  private final int maxCount;
+  private final int batchSize;
+
+  private final Timer purgeTimer;
+  private final Counter purgedJobs;
+
+  public JobRetentionService(
+      JobsRepository jobsRepository,
+      MeterRegistry meterRegistry,
+      @Value("${app.jobs.retention.max-age-days:30}") int maxAgeDays,
+      @Value("${app.jobs.retention.max-count:10000}") int maxCount,
+      @Value("${app.jobs.retention.batch-size:1000}") int batchSize) {
+    this.jobsRepository = jobsRepository;
+    this.maxAgeDays = maxAgeDays;
+    this.maxCount = maxCount;
+    this.batchSize = batchSize;
+
+    this.purgeTimer =
+        Timer.builder("jobs.purge")
+            .description("Time taken to delete jobs in bulk")
+            .register(meterRegistry);
+    this.purgedJobs =
+        Counter.builder("jobs.purged")
+            .description("Jobs deleted by retention or by deleting all jobs")
+            .register(meterRegistry);
+  }
+
+  @Scheduled(cron = "${app.jobs.retention.cron:0 30 3 * * *}")
+  public void purgeOnSchedule() {
+    purge();
+  }
+
+  /** Deletes the finished jobs that are past the configured age or count. */
+  public JobPurgeReport purge() {
+    long start = System.nanoTime();
+    int deleted = 0;
+    if (maxAgeDays > 0) {
+      ZonedDateTime cutoff = ZonedDateTime.now().minusDays(maxAgeDays);
+      deleted += deleteInBatches(page -> jobsRepository.findFinishedIdsCreatedBefore(cutoff, page));
+    }
+    if (maxCount > 0) {
+      // the newest finished job that is not kept; it and every older finished job go
+      List<Long> firstToDelete =
+          jobsRepository.findFinishedIdsNewestFirst(PageRequest.of(maxCount, 1));
+      if (!firstToDelete.isEmpty()) {
+        long maxId = firstToDelete.get(0);
+        deleted += deleteInBatches(page -> jobsRepository.findFinishedIdsUpTo(maxId, page));
+      }
+    }
+    return report("Purged", deleted, start);
+  }
+
+  /** Deletes every job that is not running with a single statement. */
+  public JobPurgeReport deleteAll() {
+    long start = System.nanoTime();
+    return report("Deleted all", jobsRepository.deleteAllFinished(), start);
+  }
+
+  private int deleteInBatches(Function<Pageable, List<Long>> nextBatch) {
+    int deleted = 0;
+    List<Long> ids;
+    do {
+      ids = nextBatch.apply(PageRequest.ofSize(batchSize));
+      if (!ids.isEmpty()) {
+        deleted += jobsRepository.deleteByIds(ids);
+      }
+    } while (ids.size() == batchSize);
+    return deleted;
+  }
+
+  private JobPurgeReport report(String action, int deleted, long start) {
+    long nanos = System.nanoTime() - start;
+    purgeTimer.record(nanos, TimeUnit.NANOSECONDS);
+    purgedJobs.increment(deleted);
+    long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+    long skipped = jobsRepository.countByStatus("running");
+    log.info("{} jobs: {} rows in {} ms, {} running jobs kept", action, deleted, millis, skipped);
+    return JobPurgeReport.builder().deleted(deleted).skipped(skipped).millis(millis).build();
+  }
+}
@@ -1,44 +1,346 @@
 package edu.ucsb.cs156.example.services.jobs;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.config.JobExecutorConfig;
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+/**
+ * Runs jobs in the background and keeps the jobs table usable as a durable queue.
+ *
+ * <p>A running job is leased by the instance executing it; the lease is renewed by a heartbeat
+ * while the job runs. If an instance dies, its leases expire and any instance may claim the job
+ * and run it again from its stored class name and parameters.
+ *
+ * <p>Jobs can also be cancelled by an admin or stopped when they pass their timeout; see {@link
+ * JobContext} for how a job notices. A watchdog enforces timeouts and saves reported progress.
+ */
+@Slf4j
 @Service
 public class JobService {
+  private static final int RECOVERY_BATCH_SIZE = 10;
+
+  // status of a job stopped here because another instance took over its lease; never saved
+  private static final String LEASE_LOST = "lease lost";
+
   @Autowired private JobsRepository jobsRepository;
 
+  @Autowired private JobLogLinesRepository jobLogLinesRepository;
+
+  @Autowired private JobLogBuffer jobLogBuffer;
+
+  @Autowired private JobLogArchiver jobLogArchiver;
+
   @Autowired private CurrentUserService currentUserService;
 
+  @Autowired private ObjectMapper mapper;
+
   @Lazy @Autowired private JobService self;
 
+  @Value("${app.jobs.lease.duration-ms:60000}")
+  private long leaseDurationMs;
+
+  @Value("${app.jobs.max-attempts:3}")
+  private int maxAttempts;
+
+  @Value("${app.jobs.timeout-ms:3600000}")
+  private long defaultTimeoutMs;
+
+  private final String instanceId = UUID.randomUUID().toString();
+
+  // jobs leased by this instance, from submission to the executor until they finish
+  private final Map<Long, Execution> executions = new ConcurrentHashMap<>();
+
+  /** Runs a job with the default timeout ({@code app.jobs.timeout-ms}, 0 for none). */
   public Job runAsJob(JobContextConsumer jobFunction) {
-    Job job = Job.builder().createdBy(currentUserService.getUser()).status("running").build();
+    Duration timeout = defaultTimeoutMs > 0 ? Duration.ofMillis(defaultTimeoutMs) : null;
+    return runAsJob(jobFunction, timeout);
+  }
+
+  /** Runs a job that is cancelled if it is still running after {@code timeout} (null for none). */
+  public Job runAsJob(JobContextConsumer jobFunction, Duration timeout) {
+    Job job =
+        Job.builder()
+            .createdBy(currentUserService.getUser())
+            .status("running")
+            .leaseOwner(instanceId)
+            .leaseExpiresAt(leaseExpiry())
+            .attempts(1)
+            .timeoutAt(timeout != null ? ZonedDateTime.now().plus(timeout) : null)
+            .build();
+    describe(job, jobFunction);
 
     jobsRepository.save(job);
-    self.runJobAsync(job, jobFunction);
+    try {
+      submit(job, jobFunction);
+    } catch (TaskRejectedException e) {
+      job.setStatus("rejected");
+      new JobContext(jobLogBuffer, job).log("Job rejected: the job executor queue is full");
+      finish(job);
+    }
 
     return job;
   }
 
-  @Async
+  private void submit(Job job, JobContextConsumer jobFunction) {
+    executions.put(job.getId(), new Execution(job));
+    try {
+      self.runJobAsync(job, jobFunction);
+    } catch (TaskRejectedException e) {
+      executions.remove(job.getId());
+      throw e;
+    }
+  }
+
+  @Async(JobExecutorConfig.JOB_EXECUTOR)
   public void runJobAsync(Job job, JobContextConsumer jobFunction) {
-    JobContext context = new JobContext(jobsRepository, job);
+    Execution execution = executions.computeIfAbsent(job.getId(), id -> new Execution(job));
+    int firstLine = job.getAttempts() > 1 ? jobLogLinesRepository.countByJobId(job.getId()) : 0;
+    JobContext context = new JobContext(jobLogBuffer, job, firstLine);
+    execution.start(context);
 
     try {
-      jobFunction.accept(context);
-    } catch (Exception e) {
-      job.setStatus("error");
-      context.log(e.getMessage());
+      try {
+        context.checkCancelled();
+        jobFunction.accept(context);
+        job.setStatus("complete");
+      } catch (Exception e) {
+        if (context.isCancelled()) {
+          job.setStatus(execution.stopStatus);
+          if (LEASE_LOST.equals(execution.stopStatus)) {
+            // the log now belongs to the instance that took the job over
+            log.warn("Job {} stopped: {}", job.getId(), context.getCancelReason());
+          } else {
+            context.log(context.getCancelReason());
+          }
+        } else {
+          job.setStatus("error");
+          context.log(e.getMessage());
+        }
+      }
+      execution.stop();
+      job.setProgress(context.getProgress());
+      finish(job);
+    } finally {
+      execution.stop();
+      executions.remove(job.getId());
+    }
+  }
+
+  /**
+   * Asks a running job to stop. The instance running it stops it at once if that is this one, or
+   * on its next lease heartbeat otherwise.
+   *
+   * @return false if the job is not running
+   */
+  public boolean cancel(long jobId) {
+    if (jobsRepository.requestCancel(jobId) == 0) {
+      return false;
+    }
+    Execution execution = executions.get(jobId);
+    if (execution != null) {
+      execution.cancel("cancelled", "Job cancelled by an administrator");
+    }
+    return true;
+  }
+
+  /**
+   * Extends the leases of the jobs running on this instance, and stops any of them that an admin
+   * has cancelled through another instance, or whose lease expired and was claimed by another
+   * instance (after a long pause, for example) so that the job is not run twice.
+   */
+  @Scheduled(fixedDelayString = "${app.jobs.lease.heartbeat-ms:15000}")
+  public void renewLeases() {
+    if (executions.isEmpty()) return;
+    List<Long> ids = List.copyOf(executions.keySet());
+    if (jobsRepository.renewLeases(ids, instanceId, leaseExpiry()) < ids.size()) {
+      Set<Long> held = Set.copyOf(jobsRepository.findIdsLeasedBy(ids, instanceId));
+      for (Long id : ids) {
+        Execution execution = executions.get(id);
+        if (!held.contains(id) && execution != null) {
+          execution.cancel(LEASE_LOST, "Job lease was taken over by another instance");
+        }
+      }
+    }
+    for (Long id : jobsRepository.findCancelRequestedIds(ids)) {
+      Execution execution = executions.get(id);
+      if (execution != null) {
+        execution.cancel("cancelled", "Job cancelled by an administrator");
+      }
+    }
+  }
+
+  /** Stops jobs that have passed their timeout and saves progress reported since the last pass. */
+  @Scheduled(fixedDelayString = "${app.jobs.watchdog-ms:1000}")
+  public void checkRunningJobs() {
+    ZonedDateTime now = ZonedDateTime.now();
+    for (Execution execution : executions.values()) {
+      Job job = execution.job;
+      if (job.getTimeoutAt() != null && now.isAfter(job.getTimeoutAt())) {
+        execution.cancel("timeout", "Job timed out at %s".formatted(job.getTimeoutAt()));
+      }
+      JobContext context = execution.context;
+      Integer progress = context != null ? context.getProgress() : null;
+      if (progress != null && !progress.equals(execution.savedProgress)) {
+        jobsRepository.updateProgress(job.getId(), progress);
+        execution.savedProgress = progress;
+      }
+    }
+  }
+
+  /** Claims running jobs whose lease has expired and runs them again on this instance. */
+  @Scheduled(
+      initialDelayString = "${app.jobs.lease.recovery-ms:30000}",
+      fixedDelayString = "${app.jobs.lease.recovery-ms:30000}")
+  public void recoverExpiredJobs() {
+    ZonedDateTime now = ZonedDateTime.now();
+    List<Long> ids =
+        jobsRepository.findIdsWithExpiredLease(now, PageRequest.of(0, RECOVERY_BATCH_SIZE));
+    for (Long id : ids) {
+      if (executions.containsKey(id)) continue;
+      if (jobsRepository.claimExpiredLease(id, instanceId, leaseExpiry(), now) == 1) {
+        jobsRepository.findById(id).ifPresent(this::resume);
+      }
+    }
+  }
+
+  private void resume(Job job) {
+    JobContextConsumer jobFunction = restore(job);
+    if (job.getCancelRequested() || jobFunction == null || job.getAttempts() > maxAttempts) {
+      int firstLine = jobLogLinesRepository.countByJobId(job.getId());
+      JobContext context = new JobContext(jobLogBuffer, job, firstLine);
+      if (job.getCancelRequested()) {
+        context.log("Job cancelled by an administrator");
+        job.setStatus("cancelled");
+      } else {
+        context.log(
+            "Job was interrupted and cannot be resumed (attempt %d)".formatted(job.getAttempts()));
+        job.setStatus("error");
+      }
+      finish(job);
       return;
     }
 
-    job.setStatus("complete");
-    jobsRepository.save(job);
+    log.info("Resuming job {} (attempt {})", job.getId(), job.getAttempts());
+    try {
+      submit(job, jobFunction);
+    } catch (TaskRejectedException e) {
+      // leave it for the next recovery pass, on this instance or another
+      job.setAttempts(job.getAttempts() - 1);
+      job.setLeaseOwner(null);
+      job.setLeaseExpiresAt(null);
+      jobsRepository.releaseLease(job.getId(), instanceId);
+    }
+  }
+
+  /**
+   * Writes how the job ended and releases its lease, then archives its log. If another instance
+   * has taken the lease over, the row is left to that instance untouched.
+   */
+  private void finish(Job job) {
+    jobLogBuffer.close(job.getId());
+    job.setLeaseOwner(null);
+    job.setLeaseExpiresAt(null);
+    if (jobsRepository.finish(
+            job.getId(), instanceId, job.getStatus(), job.getProgress(), ZonedDateTime.now())
+        == 0) {
+      log.warn("Job {} ended as {} after losing its lease; not saved", job.getId(), job.getStatus());
+      return;
+    }
+    try {
+      jobLogArchiver.archive(job.getId());
+    } catch (RuntimeException e) {
+      // the lines are still there; the log just stays uncompressed
+      log.warn("Could not archive the log of job {}", job.getId(), e);
+    }
+  }
+
+  /** A job leased by this instance, and the thread running it once it has started. */
+  private static class Execution {
+    private final Job job;
+    private volatile JobContext context;
+    private Thread thread;
+    private String stopStatus;
+    private String stopReason;
+    private Integer savedProgress;
+
+    private Execution(Job job) {
+      this.job = job;
+    }
+
+    private synchronized void start(JobContext context) {
+      this.context = context;
+      this.thread = Thread.currentThread();
+      if (stopReason != null) context.cancel(stopReason);
+    }
+
+    /** Asks the job to stop; the first reason given wins. */
+    private synchronized void cancel(String status, String reason) {
+      if (stopReason != null) return;
+      stopStatus = status;
+      stopReason = reason;
+      if (context != null) context.cancel(reason);
+      if (thread != null) thread.interrupt();
+    }
+
+    /** Called by the worker thread when the job is done; later cancels no longer interrupt it. */
+    private synchronized void stop() {
+      if (thread == Thread.currentThread()) {
+        thread = null;
+        // clear an interrupt sent by cancel() so it does not leak into the next job on this thread
+        Thread.interrupted();
+      }
+    }
+  }
+
+  private ZonedDateTime leaseExpiry() {
+    return ZonedDateTime.now().plusNanos(leaseDurationMs * 1_000_000);
+  }
+
+  /** Records how to rebuild the job function; lambdas and anonymous classes cannot be rebuilt. */
+  private void describe(Job job, JobContextConsumer jobFunction) {
+    Class<?> type = jobFunction.getClass();
+    if (type.isSynthetic() || type.isHidden() || type.isAnonymousClass()) return;
+    try {
+      job.setParams(mapper.writeValueAsString(jobFunction));
+      job.setJobType(type.getName());
+    } catch (JsonProcessingException e) {
+      log.warn("Job function {} cannot be serialized; it will not be resumable", type, e);
+    }
+  }
+
+  private JobContextConsumer restore(Job job) {
+    if (job.getJobType() == null) return null;
+    try {
+      Class<?> type = Class.forName(job.getJobType());
+      if (!JobContextConsumer.class.isAssignableFrom(type)) return null;
+      return (JobContextConsumer) mapper.readValue(job.getParams(), type);
+    } catch (ClassNotFoundException | JsonProcessingException e) {
+      log.warn("Cannot rebuild job {} of type {}", job.getId(), job.getJobType(), e);
+      return null;
+    }
   }
 
   public String getJobLogs(Long jobId) {
@@ -47,7 +349,70 @@ public class JobService {
             .findById(jobId)
             .orElseThrow(() -> new IllegalArgumentException("Job not found"));
 
-    String log = job.getLog();
-    return log != null ? log : "";
+    return getJobLogs(job);
+  }
+
+  /**
+   * Reassembles the log of a job from its log lines. Finished jobs have their log in a
+   * compressed {@link JobLogArchiver archive} instead, and jobs written before log lines existed
+   * in the legacy {@code log} column. Lines still buffered in {@link JobLogBuffer} appear once
+   * they are flushed.
+   */
+  public String getJobLogs(Job job) {
+    List<JobLogLine> lines = jobLogLinesRepository.findAllByJobIdOrderByLineNumberAsc(job.getId());
+    if (lines.isEmpty()) {
+      String log = jobLogArchiver.findLog(job.getId()).orElse(job.getLog());
+      return log != null ? log : "";
+    }
+    return lines.stream().map(JobLogLine::getMessage).collect(Collectors.joining("\n"));
+  }
+
+  /** The gzip-compressed log of a finished job, if it has been archived. */
+  public Optional<byte[]> getCompressedJobLogs(long jobId) {
+    return jobLogArchiver.findCompressedLog(jobId);
+  }
+
+  /** Number of lines in the log of a job. */
+  public int countJobLogLines(long jobId) {
+    int count = jobLogLinesRepository.countByJobId(jobId);
+    if (count > 0) {
+      return count;
+    }
+    return jobLogArchiver.findLineCount(jobId).orElseGet(() -> legacyLogLines(jobId).size());
+  }
+
+  /**
+   * Reads at most {@code limit} lines of a job's log starting at line {@code fromLine} (0-based).
+   * Only the requested lines are read from the database, or for a finished job only the archive
+   * chunks that hold them.
+   */
+  public List<String> getJobLogLines(long jobId, int fromLine, int limit) {
+    if (limit <= 0) {
+      return List.of();
+    }
+    List<JobLogLine> lines =
+        jobLogLinesRepository.findAllByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+            jobId, fromLine, PageRequest.ofSize(limit));
+    if (!lines.isEmpty() || jobLogLinesRepository.countByJobId(jobId) > 0) {
+      return lines.stream().map(JobLogLine::getMessage).toList();
+    }
+    return jobLogArchiver
+        .findLines(jobId, fromLine, limit)
+        .orElseGet(
+            () -> {
+              List<String> legacy = legacyLogLines(jobId);
+              int from = Math.min(fromLine, legacy.size());
+              return legacy.subList(from, from + Math.min(legacy.size() - from, limit));
+            });
+  }
+
+  /** Lines of the legacy log column, from before log lines existed; small enough to split. */
+  private List<String> legacyLogLines(long jobId) {
+    return jobsRepository
+        .findById(jobId)
+        .map(Job::getLog)
+        .filter(log -> !log.isEmpty())
+        .map(log -> List.of(log.split("\n", -1)))
+        .orElse(List.of());
   }
 }
@@ -0,0 +1,156 @@
+package edu.ucsb.cs156.example.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.controllers.FrontendController;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import java.lang.reflect.Method;
+import java.util.List;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+public class ControllerMetricsAspectTests {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ControllerMetricsAspect aspect = new ControllerMetricsAspect(meterRegistry, 1);
+
+  static class ItemsController {
+    public List<String> all() {
+      return null;
+    }
+  }
+
+  private ProceedingJoinPoint joinPoint(Object result) throws Throwable {
+    return joinPoint(ItemsController.class.getMethod("all"), result);
+  }
+
+  private ProceedingJoinPoint joinPoint(Method method, Object result) throws Throwable {
+    MethodSignature signature = mock(MethodSignature.class);
+    when(signature.getMethod()).thenReturn(method);
+    ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+    when(joinPoint.getSignature()).thenReturn(signature);
+    when(joinPoint.proceed()).thenReturn(result);
+    return joinPoint;
+  }
+
+  @AfterEach
+  public void clearRequest() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  private MockHttpServletRequest currentRequest(String method, String uri) {
+    MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    return request;
+  }
+
+  @Test
+  public void calls_are_timed() throws Throwable {
+    List<String> items = List.of("a", "b", "c");
+
+    assertSame(items, aspect.recordControllers(joinPoint(items)));
+    aspect.recordControllers(joinPoint(items));
+
+    assertEquals(
+        2,
+        meterRegistry
+            .get("app.controller.requests")
+            .tags("controller", "ItemsController", "method", "all")
+            .timer()
+            .count());
+  }
+
+  @Test
+  public void response_size_is_left_on_the_request_for_the_filter() throws Throwable {
+    MockHttpServletRequest request = currentRequest("GET", "/api/items/all");
+
+    aspect.recordControllers(joinPoint(List.of()));
+
+    DistributionSummary responseSize =
+        meterRegistry
+            .get("app.controller.response.size")
+            .tags("controller", "ItemsController", "method", "all")
+            .summary();
+    assertSame(responseSize, request.getAttribute(ResponseSizeFilter.RESPONSE_SIZE));
+    assertEquals(0, responseSize.count());
+  }
+
+  @Test
+  public void exceptions_are_counted_by_type_and_rethrown() throws Throwable {
+    ProceedingJoinPoint joinPoint = joinPoint(null);
+    when(joinPoint.proceed()).thenThrow(new EntityNotFoundException("gone"));
+
+    assertThrows(EntityNotFoundException.class, () -> aspect.recordControllers(joinPoint));
+
+    assertEquals(
+        1,
+        meterRegistry
+            .get("app.controller.errors")
+            .tags("exception", "EntityNotFoundException")
+            .counter()
+            .count());
+    assertThrows(EntityNotFoundException.class, () -> aspect.recordControllers(joinPoint));
+    assertEquals(
+        2,
+        meterRegistry
+            .get("app.controller.errors")
+            .tags("exception", "EntityNotFoundException")
+            .counter()
+            .count());
+    assertEquals(2, meterRegistry.get("app.controller.requests").timer().count());
+  }
+
+  @Test
+  public void request_body_size_is_recorded() throws Throwable {
+    currentRequest("POST", "/api/items/post").setContent(new byte[42]);
+    aspect.recordControllers(joinPoint("ok"));
+
+    currentRequest("GET", "/api/items/all");
+    aspect.recordControllers(joinPoint("ok"));
+
+    assertEquals(1, meterRegistry.get("app.controller.request.size").summary().count());
+    assertEquals(42, meterRegistry.get("app.controller.request.size").summary().totalAmount());
+  }
+
+  @Test
+  public void only_one_in_log_every_calls_is_logged() throws Throwable {
+    currentRequest("GET", "/api/items/all");
+    ControllerMetricsAspect everyOther = new ControllerMetricsAspect(meterRegistry, 2);
+    ControllerMetricsAspect silent = new ControllerMetricsAspect(meterRegistry, 0);
+
+    everyOther.recordControllers(joinPoint("ok"));
+    everyOther.recordControllers(joinPoint("ok"));
+    silent.recordControllers(joinPoint("ok"));
+
+    assertEquals(3, meterRegistry.get("app.controller.requests").timer().count());
+  }
+
+  @Test
+  public void stoplisted_controllers_are_not_measured() throws Throwable {
+    MockHttpServletRequest request = currentRequest("GET", "/");
+    Method method = FrontendController.class.getDeclaredMethods()[0];
+    ProceedingJoinPoint joinPoint = joinPoint(method, "index");
+
+    assertEquals("index", aspect.recordControllers(joinPoint));
+    aspect.recordControllers(joinPoint);
+
+    verify(joinPoint, times(2)).proceed();
+    assertTrue(meterRegistry.getMeters().isEmpty());
+    assertNull(request.getAttribute(ResponseSizeFilter.RESPONSE_SIZE));
+  }
+}
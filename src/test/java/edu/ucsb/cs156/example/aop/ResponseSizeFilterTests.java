@@ -0,0 +1,95 @@
+package edu.ucsb.cs156.example.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class ResponseSizeFilterTests {
+
+  private final ResponseSizeFilter filter = new ResponseSizeFilter();
+
+  private final DistributionSummary responseSize =
+      DistributionSummary.builder("app.controller.response.size").register(new SimpleMeterRegistry());
+
+  private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/items/all");
+
+  private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+  /** A chain that writes the body the way Spring's message converters do. */
+  private FilterChain writing(String body) {
+    return (request, wrapped) -> {
+      ServletOutputStream out = wrapped.getOutputStream();
+      out.write(body.charAt(0));
+      out.write(body.substring(1).getBytes(), 0, body.length() - 1);
+      assertSame(out, wrapped.getOutputStream());
+      out.flush();
+      assertTrue(out.isReady());
+      out.close();
+    };
+  }
+
+  @Test
+  public void bytes_written_are_recorded_for_the_controller() throws Exception {
+    request.setAttribute(ResponseSizeFilter.RESPONSE_SIZE, responseSize);
+
+    filter.doFilter(request, response, writing("[1,2,3]"));
+
+    assertEquals("[1,2,3]", response.getContentAsString());
+    assertTrue(response.isCommitted());
+    assertEquals(1, responseSize.count());
+    assertEquals(7, responseSize.totalAmount());
+  }
+
+  @Test
+  public void responses_not_handled_by_a_controller_are_passed_through() throws Exception {
+    filter.doFilter(request, response, writing("<html>"));
+
+    assertEquals("<html>", response.getContentAsString());
+    assertEquals(0, responseSize.count());
+  }
+
+  @Test
+  public void async_responses_are_recorded_when_the_last_dispatch_ends() throws Exception {
+    request.setAttribute(ResponseSizeFilter.RESPONSE_SIZE, responseSize);
+    request.setAsyncStarted(true);
+
+    filter.doFilter(request, response, writing("data: 1\n\n"));
+    assertEquals(0, responseSize.count());
+
+    request.setAsyncStarted(false);
+    request.setDispatcherType(DispatcherType.ASYNC);
+    filter.doFilter(request, response, (request, wrapped) -> wrapped.getOutputStream().write(':'));
+
+    assertEquals(1, responseSize.count());
+    assertEquals(10, responseSize.totalAmount());
+  }
+
+  @Test
+  public void write_listeners_are_passed_on() throws Exception {
+    ServletOutputStream out = mock(ServletOutputStream.class);
+    HttpServletResponse servletResponse = mock(HttpServletResponse.class);
+    when(servletResponse.getOutputStream()).thenReturn(out);
+    WriteListener listener = mock(WriteListener.class);
+
+    filter.doFilter(
+        request,
+        servletResponse,
+        (request, wrapped) -> wrapped.getOutputStream().setWriteListener(listener));
+
+    verify(out).setWriteListener(listener);
+  }
+}
@@ -0,0 +1,64 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.csrf.CsrfToken;
+
+public class CsrfCookieFilterTests {
+
+  private final CsrfCookieFilter filter = new CsrfCookieFilter();
+
+  private CsrfToken run(MockHttpServletRequest request) throws Exception {
+    CsrfToken csrfToken = mock(CsrfToken.class);
+    request.setAttribute("_csrf", csrfToken);
+    filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    return csrfToken;
+  }
+
+  @Test
+  public void token_is_loaded_when_the_cookie_is_missing() throws Exception {
+    CsrfToken csrfToken = run(new MockHttpServletRequest("GET", "/api/currentUser"));
+
+    verify(csrfToken).getToken();
+  }
+
+  @Test
+  public void token_is_not_loaded_again_when_the_cookie_is_present() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/currentUser");
+    request.setCookies(new Cookie("XSRF-TOKEN", "abc"));
+
+    verify(run(request), never()).getToken();
+  }
+
+  @Test
+  public void token_is_not_loaded_for_static_files() throws Exception {
+    verify(run(new MockHttpServletRequest("GET", "/static/js/main.1234.js")), never()).getToken();
+  }
+
+  @Test
+  public void only_paths_with_a_non_html_extension_are_static() {
+    assertTrue(CsrfCookieFilter.isStaticResource("/favicon.ico"));
+    assertTrue(CsrfCookieFilter.isStaticResource("/static/css/main.css"));
+    assertFalse(CsrfCookieFilter.isStaticResource("/"));
+    assertFalse(CsrfCookieFilter.isStaticResource("/index.html"));
+    assertFalse(CsrfCookieFilter.isStaticResource("/restaurants/edit/1"));
+    assertFalse(CsrfCookieFilter.isStaticResource("/v3.1/api"));
+  }
+
+  @Test
+  public void empty_cookie_does_not_count() {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.setCookies(new Cookie("XSRF-TOKEN", ""));
+
+    assertFalse(CsrfCookieFilter.hasCsrfCookie(request));
+  }
+}
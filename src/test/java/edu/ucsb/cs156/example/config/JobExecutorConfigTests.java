@@ -0,0 +1,38 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+public class JobExecutorConfigTests {
+
+  private final ApplicationContextRunner runner =
+      new ApplicationContextRunner()
+          .withConfiguration(AutoConfigurations.of(TaskExecutionAutoConfiguration.class))
+          .withUserConfiguration(JobExecutorConfig.class)
+          .withPropertyValues(
+              "app.jobs.executor.pool-size=2", "spring.task.execution.pool.core-size=3");
+
+  @Test
+  public void jobs_get_their_own_pool_and_the_default_executor_is_kept() {
+    runner.run(
+        context -> {
+          ThreadPoolTaskExecutor jobs =
+              context.getBean(JobExecutorConfig.JOB_EXECUTOR, ThreadPoolTaskExecutor.class);
+          ThreadPoolTaskExecutor application =
+              context.getBean(
+                  TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+                  ThreadPoolTaskExecutor.class);
+
+          assertNotSame(jobs, application);
+          assertEquals(2, jobs.getMaxPoolSize());
+          assertEquals(3, application.getCorePoolSize());
+          assertEquals(application, context.getBean("taskExecutor"));
+        });
+  }
+}
@@ -0,0 +1,57 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class JsonContentLengthFilterTests {
+
+  private final JsonContentLengthFilter filter = new JsonContentLengthFilter();
+
+  private MockHttpServletResponse write(String contentType) throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    MockFilterChain chain =
+        new MockFilterChain() {
+          @Override
+          public void doFilter(
+              jakarta.servlet.ServletRequest request, jakarta.servlet.ServletResponse wrapped)
+              throws java.io.IOException {
+            HttpServletResponse httpResponse = (HttpServletResponse) wrapped;
+            httpResponse.setContentType(contentType);
+            httpResponse.getOutputStream().write("body".getBytes());
+            httpResponse.getOutputStream().flush();
+            httpResponse.flushBuffer();
+          }
+        };
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/restaurants/all"), response, chain);
+    return response;
+  }
+
+  @Test
+  public void json_is_not_committed_by_a_flush() throws Exception {
+    MockHttpServletResponse response = write("application/json");
+
+    assertFalse(response.isCommitted());
+    assertTrue(response.getContentAsString().equals("body"));
+  }
+
+  @Test
+  public void event_streams_are_flushed() throws Exception {
+    assertTrue(write("text/event-stream").isCommitted());
+  }
+
+  @Test
+  public void only_json_types_are_deferred() {
+    assertTrue(JsonContentLengthFilter.isJson("application/json;charset=UTF-8"));
+    assertTrue(JsonContentLengthFilter.isJson("application/problem+json"));
+    assertFalse(JsonContentLengthFilter.isJson("application/x-ndjson"));
+    assertFalse(JsonContentLengthFilter.isJson("text/plain"));
+    assertFalse(JsonContentLengthFilter.isJson("not a type"));
+    assertFalse(JsonContentLengthFilter.isJson(null));
+  }
+}
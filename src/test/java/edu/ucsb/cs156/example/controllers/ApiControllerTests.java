@@ -2,20 +2,26 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.test.web.servlet.MvcResult;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = DummyController.class)
 @Import(TestConfig.class)
@@ -58,5 +64,62 @@ public class ApiControllerTests extends ControllerTestCase {
                 assertEquals("String with id 7 not found", json.get("message"));
         }
 
-}
+        private void returnWindow(List<User> users, boolean hasNext) {
+                when(userRepository.findBy(any(), any())).thenReturn(Window.from(users,
+                                i -> ScrollPosition.forward(Map.of("email", users.get(i).getEmail(), "id", users.get(i).getId())),
+                                hasNext));
+        }
+
+        @Test
+        public void page_with_more_rows_links_to_the_next_page() throws Exception {
+
+                // arrange
+
+                User first = User.builder().id(1L).email("a@ucsb.edu").build();
+                returnWindow(List.of(first), true);
+
+                // act
+                MvcResult response = mockMvc.perform(get("/dummycontroller/page?sort=email&size=1"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                String cursor = response.getResponse().getHeader("X-Next-Cursor");
+                assertEquals("<http://localhost/dummycontroller/page?sort=email&size=1&cursor=" + cursor + ">; rel=\"next\"",
+                                response.getResponse().getHeader("Link"));
+                assertEquals(mapper.writeValueAsString(List.of(first)), response.getResponse().getContentAsString());
+
+                // the cursor of the next page replaces the one this page was read with
+                mockMvc.perform(get("/dummycontroller/page?sort=email&size=1&cursor=" + cursor))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("Link",
+                                                "<http://localhost/dummycontroller/page?sort=email&size=1&cursor=" + cursor + ">; rel=\"next\""));
+        }
+
+        @Test
+        public void last_page_has_no_link() throws Exception {
+                returnWindow(List.of(User.builder().id(1L).email("a@ucsb.edu").build()), false);
+
+                mockMvc.perform(get("/dummycontroller/page"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().doesNotExist("Link"))
+                                .andExpect(header().doesNotExist("X-Next-Cursor"));
+        }
+
+        @Test
+        public void bad_sort_or_cursor_is_a_bad_request() throws Exception {
 
+                // act
+                MvcResult badSort = mockMvc.perform(get("/dummycontroller/page?sort=fullName"))
+                                .andExpect(status().isBadRequest()).andReturn();
+                MvcResult badCursor = mockMvc.perform(get("/dummycontroller/page?cursor=not-a-cursor"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+
+                assertEquals(Map.of("type", "InvalidPageRequestException", "message", "Cannot sort User by fullName"),
+                                responseToJson(badSort));
+                assertEquals(Map.of("type", "InvalidPageRequestException", "message", "Invalid cursor"),
+                                responseToJson(badCursor));
+        }
+}
@@ -6,10 +6,14 @@ import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Articles;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.services.KeysetPager;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -32,6 +36,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.never;
 
 
 @WebMvcTest(controllers = ArticlesController.class)
@@ -41,6 +46,9 @@ public class ArticlesControllerTests extends ControllerTestCase {
     @MockBean
     ArticlesRepository articlesRepository;
 
+    @MockBean
+    KeysetPager keysetPager;
+
     @MockBean
     UserRepository userRepository;
 
@@ -159,7 +167,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
             ArrayList<Articles> expectedArticles = new ArrayList<>();
             expectedArticles.addAll(Arrays.asList(articles1, articles2));
 
-            when(articlesRepository.findAll()).thenReturn(expectedArticles);
+            when(articlesRepository.streamAllBy()).thenReturn(expectedArticles.stream());
 
             // act
             MvcResult response = mockMvc.perform(get("/api/articles/all"))
@@ -167,7 +175,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
             // assert
 
-            verify(articlesRepository, times(1)).findAll();
+            verify(articlesRepository, times(1)).streamAllBy();
             String expectedJson = mapper.writeValueAsString(expectedArticles);
             String responseString = response.getResponse().getContentAsString();
             assertEquals(expectedJson, responseString);
@@ -208,17 +216,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
     public void admin_can_delete_a_Articles() throws Exception {
             // arrange
 
-            LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
-
-            Articles articles1 = Articles.builder()
-                            .title("Delete test01: Nexustentialism")
-                            .url("https://dailynexus.com/2025-04-17/bingo-your-next-professor-may-be-a-lottery-hire/")
-                            .explanation("This is the first article to be deleted")
-                            .email("binouye@ucsb.edu")
-                            .dateAdded(ldt1)
-                            .build();
-
-            when(articlesRepository.findById(eq(15L))).thenReturn(Optional.of(articles1));
+            when(articlesRepository.deleteRowById(eq(15L))).thenReturn(1);
 
             // act
             MvcResult response = mockMvc.perform(
@@ -227,8 +225,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
                             .andExpect(status().isOk()).andReturn();
 
             // assert
-            verify(articlesRepository, times(1)).findById(15L);
-            verify(articlesRepository, times(1)).delete(any());
+            verify(articlesRepository, times(1)).deleteRowById(15L);
 
             Map<String, Object> json = responseToJson(response);
             assertEquals("Articles with id 15 deleted", json.get("message"));
@@ -240,7 +237,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
                     throws Exception {
             // arrange
 
-            when(articlesRepository.findById(eq(15L))).thenReturn(Optional.empty());
+            when(articlesRepository.deleteRowById(eq(15L))).thenReturn(0);
 
             // act
             MvcResult response = mockMvc.perform(
@@ -249,7 +246,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
                             .andExpect(status().isNotFound()).andReturn();
 
             // assert
-            verify(articlesRepository, times(1)).findById(15L);
+            verify(articlesRepository, times(1)).deleteRowById(15L);
             Map<String, Object> json = responseToJson(response);
             assertEquals("Articles with id 15 not found", json.get("message"));
     }  
@@ -259,17 +256,8 @@ public class ArticlesControllerTests extends ControllerTestCase {
     public void admin_can_edit_an_existing_articles() throws Exception {
             // arrange
 
-            LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
             LocalDateTime ldt2 = LocalDateTime.parse("2023-01-03T00:00:00");
 
-            Articles articlesOrig = Articles.builder()
-                            .title("Edit test01: Old Article = Zero-waste")
-                            .url("https://dailynexus.com/2025-04-24/zero-waste-festival-encourages-sustainability-with-music-crafts-thrifting/")
-                            .explanation("This is the article to be edited")
-                            .email("jthampiratwong@ucsb.edu")
-                            .dateAdded(ldt1)
-                            .build();
-
             Articles articlesEdited = Articles.builder()
                             .title("Edit test01: New Article = Shopping Guide")
                             .url("https://dailynexus.com/2025-04-24/a-smart-girls-guide-to-secondhand-shopping-the-hidden-dog/")
@@ -280,7 +268,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
             String requestBody = mapper.writeValueAsString(articlesEdited);
 
-            when(articlesRepository.findById(eq(67L))).thenReturn(Optional.of(articlesOrig));
+            when(articlesRepository.updateById(eq(67L), any())).thenReturn(1);
 
             // act
             MvcResult response = mockMvc.perform(
@@ -292,10 +280,10 @@ public class ArticlesControllerTests extends ControllerTestCase {
                             .andExpect(status().isOk()).andReturn();
 
             // assert
-            verify(articlesRepository, times(1)).findById(67L);
-            verify(articlesRepository, times(1)).save(articlesEdited); // should be saved with correct user
+            articlesEdited.setId(67L);
+            verify(articlesRepository, times(1)).updateById(67L, articlesEdited);
             String responseString = response.getResponse().getContentAsString();
-            assertEquals(requestBody, responseString);
+            assertEquals(mapper.writeValueAsString(articlesEdited), responseString);
     }
 
     @WithMockUser(roles = { "ADMIN", "USER" })
@@ -315,7 +303,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
             String requestBody = mapper.writeValueAsString(ucsbEditedArticles);
 
-            when(articlesRepository.findById(eq(67L))).thenReturn(Optional.empty());
+            when(articlesRepository.updateById(eq(67L), any())).thenReturn(0);
 
             // act
             MvcResult response = mockMvc.perform(
@@ -327,10 +315,67 @@ public class ArticlesControllerTests extends ControllerTestCase {
                             .andExpect(status().isNotFound()).andReturn();
 
             // assert
-            verify(articlesRepository, times(1)).findById(67L);
+            verify(articlesRepository, times(1)).updateById(eq(67L), any());
             Map<String, Object> json = responseToJson(response);
             assertEquals("Articles with id 67 not found", json.get("message"));
 
     }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_a_page_of_articles_sorted_by_date_added() throws Exception {
+
+        // arrange
+
+        Articles first = Articles.builder().id(1L).build();
+        when(keysetPager.page(articlesRepository, Articles.class, Set.of("dateAdded"), "dateAdded,desc", "abc", 5))
+                        .thenReturn(new KeysetPage<>(List.of(first), null));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/articles/page?sort=dateAdded,desc&cursor=abc&size=5"))
+                        .andExpect(status().isOk()).andReturn();
+
+        // assert
+
+        assertEquals(mapper.writeValueAsString(List.of(first)), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void regular_users_cannot_bulk_save_articles() throws Exception {
+        mockMvc.perform(post("/api/articles/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_bulk_create_and_update_articles_from_ndjson() throws Exception {
+        when(articlesRepository.findAllById(any())).thenReturn(List.of(Articles.builder().id(7L).build()));
+
+        MvcResult response = mockMvc.perform(post("/api/articles/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_NDJSON).content("{}\n{\"id\":7}\n"))
+                .andExpect(status().isOk()).andReturn();
+
+        verify(articlesRepository, times(1)).saveAll(any());
+        Map<String, Object> json = responseToJson(response);
+        assertEquals(1, json.get("created"));
+        assertEquals(1, json.get("updated"));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void bulk_delete_of_a_missing_article_deletes_nothing() throws Exception {
+        when(articlesRepository.findAllById(any())).thenReturn(List.of(Articles.builder().id(7L).build()));
+
+        MvcResult response = mockMvc.perform(delete("/api/articles/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_JSON).content("[7, 8]"))
+                .andExpect(status().isBadRequest()).andReturn();
+
+        verify(articlesRepository, never()).deleteAll(any());
+        assertEquals(
+                List.of(Map.of("index", 1, "message", "Articles with id 8 not found")),
+                responseToJson(response).get("errors"));
+    }
 }
 
@@ -1,21 +1,31 @@
 package edu.ucsb.cs156.example.controllers;
 
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.repositories.UserRepository;
 
 
 /**
- * This class is used to test ApiController and EntityNotFoundException
+ * This class is used to test ApiController, EntityNotFoundException and the /page responses
  */
 
 @RequestMapping("/dummycontroller")
 @RestController
 public class DummyController extends ApiController {
 
+    @Autowired
+    UserRepository userRepository;
+
     @GetMapping("")
     public String getById(@RequestParam Long id) throws EntityNotFoundException {
         if (id == 1) {
@@ -23,4 +33,10 @@ public class DummyController extends ApiController {
         }
         throw new EntityNotFoundException(String.class, id);
     }
+
+    @GetMapping("/page")
+    public ResponseEntity<List<User>> page(@RequestParam(defaultValue = "id") String sort,
+            @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "100") int size) {
+        return keysetPage(userRepository, User.class, Set.of("email"), sort, cursor, size);
+    }
 }
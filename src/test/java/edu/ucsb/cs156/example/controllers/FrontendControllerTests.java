@@ -0,0 +1,92 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = FrontendController.class)
+@TestPropertySource(properties = "app.frontend.location=classpath:/frontend-test/")
+public class FrontendControllerTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @Test
+  public void spa_route_serves_index_html_with_an_etag() throws Exception {
+    MvcResult response = mockMvc.perform(get("/restaurants/edit/1"))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith("text/html"))
+        .andExpect(content().string(containsString("<div id=\"root\">")))
+        .andExpect(header().string("Cache-Control", "no-cache"))
+        .andExpect(header().exists("ETag"))
+        .andReturn();
+
+    String etag = response.getResponse().getHeader("ETag");
+    mockMvc.perform(get("/").header("If-None-Match", etag))
+        .andExpect(status().isNotModified());
+  }
+
+  @Test
+  public void hashed_bundle_is_cached_as_immutable() throws Exception {
+    MvcResult response = mockMvc.perform(get("/static/js/main.abc123.js"))
+        .andExpect(status().isOk())
+        .andExpect(content().string("console.log(\"plain\");\n"))
+        .andExpect(header().string("Cache-Control", "max-age=31536000, public, immutable"))
+        .andReturn();
+
+    // the security filter chain, and so its headers and CSRF cookie, is bypassed
+    assertNull(response.getResponse().getHeader("X-Content-Type-Options"));
+    assertNull(response.getResponse().getCookie("XSRF-TOKEN"));
+  }
+
+  @Test
+  public void index_html_gets_the_security_headers() throws Exception {
+    mockMvc.perform(get("/index.html"))
+        .andExpect(status().isOk())
+        .andExpect(content().string(containsString("<div id=\"root\">")))
+        .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+        .andExpect(header().exists("X-Frame-Options"));
+  }
+
+  @Test
+  public void precompressed_variants_are_negotiated() throws Exception {
+    mockMvc.perform(get("/static/js/main.abc123.js").header("Accept-Encoding", "gzip, deflate, br"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Encoding", "br"))
+        .andExpect(header().string("Vary", containsString("Accept-Encoding")))
+        .andExpect(content().string("brotli-bytes"));
+
+    mockMvc.perform(get("/static/js/main.abc123.js").header("Accept-Encoding", "gzip"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Encoding", "gzip"))
+        .andExpect(content().string("gzip-bytes"));
+  }
+
+  @Test
+  public void top_level_files_are_revalidated_with_an_etag() throws Exception {
+    MvcResult response = mockMvc.perform(get("/manifest.json"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Cache-Control", "no-cache"))
+        .andExpect(header().exists("ETag"))
+        .andReturn();
+
+    mockMvc.perform(get("/manifest.json").header("If-None-Match", response.getResponse().getHeader("ETag")))
+        .andExpect(status().isNotModified());
+  }
+
+  @Test
+  public void missing_frontend_build_is_not_found() throws Exception {
+    mockMvc.perform(get("/static/js/missing.js"))
+        .andExpect(status().isNotFound());
+  }
+}
@@ -5,10 +5,14 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.HelpRequest;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.services.KeysetPager;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -31,6 +35,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.never;
 
 @WebMvcTest(controllers = HelpRequestsController.class)
 @Import(TestConfig.class)
@@ -39,6 +44,9 @@ public class HelpRequestsControllerTests extends ControllerTestCase {
     @MockBean
     HelpRequestRepository helpRequestRepository;
 
+    @MockBean
+    KeysetPager keysetPager;
+
     @MockBean
     UserRepository userRepository; 
     
@@ -92,7 +100,7 @@ public class HelpRequestsControllerTests extends ControllerTestCase {
             ArrayList<HelpRequest> expectedHelpRequests = new ArrayList<>();
             expectedHelpRequests.add(helprequest1);
 
-            when(helpRequestRepository.findAll()).thenReturn(expectedHelpRequests);
+            when(helpRequestRepository.streamAllBy()).thenReturn(expectedHelpRequests.stream());
 
             // act
             MvcResult response = mockMvc.perform(get("/api/helprequests/all"))
@@ -100,7 +108,7 @@ public class HelpRequestsControllerTests extends ControllerTestCase {
 
             // assert
 
-            verify(helpRequestRepository, times(1)).findAll();
+            verify(helpRequestRepository, times(1)).streamAllBy();
             String expectedJson = mapper.writeValueAsString(expectedHelpRequests);
             String responseString = response.getResponse().getContentAsString();
             assertEquals(expectedJson, responseString);
@@ -205,18 +213,8 @@ public class HelpRequestsControllerTests extends ControllerTestCase {
         public void admin_can_edit_an_existing_helprequest() throws Exception {
                 // arrange
 
-                LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
                 LocalDateTime ldt2 = LocalDateTime.parse("2023-01-03T00:00:00");
 
-                HelpRequest helprequest1 = HelpRequest.builder()
-                            .requesterEmail("email")
-                            .teamId("a")
-                            .tableOrBreakoutRoom("table")
-                            .requestTime(ldt1)
-                            .explanation("yes")
-                            .solved(true)
-                            .build();
-
                 HelpRequest helprequestEdited = HelpRequest.builder()
                             .requesterEmail("emailA")
                             .teamId("aB")
@@ -228,7 +226,7 @@ public class HelpRequestsControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(helprequestEdited);
 
-                when(helpRequestRepository.findById(eq(67L))).thenReturn(Optional.of(helprequest1));
+                when(helpRequestRepository.updateById(eq(67L), any())).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -240,10 +238,10 @@ public class HelpRequestsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(helpRequestRepository, times(1)).findById(67L);
-                verify(helpRequestRepository, times(1)).save(helprequestEdited);
+                helprequestEdited.setId(67L);
+                verify(helpRequestRepository, times(1)).updateById(67L, helprequestEdited);
                 String responseString = response.getResponse().getContentAsString();
-                assertEquals(requestBody, responseString);
+                assertEquals(mapper.writeValueAsString(helprequestEdited), responseString);
         }
 
         @WithMockUser(roles = { "ADMIN", "USER" })
@@ -264,7 +262,7 @@ public class HelpRequestsControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(helprequestEdited);
 
-                when(helpRequestRepository.findById(eq(67L))).thenReturn(Optional.empty());
+                when(helpRequestRepository.updateById(eq(67L), any())).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -276,7 +274,7 @@ public class HelpRequestsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(helpRequestRepository, times(1)).findById(67L);
+                verify(helpRequestRepository, times(1)).updateById(eq(67L), any());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("HelpRequest with id 67 not found", json.get("message"));
 
@@ -288,18 +286,7 @@ public class HelpRequestsControllerTests extends ControllerTestCase {
         public void admin_can_delete_a_helprequest() throws Exception {
                 // arrange
 
-                LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
-
-                HelpRequest helprequest1 = HelpRequest.builder()
-                            .requesterEmail("email")
-                            .teamId("a")
-                            .tableOrBreakoutRoom("table")
-                            .requestTime(ldt1)
-                            .explanation("yes")
-                            .solved(true)
-                            .build();
-
-                when(helpRequestRepository.findById(eq(15L))).thenReturn(Optional.of(helprequest1));
+                when(helpRequestRepository.deleteRowById(eq(15L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -308,8 +295,7 @@ public class HelpRequestsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(helpRequestRepository, times(1)).findById(15L);
-                verify(helpRequestRepository, times(1)).delete(any());
+                verify(helpRequestRepository, times(1)).deleteRowById(15L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("HelpRequest with id 15 deleted", json.get("message"));
@@ -321,7 +307,7 @@ public class HelpRequestsControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(helpRequestRepository.findById(eq(15L))).thenReturn(Optional.empty());
+                when(helpRequestRepository.deleteRowById(eq(15L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -330,12 +316,65 @@ public class HelpRequestsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(helpRequestRepository, times(1)).findById(15L);
+                verify(helpRequestRepository, times(1)).deleteRowById(15L);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("HelpRequest with id 15 not found", json.get("message"));
         }
 
-   
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_a_page_of_help_requests_sorted_by_request_time() throws Exception {
 
-    
+        // arrange
+
+        HelpRequest first = HelpRequest.builder().id(1L).build();
+        when(keysetPager.page(helpRequestRepository, HelpRequest.class, Set.of("requestTime"), "requestTime,desc", "abc", 5))
+                        .thenReturn(new KeysetPage<>(List.of(first), null));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/helprequests/page?sort=requestTime,desc&cursor=abc&size=5"))
+                        .andExpect(status().isOk()).andReturn();
+
+        // assert
+
+        assertEquals(mapper.writeValueAsString(List.of(first)), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void regular_users_cannot_bulk_save_help_requests() throws Exception {
+        mockMvc.perform(post("/api/helprequests/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_bulk_create_and_update_help_requests_from_ndjson() throws Exception {
+        when(helpRequestRepository.findAllById(any())).thenReturn(List.of(HelpRequest.builder().id(7L).build()));
+
+        MvcResult response = mockMvc.perform(post("/api/helprequests/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_NDJSON).content("{}\n{\"id\":7}\n"))
+                .andExpect(status().isOk()).andReturn();
+
+        verify(helpRequestRepository, times(1)).saveAll(any());
+        Map<String, Object> json = responseToJson(response);
+        assertEquals(1, json.get("created"));
+        assertEquals(1, json.get("updated"));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void bulk_delete_of_a_missing_help_request_deletes_nothing() throws Exception {
+        when(helpRequestRepository.findAllById(any())).thenReturn(List.of(HelpRequest.builder().id(7L).build()));
+
+        MvcResult response = mockMvc.perform(delete("/api/helprequests/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_JSON).content("[7, 8]"))
+                .andExpect(status().isBadRequest()).andReturn();
+
+        verify(helpRequestRepository, never()).deleteAll(any());
+        assertEquals(
+                List.of(Map.of("index", 1, "message", "HelpRequest with id 8 not found")),
+                responseToJson(response).get("errors"));
+    }
 }
\ No newline at end of file
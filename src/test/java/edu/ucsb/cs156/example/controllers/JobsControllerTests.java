@@ -2,67 +2,123 @@ package edu.ucsb.cs156.example.controllers;
 
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.config.JobExecutorConfig;
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogArchive;
+import edu.ucsb.cs156.example.entities.JobLogLine;
 import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.repositories.JobLogArchiveChunksRepository;
+import edu.ucsb.cs156.example.repositories.JobLogArchivesRepository;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.jobs.JobLogArchiver;
+import edu.ucsb.cs156.example.services.jobs.JobLogBuffer;
+import edu.ucsb.cs156.example.services.jobs.JobLogStreamer;
+import edu.ucsb.cs156.example.services.jobs.JobRetentionService;
 import edu.ucsb.cs156.example.services.jobs.JobService;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MvcResult;
 
 @Slf4j
 @WebMvcTest(controllers = JobsController.class)
-@Import(JobService.class)
+@Import({
+  JobService.class,
+  JobLogBuffer.class,
+  JobLogArchiver.class,
+  JobLogStreamer.class,
+  JobRetentionService.class,
+  JobExecutorConfig.class
+})
 @AutoConfigureDataJpa
+@TestPropertySource(properties = "app.jobs.timeout-ms=0")
 public class JobsControllerTests extends ControllerTestCase {
 
   @MockitoBean JobsRepository jobsRepository;
 
+  @MockitoBean JobLogLinesRepository jobLogLinesRepository;
+
+  @MockitoBean JobLogArchivesRepository jobLogArchivesRepository;
+
+  @MockitoBean JobLogArchiveChunksRepository jobLogArchiveChunksRepository;
+
   @MockitoBean UserRepository userRepository;
 
   @Autowired JobService jobService;
 
   @Autowired ObjectMapper objectMapper;
 
+  private static final SpelAwareProxyProjectionFactory projectionFactory =
+      new SpelAwareProxyProjectionFactory();
+
+  @SuppressWarnings("unchecked")
+  private List<JobLogLine> savedLogLines() {
+    ArgumentCaptor<Iterable<JobLogLine>> captor = ArgumentCaptor.forClass(Iterable.class);
+    verify(jobLogLinesRepository, atLeastOnce()).saveAll(captor.capture());
+    List<JobLogLine> lines = new ArrayList<>();
+    captor.getAllValues().forEach(batch -> batch.forEach(lines::add));
+    return lines;
+  }
+
+  private static JobSummary summary(long id, String status) {
+    return projectionFactory.createProjection(
+        JobSummary.class, Map.of("id", id, "status", status, "attempts", 1));
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void admin_can_get_all_jobs() throws Exception {
 
     // arrange
 
-    Job job1 = Job.builder().log("this is job 1").build();
-    Job job2 = Job.builder().log("this is job 2").build();
+    List<JobSummary> expectedJobs = List.of(summary(2L, "complete"), summary(1L, "error"));
 
-    ArrayList<Job> expectedJobs = new ArrayList<>();
-    expectedJobs.addAll(Arrays.asList(job1, job2));
-
-    when(jobsRepository.findAll()).thenReturn(expectedJobs);
+    when(jobsRepository.findSummaries(isNull(), isNull(), isNull(), isNull(), isNull(), any()))
+        .thenReturn(expectedJobs);
 
     // act
     MvcResult response =
@@ -70,10 +126,61 @@ public class JobsControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(jobsRepository, atLeastOnce()).findAll();
+    verify(jobsRepository, times(1))
+        .findSummaries(
+            isNull(), isNull(), isNull(), isNull(), isNull(), eq(PageRequest.ofSize(100)));
+    verify(jobsRepository, never()).findAll();
     String expectedJson = mapper.writeValueAsString(expectedJobs);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
+    assertNull(response.getResponse().getHeader("Link"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_filter_jobs_and_gets_a_link_to_the_next_page() throws Exception {
+
+    // arrange
+
+    ZonedDateTime after = ZonedDateTime.parse("2025-01-01T00:00:00Z");
+    ZonedDateTime before = ZonedDateTime.parse("2025-02-01T00:00:00Z");
+    List<JobSummary> expectedJobs = List.of(summary(9L, "complete"), summary(7L, "complete"));
+
+    when(jobsRepository.findSummaries(
+            eq("complete"), eq(3L), eq(after), eq(before), eq(10L), eq(PageRequest.ofSize(2))))
+        .thenReturn(expectedJobs);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get(
+                    "/api/jobs/all?status=complete&createdById=3"
+                        + "&createdAfter=2025-01-01T00:00:00Z&createdBefore=2025-02-01T00:00:00Z"
+                        + "&beforeId=10&size=2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals(mapper.writeValueAsString(expectedJobs), response.getResponse().getContentAsString());
+    String link = response.getResponse().getHeader("Link");
+    assertTrue(link.contains("beforeId=7"), link);
+    assertTrue(link.contains("status=complete"), link);
+    assertTrue(link.endsWith("; rel=\"next\""), link);
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void page_size_is_capped() throws Exception {
+
+    // act
+    mockMvc.perform(get("/api/jobs/all?size=5000")).andExpect(status().isOk());
+
+    // assert
+    verify(jobsRepository, times(1))
+        .findSummaries(
+            isNull(), isNull(), isNull(), isNull(), isNull(), eq(PageRequest.ofSize(1000)));
   }
 
   @WithMockUser(roles = {"ADMIN"})
@@ -121,11 +228,103 @@ public class JobsControllerTests extends ControllerTestCase {
     assertEquals("Job with id 2 not found", json.get("message"));
   }
 
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_list_running_jobs_with_elapsed_time() throws Exception {
+
+    // arrange
+
+    ZonedDateTime createdAt = ZonedDateTime.now().minusMinutes(5);
+    JobSummary running =
+        projectionFactory.createProjection(
+            JobSummary.class,
+            Map.of(
+                "id", 4L, "status", "running", "attempts", 1, "progress", 30, "createdAt",
+                createdAt));
+    JobSummary unknownStart =
+        projectionFactory.createProjection(
+            JobSummary.class, Map.of("id", 3L, "status", "running", "attempts", 1));
+    when(jobsRepository.findSummaries(
+            eq("running"), isNull(), isNull(), isNull(), isNull(), eq(PageRequest.ofSize(1000))))
+        .thenReturn(List.of(running, unknownStart));
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/running")).andExpect(status().isOk()).andReturn();
+
+    // assert
+
+    List<Map<String, Object>> jobs =
+        mapper.readValue(response.getResponse().getContentAsString(), List.class);
+    assertEquals(4, jobs.get(0).get("id"));
+    assertEquals(30, jobs.get(0).get("progress"));
+    long elapsedMs = ((Number) jobs.get(0).get("elapsedMs")).longValue();
+    assertTrue(elapsedMs >= 5 * 60 * 1000 && elapsedMs < 6 * 60 * 1000, "elapsed " + elapsedMs);
+    assertNull(jobs.get(1).get("elapsedMs"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_cancel_a_running_job() throws Exception {
+
+    // arrange
+
+    when(jobsRepository.existsById(eq(1L))).thenReturn(true);
+    when(jobsRepository.requestCancel(eq(1L))).thenReturn(1);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/cancel?id=1").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    verify(jobsRepository, times(1)).requestCancel(1L);
+    assertEquals("Job with id 1 is being cancelled", responseToJson(response).get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void cancelling_a_finished_job_reports_it_is_not_running() throws Exception {
+
+    // arrange
+
+    when(jobsRepository.existsById(eq(1L))).thenReturn(true);
+    when(jobsRepository.requestCancel(eq(1L))).thenReturn(0);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/cancel?id=1").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    assertEquals("Job with id 1 is not running", responseToJson(response).get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void cancelling_a_missing_job_is_not_found() throws Exception {
+
+    // arrange
+
+    when(jobsRepository.existsById(eq(2L))).thenReturn(false);
+
+    // act & assert
+    mockMvc.perform(post("/api/jobs/cancel?id=2").with(csrf())).andExpect(status().isNotFound());
+    verify(jobsRepository, never()).requestCancel(anyLong());
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void admin_can_delete_all_jobs() throws Exception {
 
-    doNothing().when(jobsRepository).deleteAll();
+    when(jobsRepository.deleteAllFinished()).thenReturn(3);
+    when(jobsRepository.countByStatus("running")).thenReturn(1L);
 
     // act
     MvcResult response =
@@ -136,10 +335,36 @@ public class JobsControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(jobsRepository, times(1)).deleteAll();
-    String expectedJson = mapper.writeValueAsString(Map.of("message", "All jobs deleted"));
-    String responseString = response.getResponse().getContentAsString();
-    assertEquals(expectedJson, responseString);
+    verify(jobsRepository, times(1)).deleteAllFinished();
+    verify(jobsRepository, never()).deleteAll();
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("All finished jobs deleted", json.get("message"));
+    assertEquals(3, json.get("deleted"));
+    assertEquals(1, json.get("skipped"));
+    assertNotNull(json.get("millis"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_purge_old_jobs() throws Exception {
+
+    // arrange
+
+    when(jobsRepository.findFinishedIdsCreatedBefore(any(), any())).thenReturn(List.of(1L, 2L));
+    when(jobsRepository.deleteByIds(eq(List.of(1L, 2L)))).thenReturn(2);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/purge").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals(2, json.get("deleted"));
+    verify(jobsRepository, times(1)).findFinishedIdsNewestFirst(eq(PageRequest.of(10000, 1)));
   }
 
   @WithMockUser(roles = {"ADMIN"})
@@ -175,6 +400,167 @@ public class JobsControllerTests extends ControllerTestCase {
         .andExpect(content().string(""));
   }
 
+  private void mockFiveLogLines(long jobId) {
+    when(jobsRepository.existsById(eq(jobId))).thenReturn(true);
+    when(jobLogLinesRepository.countByJobId(eq(jobId))).thenReturn(5);
+    when(jobLogLinesRepository.findAllByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+            eq(jobId), anyInt(), any()))
+        .thenAnswer(
+            invocation -> {
+              int from = invocation.getArgument(1);
+              int size = invocation.<PageRequest>getArgument(2).getPageSize();
+              return IntStream.range(from, Math.min(5, from + size))
+                  .mapToObj(
+                      i ->
+                          JobLogLine.builder().jobId(jobId).lineNumber(i).message("line " + i).build())
+                  .toList();
+            });
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_lines_of_a_job_log() throws Exception {
+    mockFiveLogLines(1L);
+
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}?fromLine=1&limit=2", 1L))
+        .andExpect(status().isOk())
+        .andExpect(content().string("line 1\nline 2"));
+
+    verify(jobLogLinesRepository, times(1))
+        .findAllByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+            eq(1L), eq(1), eq(PageRequest.ofSize(2)));
+    verify(jobLogLinesRepository, never()).findAllByJobIdOrderByLineNumberAsc(anyLong());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_the_tail_of_a_job_log() throws Exception {
+    mockFiveLogLines(1L);
+
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}?tail=2", 1L))
+        .andExpect(status().isOk())
+        .andExpect(content().string("line 3\nline 4"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void range_request_returns_partial_content() throws Exception {
+    mockFiveLogLines(1L);
+
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).header("Range", "lines=1-2"))
+        .andExpect(status().isPartialContent())
+        .andExpect(header().string("Content-Range", "lines 1-2/5"))
+        .andExpect(content().string("line 1\nline 2"));
+
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).header("Range", "lines=-2"))
+        .andExpect(status().isPartialContent())
+        .andExpect(header().string("Content-Range", "lines 3-4/5"))
+        .andExpect(content().string("line 3\nline 4"));
+
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).header("Range", "lines=4-"))
+        .andExpect(status().isPartialContent())
+        .andExpect(header().string("Content-Range", "lines 4-4/5"))
+        .andExpect(content().string("line 4"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void range_past_the_end_is_not_satisfiable() throws Exception {
+    mockFiveLogLines(1L);
+
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).header("Range", "lines=7-"))
+        .andExpect(status().isRequestedRangeNotSatisfiable())
+        .andExpect(header().string("Content-Range", "lines */5"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void unsupported_range_unit_returns_the_whole_log() throws Exception {
+    Job job = Job.builder().id(1L).log("whole log").build();
+    when(jobsRepository.findById(eq(1L))).thenReturn(Optional.of(job));
+
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).header("Range", "bytes=0-3"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Accept-Ranges", "lines"))
+        .andExpect(content().string("whole log"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void archived_log_is_sent_gzipped_to_clients_that_accept_gzip() throws Exception {
+    // Arrange
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+      gzip.write("archived\nlog".getBytes(StandardCharsets.UTF_8));
+    }
+    byte[] gzipped = bytes.toByteArray();
+    when(jobLogArchivesRepository.findById(eq(1L)))
+        .thenReturn(
+            Optional.of(JobLogArchive.builder().jobId(1L).lineCount(2).content(gzipped).build()));
+    when(jobsRepository.findById(eq(1L))).thenReturn(Optional.of(Job.builder().id(1L).build()));
+
+    // Act & Assert
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/logs/{id}", 1L).header("Accept-Encoding", "gzip, deflate"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Encoding", "gzip"))
+            .andExpect(header().string("Vary", "Accept-Encoding"))
+            .andReturn();
+    assertArrayEquals(gzipped, response.getResponse().getContentAsByteArray());
+
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist("Content-Encoding"))
+        .andExpect(content().string("archived\nlog"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void archived_log_is_sent_gzipped_only_if_gzip_has_a_q_value_above_zero()
+      throws Exception {
+    // Arrange
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+      gzip.write("archived\nlog".getBytes(StandardCharsets.UTF_8));
+    }
+    when(jobLogArchivesRepository.findById(eq(1L)))
+        .thenReturn(
+            Optional.of(
+                JobLogArchive.builder().jobId(1L).lineCount(2).content(bytes.toByteArray()).build()));
+    when(jobsRepository.findById(eq(1L))).thenReturn(Optional.of(Job.builder().id(1L).build()));
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", 1L).header("Accept-Encoding", "br, GZIP;q=0.5"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Encoding", "gzip"));
+
+    for (String refused : List.of("gzip;q=0", "deflate, gzip;q=0.000", "br, xgzip")) {
+      mockMvc
+          .perform(get("/api/jobs/logs/{id}", 1L).header("Accept-Encoding", refused))
+          .andExpect(status().isOk())
+          .andExpect(header().doesNotExist("Content-Encoding"))
+          .andExpect(content().string("archived\nlog"));
+    }
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void partial_log_of_missing_job_is_not_found() throws Exception {
+    when(jobsRepository.existsById(eq(2L))).thenReturn(false);
+
+    mockMvc.perform(get("/api/jobs/logs/{id}?tail=10", 2L)).andExpect(status().isNotFound());
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void admin_can_delete_specific_job() throws Exception {
@@ -237,7 +623,6 @@ public class JobsControllerTests extends ControllerTestCase {
             .createdAt(null)
             .updatedAt(null)
             .status("running")
-            .log("Hello World! from test job!")
             .build();
 
     Job jobCompleted =
@@ -247,10 +632,18 @@ public class JobsControllerTests extends ControllerTestCase {
             .createdAt(null)
             .updatedAt(null)
             .status("complete")
-            .log("Hello World! from test job!\nGoodbye from test job!")
+            .jobType("edu.ucsb.cs156.example.jobs.TestJob")
+            .params("{\"fail\":false,\"sleepMs\":2000}")
+            .attempts(1)
+            .progress(100)
             .build();
 
-    when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted).thenReturn(jobCompleted);
+    JobLogLine hello =
+        JobLogLine.builder().jobId(0L).lineNumber(0).message("Hello World! from test job!").build();
+    JobLogLine goodbye =
+        JobLogLine.builder().jobId(0L).lineNumber(1).message("Goodbye from test job!").build();
+
+    when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted);
 
     // act
     MvcResult response =
@@ -264,13 +657,19 @@ public class JobsControllerTests extends ControllerTestCase {
     Job jobReturned = objectMapper.readValue(responseString, Job.class);
 
     assertEquals("running", jobReturned.getStatus());
+    assertNotNull(jobReturned.getLeaseOwner());
 
     await()
         .atMost(1, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(2)).save(eq(jobStarted)));
+        .untilAsserted(() -> assertEquals(List.of(hello), savedLogLines()));
+    verify(jobsRepository, times(1)).save(any(Job.class));
     await()
         .atMost(10, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(4)).save(eq(jobCompleted)));
+        .untilAsserted(
+            () ->
+                verify(jobsRepository, times(1))
+                    .finish(eq(0L), anyString(), eq("complete"), eq(100), any()));
+    assertEquals(List.of(hello, goodbye), savedLogLines());
   }
 
   @WithMockUser(roles = {"ADMIN"})
@@ -288,7 +687,6 @@ public class JobsControllerTests extends ControllerTestCase {
             .createdAt(null)
             .updatedAt(null)
             .status("running")
-            .log("Hello World! from test job!")
             .build();
 
     Job jobFailed =
@@ -298,10 +696,17 @@ public class JobsControllerTests extends ControllerTestCase {
             .createdAt(null)
             .updatedAt(null)
             .status("error")
-            .log("Hello World! from test job!\nFail!")
+            .jobType("edu.ucsb.cs156.example.jobs.TestJob")
+            .params("{\"fail\":true,\"sleepMs\":4000}")
+            .attempts(1)
+            .progress(50)
             .build();
 
-    when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted).thenReturn(jobFailed);
+    JobLogLine hello =
+        JobLogLine.builder().jobId(0L).lineNumber(0).message("Hello World! from test job!").build();
+    JobLogLine fail = JobLogLine.builder().jobId(0L).lineNumber(1).message("Fail!").build();
+
+    when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted);
 
     // act
     MvcResult response =
@@ -314,14 +719,108 @@ public class JobsControllerTests extends ControllerTestCase {
     Job jobReturned = objectMapper.readValue(responseString, Job.class);
 
     assertEquals("running", jobReturned.getStatus());
+    assertNotNull(jobReturned.getLeaseOwner());
 
     await()
         .atMost(1, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(2)).save(eq(jobStarted)));
+        .untilAsserted(() -> assertEquals(List.of(hello), savedLogLines()));
+    verify(jobsRepository, times(1)).save(any(Job.class));
 
     await()
         .atMost(10, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(3)).save(eq(jobFailed)));
+        .untilAsserted(
+            () ->
+                verify(jobsRepository, times(1))
+                    .finish(eq(0L), anyString(), eq("error"), eq(50), any()));
+    assertEquals(List.of(hello, fail), savedLogLines());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_stream_job_log_from_a_line() throws Exception {
+
+    // arrange
+
+    JobLogLine second = JobLogLine.builder().jobId(1L).lineNumber(1).message("second").build();
+    JobLogLine third = JobLogLine.builder().jobId(1L).lineNumber(2).message("third").build();
+
+    when(jobsRepository.existsById(eq(1L))).thenReturn(true);
+    when(jobsRepository.findStatusById(eq(1L))).thenReturn(Optional.of("complete"));
+    when(jobLogLinesRepository.findAllByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+            eq(1L), eq(1), any()))
+        .thenReturn(List.of(second, third));
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/logs/{id}/stream?fromLine=1", 1L))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // assert
+
+    await()
+        .atMost(5, SECONDS)
+        .untilAsserted(
+            () ->
+                assertEquals(
+                    "id:1\nevent:line\ndata:second\n\n"
+                        + "id:2\nevent:line\ndata:third\n\n"
+                        + "event:end\ndata:complete\n\n",
+                    response.getResponse().getContentAsString()));
+    verify(jobLogLinesRepository, atLeastOnce())
+        .findAllByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(eq(1L), eq(3), any());
   }
 
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void stream_resumes_after_last_event_id() throws Exception {
+
+    // arrange
+
+    when(jobsRepository.existsById(eq(1L))).thenReturn(true);
+    when(jobsRepository.findStatusById(eq(1L))).thenReturn(Optional.of("error"));
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/logs/{id}/stream", 1L).header("Last-Event-ID", "4"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // assert
+
+    await()
+        .atMost(5, SECONDS)
+        .untilAsserted(
+            () ->
+                assertTrue(
+                    response.getResponse().getContentAsString().contains("event:end\ndata:error")));
+    verify(jobLogLinesRepository, atLeastOnce())
+        .findAllByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(eq(1L), eq(5), any());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void stream_returns_not_found_for_missing_job() throws Exception {
+
+    // arrange
+
+    when(jobsRepository.existsById(eq(2L))).thenReturn(false);
+
+    // act
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/logs/{id}/stream", 2L))
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+    // assert
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Job with id 2 not found", json.get("message"));
+  }
 }
@@ -7,10 +7,14 @@ import edu.ucsb.cs156.example.entities.MenuItemReview;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.repositories.MenuItemsReviewRepository;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.services.KeysetPager;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -37,6 +41,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.never;
 
 @WebMvcTest(controllers = MenuItemReviewsController.class)
 @Import(TestConfig.class)
@@ -45,6 +50,9 @@ public class MenuItemReviewsControllerTests extends ControllerTestCase{
     @MockBean
     MenuItemsReviewRepository menuItemsReviewRepository;
 
+    @MockBean
+    KeysetPager keysetPager;
+
     @MockBean
     UserRepository userRepository;
 
@@ -93,7 +101,7 @@ public class MenuItemReviewsControllerTests extends ControllerTestCase{
                 ArrayList<MenuItemReview> expectedMenuItemReviews = new ArrayList<>();
                 expectedMenuItemReviews.addAll(Arrays.asList(menuitemreview1));
 
-                when(menuItemsReviewRepository.findAll()).thenReturn(expectedMenuItemReviews);
+                when(menuItemsReviewRepository.streamAllBy()).thenReturn(expectedMenuItemReviews.stream());
 
                 // act
                 MvcResult response = mockMvc.perform(get("/api/MenuItemReviews/all"))
@@ -101,7 +109,7 @@ public class MenuItemReviewsControllerTests extends ControllerTestCase{
 
                 // assert
 
-                verify(menuItemsReviewRepository, times(1)).findAll();
+                verify(menuItemsReviewRepository, times(1)).streamAllBy();
                 String expectedJson = mapper.writeValueAsString(expectedMenuItemReviews);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -198,17 +206,8 @@ public class MenuItemReviewsControllerTests extends ControllerTestCase{
         public void admin_can_edit_an_existing_menuitemreview() throws Exception {
                 // arrange
 
-                LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
                 LocalDateTime ldt2 = LocalDateTime.parse("2023-01-03T00:00:00");
 
-                MenuItemReview menuitemreview1 = MenuItemReview.builder()
-                        .itemId(Long.valueOf(1))
-                        .reviewerEmail("tyler_wong@ucsb.edu")
-                        .stars(4)
-                        .dateReviewed(ldt1)
-                        .comments("Good.")
-                        .build();
-
                 MenuItemReview editedMenuItemReview = MenuItemReview.builder()
                         .itemId(Long.valueOf(2))
                         .reviewerEmail("tyler_w0ng@ucsb.edu")
@@ -219,7 +218,7 @@ public class MenuItemReviewsControllerTests extends ControllerTestCase{
 
                 String requestBody = mapper.writeValueAsString(editedMenuItemReview);
 
-                when(menuItemsReviewRepository.findById(eq(67L))).thenReturn(Optional.of(menuitemreview1));
+                when(menuItemsReviewRepository.updateById(eq(67L), any())).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -231,10 +230,10 @@ public class MenuItemReviewsControllerTests extends ControllerTestCase{
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(menuItemsReviewRepository, times(1)).findById(67L);
-                verify(menuItemsReviewRepository, times(1)).save(editedMenuItemReview); 
+                editedMenuItemReview.setId(67L);
+                verify(menuItemsReviewRepository, times(1)).updateById(67L, editedMenuItemReview);
                 String responseString = response.getResponse().getContentAsString();
-                assertEquals(requestBody, responseString);
+                assertEquals(mapper.writeValueAsString(editedMenuItemReview), responseString);
         }
 
         @WithMockUser(roles = { "ADMIN", "USER" })
@@ -254,7 +253,7 @@ public class MenuItemReviewsControllerTests extends ControllerTestCase{
 
                 String requestBody = mapper.writeValueAsString(editedMenuItemReview);
 
-                when(menuItemsReviewRepository.findById(eq(67L))).thenReturn(Optional.empty());
+                when(menuItemsReviewRepository.updateById(eq(67L), any())).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -266,7 +265,7 @@ public class MenuItemReviewsControllerTests extends ControllerTestCase{
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(menuItemsReviewRepository, times(1)).findById(67L);
+                verify(menuItemsReviewRepository, times(1)).updateById(eq(67L), any());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("MenuItemReview with id 67 not found", json.get("message"));
 
@@ -277,17 +276,7 @@ public class MenuItemReviewsControllerTests extends ControllerTestCase{
         public void admin_can_delete_a_menuitemreview() throws Exception {
                 // arrange
 
-                LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
-
-                MenuItemReview menuitemreview1 = MenuItemReview.builder()
-                        .itemId(Long.valueOf(1))
-                        .reviewerEmail("tyler_wong@ucsb.edu")
-                        .stars(4)
-                        .dateReviewed(ldt1)
-                        .comments("Good.")
-                        .build();
-
-                when(menuItemsReviewRepository.findById(eq(15L))).thenReturn(Optional.of(menuitemreview1));
+                when(menuItemsReviewRepository.deleteRowById(eq(15L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -296,8 +285,7 @@ public class MenuItemReviewsControllerTests extends ControllerTestCase{
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(menuItemsReviewRepository, times(1)).findById(15L);
-                verify(menuItemsReviewRepository, times(1)).delete(any());
+                verify(menuItemsReviewRepository, times(1)).deleteRowById(15L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("MenuItemReview with id 15 deleted", json.get("message"));
@@ -309,7 +297,7 @@ public class MenuItemReviewsControllerTests extends ControllerTestCase{
                         throws Exception {
                 // arrange
 
-                when(menuItemsReviewRepository.findById(eq(15L))).thenReturn(Optional.empty());
+                when(menuItemsReviewRepository.deleteRowById(eq(15L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -318,8 +306,65 @@ public class MenuItemReviewsControllerTests extends ControllerTestCase{
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(menuItemsReviewRepository, times(1)).findById(15L);
+                verify(menuItemsReviewRepository, times(1)).deleteRowById(15L);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("MenuItemReview with id 15 not found", json.get("message"));
         }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_a_page_of_menu_item_reviews_sorted_by_date_reviewed() throws Exception {
+
+        // arrange
+
+        MenuItemReview first = MenuItemReview.builder().id(1L).build();
+        when(keysetPager.page(menuItemsReviewRepository, MenuItemReview.class, Set.of("dateReviewed"), "dateReviewed,desc", "abc", 5))
+                        .thenReturn(new KeysetPage<>(List.of(first), null));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/MenuItemReviews/page?sort=dateReviewed,desc&cursor=abc&size=5"))
+                        .andExpect(status().isOk()).andReturn();
+
+        // assert
+
+        assertEquals(mapper.writeValueAsString(List.of(first)), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void regular_users_cannot_bulk_save_menu_item_reviews() throws Exception {
+        mockMvc.perform(post("/api/MenuItemReviews/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_bulk_create_and_update_menu_item_reviews_from_ndjson() throws Exception {
+        when(menuItemsReviewRepository.findAllById(any())).thenReturn(List.of(MenuItemReview.builder().id(7L).build()));
+
+        MvcResult response = mockMvc.perform(post("/api/MenuItemReviews/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_NDJSON).content("{}\n{\"id\":7}\n"))
+                .andExpect(status().isOk()).andReturn();
+
+        verify(menuItemsReviewRepository, times(1)).saveAll(any());
+        Map<String, Object> json = responseToJson(response);
+        assertEquals(1, json.get("created"));
+        assertEquals(1, json.get("updated"));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void bulk_delete_of_a_missing_menu_item_review_deletes_nothing() throws Exception {
+        when(menuItemsReviewRepository.findAllById(any())).thenReturn(List.of(MenuItemReview.builder().id(7L).build()));
+
+        MvcResult response = mockMvc.perform(delete("/api/MenuItemReviews/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_JSON).content("[7, 8]"))
+                .andExpect(status().isBadRequest()).andReturn();
+
+        verify(menuItemsReviewRepository, never()).deleteAll(any());
+        assertEquals(
+                List.of(Map.of("index", 1, "message", "MenuItemReview with id 8 not found")),
+                responseToJson(response).get("errors"));
+    }
 }
@@ -7,10 +7,14 @@ import edu.ucsb.cs156.example.entities.RecommendationRequest;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.services.KeysetPager;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -36,6 +40,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.never;
 
 @WebMvcTest(controllers = RecommendationRequestController.class)
 @Import(TestConfig.class)
@@ -43,6 +48,9 @@ public class RecommendationRequestControllerTests extends ControllerTestCase{
     @MockBean
         RecommendationRequestRepository recommendationRequestRepository;
 
+    @MockBean
+    KeysetPager keysetPager;
+
     @MockBean
         UserRepository userRepository;
 
@@ -95,7 +103,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase{
             ArrayList<RecommendationRequest> expectedRecommendationRequest = new ArrayList<>();
             expectedRecommendationRequest.add(recommendationRequest1);
 
-            when(recommendationRequestRepository.findAll()).thenReturn(expectedRecommendationRequest);
+            when(recommendationRequestRepository.streamAllBy()).thenReturn(expectedRecommendationRequest.stream());
 
             // act
             MvcResult response = mockMvc.perform(get("/api/recommendationrequest/all"))
@@ -103,7 +111,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase{
 
             // assert
 
-            verify(recommendationRequestRepository, times(1)).findAll();
+            verify(recommendationRequestRepository, times(1)).streamAllBy();
             String expectedJson = mapper.writeValueAsString(expectedRecommendationRequest);
 
 
@@ -207,20 +215,9 @@ public class RecommendationRequestControllerTests extends ControllerTestCase{
     public void admin_can_edit_an_existing_recommendationrequest() throws Exception {
             // arrange
 
-            LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
-            LocalDateTime ldt2 = LocalDateTime.parse("2023-01-04T00:00:00");
             LocalDateTime ldt3 = LocalDateTime.parse("2022-01-05T00:00:00");
             LocalDateTime ldt4 = LocalDateTime.parse("2023-01-06T00:00:00");
 
-            RecommendationRequest recommendationRequest1 = RecommendationRequest.builder()
-                            .requesterEmail("jthampiratwong@ucsb.edu")
-                            .professorEmail("pconrad@ucsb.edu")
-                            .explanation("recommendation request")
-                            .dateRequested(ldt1)
-                            .dateNeeded(ldt2)
-                            .done(false)
-                            .build();
-
             RecommendationRequest editedrecommendationRequest = RecommendationRequest.builder()
                             .requesterEmail("somebody@ucsb.edu")
                             .professorEmail("someone@ucsb.edu")
@@ -232,7 +229,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase{
 
             String requestBody = mapper.writeValueAsString(editedrecommendationRequest);
 
-            when(recommendationRequestRepository.findById(eq(67L))).thenReturn(Optional.of(recommendationRequest1));
+            when(recommendationRequestRepository.updateById(eq(67L), any())).thenReturn(1);
 
             // act
             MvcResult response = mockMvc.perform(
@@ -244,10 +241,10 @@ public class RecommendationRequestControllerTests extends ControllerTestCase{
                             .andExpect(status().isOk()).andReturn();
 
             // assert
-            verify(recommendationRequestRepository, times(1)).findById(67L);
-            verify(recommendationRequestRepository, times(1)).save(editedrecommendationRequest);
+            editedrecommendationRequest.setId(67L);
+            verify(recommendationRequestRepository, times(1)).updateById(67L, editedrecommendationRequest);
             String responseString = response.getResponse().getContentAsString();
-            assertEquals(requestBody, responseString);
+            assertEquals(mapper.writeValueAsString(editedrecommendationRequest), responseString);
     }
 
     @WithMockUser(roles = { "ADMIN", "USER" })
@@ -270,7 +267,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase{
 
             String requestBody = mapper.writeValueAsString(recommendationRequest1);
 
-            when(recommendationRequestRepository.findById(eq(67L))).thenReturn(Optional.empty());
+            when(recommendationRequestRepository.updateById(eq(67L), any())).thenReturn(0);
 
             // act
             MvcResult response = mockMvc.perform(
@@ -282,7 +279,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase{
                             .andExpect(status().isNotFound()).andReturn();
 
             // assert
-            verify(recommendationRequestRepository, times(1)).findById(67L);
+            verify(recommendationRequestRepository, times(1)).updateById(eq(67L), any());
             Map<String, Object> json = responseToJson(response);
             assertEquals("RecommendationRequest with id 67 not found", json.get("message"));
 
@@ -293,19 +290,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase{
     public void admin_can_delete_a_recommendationrequest() throws Exception {
             // arrange
 
-            LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
-            LocalDateTime ldt2 = LocalDateTime.parse("2023-01-04T00:00:00");
-
-            RecommendationRequest recommendationRequest1 = RecommendationRequest.builder()
-                            .requesterEmail("jthampiratwong@ucsb.edu")
-                            .professorEmail("pconrad@ucsb.edu")
-                            .explanation("recommendation request")
-                            .dateRequested(ldt1)
-                            .dateNeeded(ldt2)
-                            .done(false)
-                            .build();
-
-            when(recommendationRequestRepository.findById(eq(15L))).thenReturn(Optional.of(recommendationRequest1));
+            when(recommendationRequestRepository.deleteRowById(eq(15L))).thenReturn(1);
 
             // act
             MvcResult response = mockMvc.perform(
@@ -314,8 +299,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase{
                             .andExpect(status().isOk()).andReturn();
 
             // assert
-            verify(recommendationRequestRepository, times(1)).findById(15L);
-            verify(recommendationRequestRepository, times(1)).delete(eq(recommendationRequest1));
+            verify(recommendationRequestRepository, times(1)).deleteRowById(15L);
 
             Map<String, Object> json = responseToJson(response);
             assertEquals("RecommendationRequest with id 15 deleted", json.get("message"));
@@ -327,7 +311,7 @@ public class RecommendationRequestControllerTests extends ControllerTestCase{
                     throws Exception {
             // arrange
 
-            when(recommendationRequestRepository.findById(eq(15L))).thenReturn(Optional.empty());
+            when(recommendationRequestRepository.deleteRowById(eq(15L))).thenReturn(0);
 
             // act
             MvcResult response = mockMvc.perform(
@@ -336,10 +320,65 @@ public class RecommendationRequestControllerTests extends ControllerTestCase{
                             .andExpect(status().isNotFound()).andReturn();
 
             // assert
-            verify(recommendationRequestRepository, times(1)).findById(15L);
+            verify(recommendationRequestRepository, times(1)).deleteRowById(15L);
             Map<String, Object> json = responseToJson(response);
             assertEquals("RecommendationRequest with id 15 not found", json.get("message"));
     }
 
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_a_page_of_recommendation_requests_sorted_by_date_requested() throws Exception {
+
+        // arrange
+
+        RecommendationRequest first = RecommendationRequest.builder().id(1L).build();
+        when(keysetPager.page(recommendationRequestRepository, RecommendationRequest.class, Set.of("dateRequested"), "dateRequested,desc", "abc", 5))
+                        .thenReturn(new KeysetPage<>(List.of(first), null));
+
+        // act
+        MvcResult response = mockMvc.perform(get("/api/recommendationrequest/page?sort=dateRequested,desc&cursor=abc&size=5"))
+                        .andExpect(status().isOk()).andReturn();
+
+        // assert
+
+        assertEquals(mapper.writeValueAsString(List.of(first)), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void regular_users_cannot_bulk_save_recommendation_requests() throws Exception {
+        mockMvc.perform(post("/api/recommendationrequest/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().is(403));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void admin_can_bulk_create_and_update_recommendation_requests_from_ndjson() throws Exception {
+        when(recommendationRequestRepository.findAllById(any())).thenReturn(List.of(RecommendationRequest.builder().id(7L).build()));
+
+        MvcResult response = mockMvc.perform(post("/api/recommendationrequest/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_NDJSON).content("{}\n{\"id\":7}\n"))
+                .andExpect(status().isOk()).andReturn();
+
+        verify(recommendationRequestRepository, times(1)).saveAll(any());
+        Map<String, Object> json = responseToJson(response);
+        assertEquals(1, json.get("created"));
+        assertEquals(1, json.get("updated"));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void bulk_delete_of_a_missing_recommendation_request_deletes_nothing() throws Exception {
+        when(recommendationRequestRepository.findAllById(any())).thenReturn(List.of(RecommendationRequest.builder().id(7L).build()));
+
+        MvcResult response = mockMvc.perform(delete("/api/recommendationrequest/bulk").with(csrf())
+                .contentType(MediaType.APPLICATION_JSON).content("[7, 8]"))
+                .andExpect(status().isBadRequest()).andReturn();
 
+        verify(recommendationRequestRepository, never()).deleteAll(any());
+        assertEquals(
+                List.of(Map.of("index", 1, "message", "RecommendationRequest with id 8 not found")),
+                responseToJson(response).get("errors"));
+    }
 }
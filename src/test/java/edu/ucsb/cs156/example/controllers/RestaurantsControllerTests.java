@@ -5,10 +5,14 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.services.KeysetPager;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -29,6 +33,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.never;
 
 @WebMvcTest(controllers = RestaurantsController.class)
 @Import(TestConfig.class)
@@ -37,6 +42,9 @@ public class RestaurantsControllerTests extends ControllerTestCase {
         @MockBean
         RestaurantRepository restaurantRepository;
 
+        @MockBean
+        KeysetPager keysetPager;
+
         @MockBean
         UserRepository userRepository;
 
@@ -143,7 +151,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
                 ArrayList<Restaurant> expectedRestaurants = new ArrayList<>();
                 expectedRestaurants.addAll(Arrays.asList(restaurant1, restaurant2));
 
-                when(restaurantRepository.findAll()).thenReturn(expectedRestaurants);
+                when(restaurantRepository.streamAllBy()).thenReturn(expectedRestaurants.stream());
 
                 // act
                 MvcResult response = mockMvc.perform(get("/api/restaurants/all"))
@@ -151,7 +159,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
 
                 // assert
 
-                verify(restaurantRepository, times(1)).findAll();
+                verify(restaurantRepository, times(1)).streamAllBy();
                 String expectedJson = mapper.writeValueAsString(expectedRestaurants);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -187,12 +195,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
         public void admin_can_delete_a_restaurant() throws Exception {
                 // arrange
 
-                Restaurant restaurant = Restaurant.builder()
-                                .name("Taco Bell")
-                                .description("Mexican")
-                                .build();
-
-                when(restaurantRepository.findById(eq(15L))).thenReturn(Optional.of(restaurant));
+                when(restaurantRepository.deleteRowById(eq(15L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -201,8 +204,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(restaurantRepository, times(1)).findById(15L);
-                verify(restaurantRepository, times(1)).delete(any());
+                verify(restaurantRepository, times(1)).deleteRowById(15L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Restaurant with id 15 deleted", json.get("message"));
@@ -214,7 +216,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(restaurantRepository.findById(eq(15L))).thenReturn(Optional.empty());
+                when(restaurantRepository.deleteRowById(eq(15L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -223,7 +225,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(restaurantRepository, times(1)).findById(15L);
+                verify(restaurantRepository, times(1)).deleteRowById(15L);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Restaurant with id 15 not found", json.get("message"));
         }
@@ -233,11 +235,6 @@ public class RestaurantsControllerTests extends ControllerTestCase {
         public void admin_can_edit_an_existing_restaurant() throws Exception {
                 // arrange
 
-                Restaurant restaurantOrig = Restaurant.builder().id(67L)
-                                .name("Chipotle")
-                                .description("Mexican")
-                                .build();
-
                 Restaurant restaurantEdited = Restaurant.builder().id(67L)
                                 .name("Taco Bell")
                                 .description("American")
@@ -245,7 +242,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(restaurantEdited);
 
-                when(restaurantRepository.findById(eq(67L))).thenReturn(Optional.of(restaurantOrig));
+                when(restaurantRepository.updateById(eq(67L), any())).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -257,10 +254,10 @@ public class RestaurantsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(restaurantRepository, times(1)).findById(67L);
-                verify(restaurantRepository, times(1)).save(restaurantEdited); // should be saved with correct user
+                restaurantEdited.setId(67L);
+                verify(restaurantRepository, times(1)).updateById(67L, restaurantEdited);
                 String responseString = response.getResponse().getContentAsString();
-                assertEquals(requestBody, responseString);
+                assertEquals(mapper.writeValueAsString(restaurantEdited), responseString);
         }
 
         @WithMockUser(roles = { "ADMIN", "USER" })
@@ -277,7 +274,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(editedRestaurant);
 
-                when(restaurantRepository.findById(eq(67L))).thenReturn(Optional.empty());
+                when(restaurantRepository.updateById(eq(67L), any())).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -289,9 +286,66 @@ public class RestaurantsControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(restaurantRepository, times(1)).findById(67L);
+                verify(restaurantRepository, times(1)).updateById(eq(67L), any());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Restaurant with id 67 not found", json.get("message"));
 
         }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_a_page_of_restaurants_sorted_by_name() throws Exception {
+
+                // arrange
+
+                Restaurant first = Restaurant.builder().id(1L).build();
+                when(keysetPager.page(restaurantRepository, Restaurant.class, Set.of("name"), "name,desc", "abc", 5))
+                                .thenReturn(new KeysetPage<>(List.of(first), null));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/restaurants/page?sort=name,desc&cursor=abc&size=5"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                assertEquals(mapper.writeValueAsString(List.of(first)), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void regular_users_cannot_bulk_save_restaurants() throws Exception {
+                mockMvc.perform(post("/api/restaurants/bulk").with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_create_and_update_restaurants_from_ndjson() throws Exception {
+                when(restaurantRepository.findAllById(any())).thenReturn(List.of(Restaurant.builder().id(7L).build()));
+
+                MvcResult response = mockMvc.perform(post("/api/restaurants/bulk").with(csrf())
+                                .contentType(MediaType.APPLICATION_NDJSON).content("{}\n{\"id\":7}\n"))
+                                .andExpect(status().isOk()).andReturn();
+
+                verify(restaurantRepository, times(1)).saveAll(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(1, json.get("created"));
+                assertEquals(1, json.get("updated"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void bulk_delete_of_a_missing_restaurant_deletes_nothing() throws Exception {
+                when(restaurantRepository.findAllById(any())).thenReturn(List.of(Restaurant.builder().id(7L).build()));
+
+                MvcResult response = mockMvc.perform(delete("/api/restaurants/bulk").with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON).content("[7, 8]"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                verify(restaurantRepository, never()).deleteAll(any());
+                assertEquals(
+                                List.of(Map.of("index", 1, "message", "Restaurant with id 8 not found")),
+                                responseToJson(response).get("errors"));
+        }
 }
@@ -5,10 +5,14 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.services.KeysetPager;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -31,6 +35,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.never;
 
 @WebMvcTest(controllers = UCSBDiningCommonsMenuItemController.class)
 @Import(TestConfig.class)
@@ -39,6 +44,9 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
         @MockBean
         UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
 
+        @MockBean
+        KeysetPager keysetPager;
+
         @MockBean
         UserRepository userRepository;
 
@@ -140,14 +148,14 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                 ArrayList<UCSBDiningCommonsMenuItem> expectedDiningCommonsMenuItems = new ArrayList<>();
                 expectedDiningCommonsMenuItems.addAll(Arrays.asList(ucsbDiningCommonsMenuItem1, ucsbDiningCommonsMenuItem2));
 
-                when(ucsbDiningCommonsMenuItemRepository.findAll()).thenReturn(expectedDiningCommonsMenuItems);
+                when(ucsbDiningCommonsMenuItemRepository.streamAllBy()).thenReturn(expectedDiningCommonsMenuItems.stream());
 
                 // act
                 MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/all"))
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsMenuItemRepository, times(1)).findAll();
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).streamAllBy();
                 String expectedJson = mapper.writeValueAsString(expectedDiningCommonsMenuItems);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -181,13 +189,8 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
         @Test
         public void admin_can_delete_a_diningcommonsmenuitem() throws Exception {
                 // arrange
-                UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem1 = UCSBDiningCommonsMenuItem.builder()
-								.diningCommonsCode("Portola")
-                                .name("Carnitas")
-                                .station("International")
-                                .build();
 
-                when(ucsbDiningCommonsMenuItemRepository.findById(eq(15L))).thenReturn(Optional.of(ucsbDiningCommonsMenuItem1));
+                when(ucsbDiningCommonsMenuItemRepository.deleteRowById(eq(15L))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -196,8 +199,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsMenuItemRepository, times(1)).findById(15L);
-                verify(ucsbDiningCommonsMenuItemRepository, times(1)).delete(any());
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).deleteRowById(15L);
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDiningCommonsMenuItem with id 15 deleted", json.get("message"));
@@ -208,7 +210,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
         public void admin_tries_to_delete_non_existant_ucsbdiningcommonsmenuitem_and_gets_right_error_message()
                         throws Exception {
                 // arrange
-                when(ucsbDiningCommonsMenuItemRepository.findById(eq(15L))).thenReturn(Optional.empty());
+                when(ucsbDiningCommonsMenuItemRepository.deleteRowById(eq(15L))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -217,7 +219,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsMenuItemRepository, times(1)).findById(15L);
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).deleteRowById(15L);
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDiningCommonsMenuItem with id 15 not found", json.get("message"));
         }
@@ -225,11 +227,6 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
         @Test
         public void admin_can_edit_an_existing_ucsbdiningcommonsmenuitem() throws Exception {
                 // arrange
-                UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItemOrig = UCSBDiningCommonsMenuItem.builder()
-								.diningCommonsCode("De La Guerra")
-                                .name("Cage Free Scrambled Eggs (v)")
-                                .station("Grill (Cafe)")
-                                .build();
 
                 UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItemEdited = UCSBDiningCommonsMenuItem.builder()
 								.diningCommonsCode("Carillo")
@@ -239,7 +236,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
 
                 String requestBody = mapper.writeValueAsString(ucsbDiningCommonsMenuItemEdited);
 
-                when(ucsbDiningCommonsMenuItemRepository.findById(eq(67L))).thenReturn(Optional.of(ucsbDiningCommonsMenuItemOrig));
+                when(ucsbDiningCommonsMenuItemRepository.updateById(eq(67L), any())).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -251,10 +248,10 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsMenuItemRepository, times(1)).findById(67L);
-                verify(ucsbDiningCommonsMenuItemRepository, times(1)).save(ucsbDiningCommonsMenuItemEdited); // should be saved with correct user
+                ucsbDiningCommonsMenuItemEdited.setId(67L);
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).updateById(67L, ucsbDiningCommonsMenuItemEdited);
                 String responseString = response.getResponse().getContentAsString();
-                assertEquals(requestBody, responseString);
+                assertEquals(mapper.writeValueAsString(ucsbDiningCommonsMenuItemEdited), responseString);
         }
 
         @WithMockUser(roles = { "ADMIN", "USER" })
@@ -269,7 +266,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
 
                 String requestBody = mapper.writeValueAsString(ucsbEditedDiningCommonsMenuItem);
 
-                when(ucsbDiningCommonsMenuItemRepository.findById(eq(67L))).thenReturn(Optional.empty());
+                when(ucsbDiningCommonsMenuItemRepository.updateById(eq(67L), any())).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -281,8 +278,65 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(ucsbDiningCommonsMenuItemRepository, times(1)).findById(67L);
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).updateById(eq(67L), any());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBDiningCommonsMenuItem with id 67 not found", json.get("message"));
         }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_a_page_of_menu_items_sorted_by_name() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommonsMenuItem first = UCSBDiningCommonsMenuItem.builder().id(1L).build();
+                when(keysetPager.page(ucsbDiningCommonsMenuItemRepository, UCSBDiningCommonsMenuItem.class, Set.of("name"), "name,desc", "abc", 5))
+                                .thenReturn(new KeysetPage<>(List.of(first), null));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/page?sort=name,desc&cursor=abc&size=5"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                assertEquals(mapper.writeValueAsString(List.of(first)), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void regular_users_cannot_bulk_save_dining_commons_menu_items() throws Exception {
+                mockMvc.perform(post("/api/ucsbdiningcommonsmenuitem/bulk").with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_create_and_update_dining_commons_menu_items_from_ndjson() throws Exception {
+                when(ucsbDiningCommonsMenuItemRepository.findAllById(any())).thenReturn(List.of(UCSBDiningCommonsMenuItem.builder().id(7L).build()));
+
+                MvcResult response = mockMvc.perform(post("/api/ucsbdiningcommonsmenuitem/bulk").with(csrf())
+                                .contentType(MediaType.APPLICATION_NDJSON).content("{}\n{\"id\":7}\n"))
+                                .andExpect(status().isOk()).andReturn();
+
+                verify(ucsbDiningCommonsMenuItemRepository, times(1)).saveAll(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(1, json.get("created"));
+                assertEquals(1, json.get("updated"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void bulk_delete_of_a_missing_dining_commons_menu_item_deletes_nothing() throws Exception {
+                when(ucsbDiningCommonsMenuItemRepository.findAllById(any())).thenReturn(List.of(UCSBDiningCommonsMenuItem.builder().id(7L).build()));
+
+                MvcResult response = mockMvc.perform(delete("/api/ucsbdiningcommonsmenuitem/bulk").with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON).content("[7, 8]"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                verify(ucsbDiningCommonsMenuItemRepository, never()).deleteAll(any());
+                assertEquals(
+                                List.of(Map.of("index", 1, "message", "UCSBDiningCommonsMenuItem with id 8 not found")),
+                                responseToJson(response).get("errors"));
+        }
 }
@@ -5,10 +5,14 @@ import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.services.KeysetPager;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -34,6 +38,7 @@ import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import static org.mockito.Mockito.never;
 
 @WebMvcTest(controllers = UCSBOrganizationController.class)
 @Import(TestConfig.class)
@@ -42,6 +47,9 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
         @MockBean
         UCSBOrganizationRepository ucsbOrganizationRepository;
 
+        @MockBean
+        KeysetPager keysetPager;
+
         @MockBean
         UserRepository userRepository;
 
@@ -100,7 +108,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
                 ArrayList<UCSBOrganization> expectedUCSBOrganization = new ArrayList<>();
                 expectedUCSBOrganization.addAll(Arrays.asList(ucsbOrganization1, ucsbOrganization2));
 
-                when(ucsbOrganizationRepository.findAll()).thenReturn(expectedUCSBOrganization);
+                when(ucsbOrganizationRepository.streamAllBy()).thenReturn(expectedUCSBOrganization.stream());
 
                 // act
                 MvcResult response = mockMvc.perform(get("/api/ucsborganization/all"))
@@ -108,7 +116,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
 
                 // assert
 
-                verify(ucsbOrganizationRepository, times(1)).findAll();
+                verify(ucsbOrganizationRepository, times(1)).streamAllBy();
                 String expectedJson = mapper.writeValueAsString(expectedUCSBOrganization);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(expectedJson, responseString);
@@ -202,13 +210,6 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
         public void admin_can_edit_an_existing_ucsborganization() throws Exception {
                 // arrange
 
-                UCSBOrganization ucsbOrganizationOrig = UCSBOrganization.builder()
-                        .orgCode("ZPR")
-                        .orgTranslationShort("ZETA PHI RHO")
-                        .orgTranslation("ZETA PHI RHO")
-                        .inactive(true)
-                        .build();
-
                 UCSBOrganization ucsbOrganizationEdited = UCSBOrganization.builder()
                         .orgCode("ZPR")
                         .orgTranslationShort("SKYDIVING CLUB")
@@ -219,7 +220,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(ucsbOrganizationEdited);
 
-                when(ucsbOrganizationRepository.findById(eq("ZPR"))).thenReturn(Optional.of(ucsbOrganizationOrig));
+                when(ucsbOrganizationRepository.updateById(eq("ZPR"), any())).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -231,8 +232,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbOrganizationRepository, times(1)).findById("ZPR");
-                verify(ucsbOrganizationRepository, times(1)).save(ucsbOrganizationEdited); // should be saved with correct user
+                verify(ucsbOrganizationRepository, times(1)).updateById("ZPR", ucsbOrganizationEdited);
                 String responseString = response.getResponse().getContentAsString();
                 assertEquals(requestBody, responseString);
         }
@@ -252,7 +252,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
 
                 String requestBody = mapper.writeValueAsString(ucsbEditedOrganization);
 
-                when(ucsbOrganizationRepository.findById(eq("ZPR"))).thenReturn(Optional.empty());
+                when(ucsbOrganizationRepository.updateById(eq("ZPR"), any())).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -264,7 +264,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(ucsbOrganizationRepository, times(1)).findById("ZPR");
+                verify(ucsbOrganizationRepository, times(1)).updateById(eq("ZPR"), any());
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBOrganization with id ZPR not found", json.get("message"));
 
@@ -277,14 +277,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
         public void admin_can_delete_an_organization() throws Exception {
                 // arrange
 
-                UCSBOrganization ucsbOrganization1 = UCSBOrganization.builder()
-                        .orgCode("ZPR")
-                        .orgTranslationShort("ZETA PHI RHO")
-                        .orgTranslation("ZETA PHI RHO")
-                        .inactive(true)
-                        .build();
-
-                when(ucsbOrganizationRepository.findById(eq("ZPR"))).thenReturn(Optional.of(ucsbOrganization1));
+                when(ucsbOrganizationRepository.deleteRowById(eq("ZPR"))).thenReturn(1);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -293,8 +286,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
-                verify(ucsbOrganizationRepository, times(1)).findById("ZPR");
-                verify(ucsbOrganizationRepository, times(1)).delete(any());
+                verify(ucsbOrganizationRepository, times(1)).deleteRowById("ZPR");
 
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBOrganization with id ZPR deleted", json.get("message"));
@@ -306,7 +298,7 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
                         throws Exception {
                 // arrange
 
-                when(ucsbOrganizationRepository.findById(eq("ZPR"))).thenReturn(Optional.empty());
+                when(ucsbOrganizationRepository.deleteRowById(eq("ZPR"))).thenReturn(0);
 
                 // act
                 MvcResult response = mockMvc.perform(
@@ -315,9 +307,65 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
-                verify(ucsbOrganizationRepository, times(1)).findById("ZPR");
+                verify(ucsbOrganizationRepository, times(1)).deleteRowById("ZPR");
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("UCSBOrganization with id ZPR not found", json.get("message"));
         }
 
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_a_page_of_organizations_sorted_by_org_translation_short() throws Exception {
+
+                // arrange
+
+                UCSBOrganization first = UCSBOrganization.builder().orgCode("ZPR").build();
+                when(keysetPager.page(ucsbOrganizationRepository, UCSBOrganization.class, Set.of("orgTranslationShort"), "orgTranslationShort,desc", "abc", 5))
+                                .thenReturn(new KeysetPage<>(List.of(first), null));
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/ucsborganization/page?sort=orgTranslationShort,desc&cursor=abc&size=5"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                assertEquals(mapper.writeValueAsString(List.of(first)), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void regular_users_cannot_bulk_save_organizations() throws Exception {
+                mockMvc.perform(post("/api/ucsborganization/bulk").with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON).content("[]"))
+                                .andExpect(status().is(403));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void admin_can_bulk_create_and_update_organizations_from_ndjson() throws Exception {
+                when(ucsbOrganizationRepository.findAllById(any())).thenReturn(List.of(UCSBOrganization.builder().orgCode("ZPR").build()));
+
+                MvcResult response = mockMvc.perform(post("/api/ucsborganization/bulk").with(csrf())
+                                .contentType(MediaType.APPLICATION_NDJSON).content("{\"orgCode\":\"ZPR\"}\n{\"orgCode\":\"SKY\"}\n"))
+                                .andExpect(status().isOk()).andReturn();
+
+                verify(ucsbOrganizationRepository, times(1)).saveAll(any());
+                Map<String, Object> json = responseToJson(response);
+                assertEquals(1, json.get("created"));
+                assertEquals(1, json.get("updated"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void bulk_delete_of_a_missing_organization_deletes_nothing() throws Exception {
+                when(ucsbOrganizationRepository.findAllById(any())).thenReturn(List.of(UCSBOrganization.builder().orgCode("ZPR").build()));
+
+                MvcResult response = mockMvc.perform(delete("/api/ucsborganization/bulk").with(csrf())
+                                .contentType(MediaType.APPLICATION_JSON).content("[\"ZPR\", \"SKY\"]"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                verify(ucsbOrganizationRepository, never()).deleteAll(any());
+                assertEquals(
+                                List.of(Map.of("index", 1, "message", "UCSBOrganization with id SKY not found")),
+                                responseToJson(response).get("errors"));
+        }
 }
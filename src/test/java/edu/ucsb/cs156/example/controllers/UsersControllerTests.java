@@ -3,24 +3,34 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.AdminDirectory;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @WebMvcTest(controllers = UsersController.class)
 @Import(TestConfig.class)
@@ -29,6 +39,9 @@ public class UsersControllerTests extends ControllerTestCase {
   @MockBean
   UserRepository userRepository;
 
+  @MockBean
+  AdminDirectory adminDirectory;
+
   @Test
   public void users__logged_out() throws Exception {
     mockMvc.perform(get("/api/admin/users"))
@@ -70,4 +83,58 @@ public class UsersControllerTests extends ControllerTestCase {
     assertEquals(expectedJson, responseString);
 
   }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void admins__user_cannot_replace_admin_emails() throws Exception {
+    mockMvc.perform(put("/api/admin/users/admins").with(csrf())
+        .contentType(MediaType.APPLICATION_JSON).content("[\"me@ucsb.edu\"]"))
+        .andExpect(status().is(403));
+    verify(adminDirectory, never()).setAdminEmails(any());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void admins__admin_can_get_admin_emails() throws Exception {
+    when(adminDirectory.getAdminEmails()).thenReturn(Set.of("boss@ucsb.edu"));
+
+    mockMvc.perform(get("/api/admin/users/admins"))
+        .andExpect(status().isOk())
+        .andExpect(content().json("[\"boss@ucsb.edu\"]"));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void admins__admin_can_replace_admin_emails() throws Exception {
+    when(adminDirectory.getAdminEmails()).thenReturn(Set.of("new@ucsb.edu"));
+
+    mockMvc.perform(put("/api/admin/users/admins").with(csrf())
+        .contentType(MediaType.APPLICATION_JSON).content("[\"new@ucsb.edu\"]"))
+        .andExpect(status().isOk())
+        .andExpect(content().json("[\"new@ucsb.edu\"]"));
+
+    verify(adminDirectory, times(1)).setAdminEmails(List.of("new@ucsb.edu"));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void users_page__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/users/page"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void users_page__admin_logged_in_sorted_by_email() throws Exception {
+    User u1 = User.builder().id(1L).email("a@ucsb.edu").build();
+    when(userRepository.findBy(any(), any())).thenReturn(
+        Window.from(List.of(u1), i -> ScrollPosition.forward(Map.of("email", "a@ucsb.edu", "id", 1L)), false));
+
+    MvcResult response = mockMvc.perform(get("/api/admin/users/page?sort=email,desc"))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist("Link"))
+        .andReturn();
+
+    assertEquals(mapper.writeValueAsString(List.of(u1)), response.getResponse().getContentAsString());
+  }
 }
@@ -0,0 +1,217 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Writes UCSB dates through the /bulk endpoints against a real database, and reports the time and
+ * the number of JDBC statements for a bulk import compared with one request per row.
+ */
+@Slf4j
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@TestPropertySource(
+    properties = {
+      "logging.level.sql=INFO",
+      "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO",
+      "spring.jpa.properties.hibernate.generate_statistics=true"
+    })
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class BulkWriteIT {
+  private static final int ROWS = 2_000;
+
+  private static final LocalDateTime START = LocalDateTime.parse("2025-04-01T00:00:00");
+
+  @Autowired public MockMvc mockMvc;
+
+  @Autowired public ObjectMapper mapper;
+
+  @Autowired UCSBDateRepository ucsbDateRepository;
+
+  @Autowired EntityManagerFactory entityManagerFactory;
+
+  @MockBean UserRepository userRepository;
+
+  private String ndjson(List<UCSBDate> dates) {
+    return dates.stream()
+        .map(
+            date -> {
+              try {
+                return mapper.writeValueAsString(date);
+              } catch (Exception e) {
+                throw new IllegalStateException(e);
+              }
+            })
+        .collect(Collectors.joining("\n"));
+  }
+
+  private static List<UCSBDate> newDates(int count) {
+    return IntStream.range(0, count)
+        .mapToObj(
+            i ->
+                UCSBDate.builder()
+                    .quarterYYYYQ("20252")
+                    .name("day " + i)
+                    .localDateTime(START.plusDays(i))
+                    .build())
+        .toList();
+  }
+
+  private List<UCSBDate> all() {
+    return StreamSupport.stream(ucsbDateRepository.findAll().spliterator(), false).toList();
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void bulk_create_update_and_delete() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdates/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(ndjson(newDates(3))))
+        .andExpect(status().isOk())
+        .andExpect(content().json("{\"created\":3,\"updated\":0,\"deleted\":0,\"errors\":[]}"));
+    List<UCSBDate> created = all();
+    assertEquals(3, created.size());
+
+    UCSBDate renamed = created.get(0);
+    renamed.setName("renamed");
+    mockMvc
+        .perform(
+            post("/api/ucsbdates/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(List.of(renamed))))
+        .andExpect(status().isOk())
+        .andExpect(content().json("{\"created\":0,\"updated\":1}"));
+    assertEquals("renamed", ucsbDateRepository.findById(renamed.getId()).get().getName());
+
+    mockMvc
+        .perform(
+            delete("/api/ucsbdates/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[%d, %d]".formatted(created.get(1).getId(), created.get(2).getId())))
+        .andExpect(status().isOk())
+        .andExpect(content().json("{\"deleted\":2}"));
+    assertEquals(List.of(renamed), all());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void a_bad_row_means_nothing_is_written() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdates/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(ndjson(newDates(2)) + "\n{\"localDateTime\":\"not a date\"}\n"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.errors[0].index").value(2));
+
+    assertEquals(0, all().size());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void import_2000_dates_one_request_per_row_vs_bulk() throws Exception {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+    statistics.clear();
+    long start = System.nanoTime();
+    for (UCSBDate date : newDates(ROWS)) {
+      mockMvc
+          .perform(
+              post("/api/ucsbdates/post")
+                  .with(csrf())
+                  .param("quarterYYYYQ", date.getQuarterYYYYQ())
+                  .param("name", date.getName())
+                  .param("localDateTime", date.getLocalDateTime().toString()))
+          .andExpect(status().isOk());
+    }
+    report("one POST per row", start, statistics);
+    ucsbDateRepository.deleteAll();
+
+    statistics.clear();
+    start = System.nanoTime();
+    mockMvc
+        .perform(
+            post("/api/ucsbdates/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(ndjson(newDates(ROWS))))
+        .andExpect(status().isOk());
+    report("bulk create", start, statistics);
+
+    List<UCSBDate> dates = all();
+    dates.forEach(date -> date.setName(date.getName() + " (moved)"));
+    statistics.clear();
+    start = System.nanoTime();
+    mockMvc
+        .perform(
+            post("/api/ucsbdates/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(ndjson(dates)))
+        .andExpect(status().isOk());
+    report("bulk update", start, statistics);
+
+    statistics.clear();
+    start = System.nanoTime();
+    mockMvc
+        .perform(
+            delete("/api/ucsbdates/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(dates.stream().map(UCSBDate::getId).toList())))
+        .andExpect(status().isOk());
+    report("bulk delete", start, statistics);
+    assertEquals(0, all().size());
+  }
+
+  private void report(String name, long start, Statistics statistics) {
+    log.info(
+        "{} with {} rows: {}ms, {} transactions, {} JDBC statements prepared",
+        name,
+        ROWS,
+        (System.nanoTime() - start) / 1_000_000,
+        statistics.getTransactionCount(),
+        statistics.getPrepareStatementCount());
+  }
+}
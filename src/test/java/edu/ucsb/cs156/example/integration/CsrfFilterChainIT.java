@@ -0,0 +1,89 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.servlet.http.Cookie;
+import java.util.Arrays;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+/**
+ * Checks that the XSRF-TOKEN cookie is only issued to requests that lack it, and reports the
+ * latency of a GET through the whole filter chain with and without the cookie.
+ */
+@Slf4j
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@TestPropertySource(properties = "logging.level.sql=INFO")
+public class CsrfFilterChainIT {
+  private static final int REQUESTS = 5_000;
+
+  @Autowired public MockMvc mockMvc;
+
+  @MockBean UserRepository userRepository;
+
+  @Test
+  public void cookie_is_issued_once_and_then_left_alone() throws Exception {
+    MvcResult first =
+        mockMvc.perform(get("/api/systemInfo")).andExpect(status().isOk()).andReturn();
+    Cookie issued = first.getResponse().getCookie("XSRF-TOKEN");
+    assertNotNull(issued);
+
+    MvcResult second =
+        mockMvc
+            .perform(get("/api/systemInfo").cookie(issued))
+            .andExpect(status().isOk())
+            .andReturn();
+    assertNull(second.getResponse().getCookie("XSRF-TOKEN"));
+  }
+
+  @Test
+  public void filter_chain_latency() throws Exception {
+    Cookie cookie =
+        mockMvc.perform(get("/api/systemInfo")).andReturn().getResponse().getCookie("XSRF-TOKEN");
+
+    benchmark("GET without XSRF-TOKEN cookie", get("/api/systemInfo"));
+    benchmark("GET with XSRF-TOKEN cookie", get("/api/systemInfo").cookie(cookie));
+    benchmark("GET static file", get("/favicon.ico"));
+  }
+
+  private void benchmark(String name, RequestBuilder request) throws Exception {
+    // warm up the dispatcher and JIT before measuring
+    for (int i = 0; i < REQUESTS / 5; i++) {
+      mockMvc.perform(request);
+    }
+    long[] nanos = new long[REQUESTS];
+    for (int i = 0; i < REQUESTS; i++) {
+      long start = System.nanoTime();
+      mockMvc.perform(request);
+      nanos[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(nanos);
+    log.info(
+        "{}: p50={}us p99={}us over {} requests",
+        name,
+        nanos[REQUESTS / 2] / 1000,
+        nanos[REQUESTS * 99 / 100] / 1000,
+        REQUESTS);
+  }
+}
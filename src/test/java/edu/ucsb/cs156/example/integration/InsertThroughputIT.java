@@ -0,0 +1,122 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.repositories.MenuItemsReviewRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reports how fast entities with generated ids are inserted through JPA, and how many JDBC
+ * statements that takes, and checks that sequence-generated ids follow rows inserted with
+ * explicit ids.
+ */
+@Slf4j
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@TestPropertySource(
+    properties = {
+      "logging.level.sql=INFO",
+      "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO",
+      "spring.jpa.properties.hibernate.generate_statistics=true"
+    })
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class InsertThroughputIT {
+  private static final int ROWS = 20_000;
+  private static final int ROWS_PER_TRANSACTION = 1_000;
+
+  @Autowired MenuItemsReviewRepository menuItemsReviewRepository;
+
+  @Autowired TransactionTemplate transactionTemplate;
+
+  @Autowired EntityManagerFactory entityManagerFactory;
+
+  @Autowired JdbcTemplate jdbcTemplate;
+
+  @MockBean UserRepository userRepository;
+
+  private static List<MenuItemReview> reviews(int from, int count) {
+    LocalDateTime date = LocalDateTime.parse("2025-04-01T12:00:00");
+    return IntStream.range(from, from + count)
+        .mapToObj(
+            i ->
+                MenuItemReview.builder()
+                    .itemId((long) i % 500)
+                    .reviewerEmail("reviewer" + (i % 50) + "@ucsb.edu")
+                    .stars(i % 5 + 1)
+                    .dateReviewed(date.plusMinutes(i))
+                    .comments("Comment number " + i + " about the food at this dining common")
+                    .build())
+        .toList();
+  }
+
+  @Test
+  public void insert_20k_menu_item_reviews() {
+    // warm up the JIT and the statement cache before measuring
+    transactionTemplate.executeWithoutResult(
+        status -> menuItemsReviewRepository.saveAll(reviews(0, ROWS_PER_TRANSACTION)));
+    menuItemsReviewRepository.deleteAll();
+
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    long start = System.nanoTime();
+    for (int from = 0; from < ROWS; from += ROWS_PER_TRANSACTION) {
+      List<MenuItemReview> batch = reviews(from, ROWS_PER_TRANSACTION);
+      transactionTemplate.executeWithoutResult(status -> menuItemsReviewRepository.saveAll(batch));
+    }
+    long millis = (System.nanoTime() - start) / 1_000_000;
+
+    log.info(
+        "JPA insert of {} rows in transactions of {}: {}ms ({} rows/s), {} JDBC statements prepared",
+        ROWS,
+        ROWS_PER_TRANSACTION,
+        millis,
+        ROWS * 1000L / Math.max(1, millis),
+        statistics.getPrepareStatementCount());
+    assertEquals(ROWS, menuItemsReviewRepository.count());
+  }
+
+  @Test
+  public void generated_ids_follow_rows_inserted_with_explicit_ids() {
+    jdbcTemplate.update(
+        "INSERT INTO MENUITEMREVIEWS (ID, ITEM_ID, REVIEWER_EMAIL, STARS, DATE_REVIEWED, COMMENTS)"
+            + " VALUES (1000, 1, 'cgaucho@ucsb.edu', 5, CURRENT_TIMESTAMP, 'Good')");
+    jdbcTemplate.execute(
+        "ALTER SEQUENCE MENUITEMREVIEWS_SEQ RESTART WITH"
+            + " (SELECT COALESCE(MAX(ID), 0) + 1 FROM MENUITEMREVIEWS)");
+
+    menuItemsReviewRepository.saveAll(reviews(0, 60));
+
+    List<Long> ids =
+        StreamSupport.stream(menuItemsReviewRepository.findAll().spliterator(), false)
+            .map(MenuItemReview::getId)
+            .sorted()
+            .toList();
+    assertEquals(LongStream.rangeClosed(1000, 1060).boxed().toList(), ids);
+  }
+}
@@ -0,0 +1,381 @@
+package edu.ucsb.cs156.example.integration;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogArchive;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.models.JobPurgeReport;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.repositories.JobLogArchivesRepository;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.jobs.JobLogArchiver;
+import edu.ucsb.cs156.example.services.jobs.JobLogBuffer;
+import edu.ucsb.cs156.example.services.jobs.JobRetentionService;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+import org.springframework.data.domain.PageRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class JobsIT {
+  @Autowired public MockMvc mockMvc;
+
+  @Autowired public ObjectMapper mapper;
+
+  @Autowired JobsRepository jobsRepository;
+
+  @Autowired JobLogLinesRepository jobLogLinesRepository;
+
+  @Autowired JobLogArchivesRepository jobLogArchivesRepository;
+
+  @Autowired JobService jobService;
+
+  @Autowired JobLogArchiver jobLogArchiver;
+
+  @Autowired JdbcTemplate jdbcTemplate;
+
+  @MockBean UserRepository userRepository;
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_launch_test_job_and_read_its_log() throws Exception {
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=0").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+    Job job = mapper.readValue(response.getResponse().getContentAsString(), Job.class);
+
+    // assert
+    await()
+        .atMost(10, SECONDS)
+        .untilAsserted(
+            () -> {
+              assertEquals("complete", jobsRepository.findById(job.getId()).get().getStatus());
+              // the finished log has been moved into a compressed archive
+              assertEquals(0, jobLogLinesRepository.countByJobId(job.getId()));
+              assertEquals(
+                  2, jobLogArchivesRepository.findLineCountByJobId(job.getId()).orElse(0));
+            });
+
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", job.getId()))
+        .andExpect(status().isOk())
+        .andExpect(content().string("Hello World! from test job!\nGoodbye from test job!"));
+
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", job.getId()).header("Range", "lines=-1"))
+        .andExpect(status().isPartialContent())
+        .andExpect(content().string("Goodbye from test job!"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void a_slice_of_an_archived_log_is_read_from_its_chunks() throws Exception {
+    // arrange
+    int count = JobLogArchiver.CHUNK_LINES * 3 + 5;
+    Job job = jobsRepository.save(Job.builder().status("complete").build());
+    jobLogLinesRepository.saveAll(
+        IntStream.range(0, count)
+            .mapToObj(
+                i -> JobLogLine.builder().jobId(job.getId()).lineNumber(i).message("line " + i).build())
+            .toList());
+    jobLogArchiver.archive(job.getId());
+    assertEquals(0, jobLogLinesRepository.countByJobId(job.getId()));
+
+    // act & assert
+    int first = JobLogArchiver.CHUNK_LINES * 2 - 1;
+    mockMvc
+        .perform(
+            get("/api/jobs/logs/{id}", job.getId())
+                .header("Range", "lines=%d-%d".formatted(first, first + 2)))
+        .andExpect(status().isPartialContent())
+        .andExpect(
+            header().string("Content-Range", "lines %d-%d/%d".formatted(first, first + 2, count)))
+        .andExpect(
+            content()
+                .string("line %d\nline %d\nline %d".formatted(first, first + 1, first + 2)));
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}?tail=2", job.getId()))
+        .andExpect(status().isOk())
+        .andExpect(content().string("line %d\nline %d".formatted(count - 2, count - 1)));
+
+    // the chunks still join into one gzip stream for clients that accept it
+    byte[] gzipped =
+        mockMvc
+            .perform(get("/api/jobs/logs/{id}", job.getId()).header("Accept-Encoding", "gzip"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Encoding", "gzip"))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+      String log = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+      assertEquals(count, log.split("\n", -1).length);
+      assertTrue(log.endsWith("line " + (count - 1)));
+    }
+  }
+
+  @Test
+  public void log_lines_whose_first_write_failed_are_written_on_retry() {
+    // arrange
+    long jobId = jobsRepository.save(Job.builder().status("running").build()).getId();
+    // a buffer of its own, so that the scheduled flush does not retry in between
+    JobLogBuffer jobLogBuffer =
+        new JobLogBuffer(jobLogLinesRepository, new SimpleMeterRegistry(), 100, 100, 60_000);
+    jdbcTemplate.execute(
+        "ALTER TABLE JOB_LOG_LINES ADD CONSTRAINT REJECT_ALL CHECK (LINE_NUMBER < 0)");
+    jobLogBuffer.append(JobLogLine.builder().jobId(jobId).lineNumber(0).message("first").build());
+    jobLogBuffer.append(JobLogLine.builder().jobId(jobId).lineNumber(1).message("second").build());
+    jobLogBuffer.flush(jobId);
+    assertEquals(0, jobLogLinesRepository.countByJobId(jobId));
+    assertEquals(2, jobLogBuffer.getBufferedLineCount());
+
+    // act
+    jdbcTemplate.execute("ALTER TABLE JOB_LOG_LINES DROP CONSTRAINT REJECT_ALL");
+    jobLogBuffer.close(jobId);
+
+    // assert
+    assertEquals(0, jobLogBuffer.getBufferedLineCount());
+    assertEquals(
+        List.of("first", "second"),
+        jobLogLinesRepository.findAllByJobIdOrderByLineNumberAsc(jobId).stream()
+            .map(JobLogLine::getMessage)
+            .toList());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void job_with_expired_lease_is_claimed_once_and_run_again() throws Exception {
+    // arrange
+    ZonedDateTime now = ZonedDateTime.now();
+    Job orphan =
+        Job.builder()
+            .status("running")
+            .jobType(TestJob.class.getName())
+            .params("{\"fail\":false,\"sleepMs\":0}")
+            .leaseOwner("instance-that-died")
+            .leaseExpiresAt(now.minusMinutes(1))
+            .attempts(1)
+            .build();
+    jobsRepository.save(orphan);
+    Job other =
+        Job.builder()
+            .status("running")
+            .leaseOwner("instance-that-died")
+            .leaseExpiresAt(now.minusMinutes(1))
+            .attempts(1)
+            .build();
+    jobsRepository.save(other);
+
+    // the conditional update only lets one claimant win
+    assertEquals(1, jobsRepository.claimExpiredLease(other.getId(), "a", now.plusMinutes(1), now));
+    assertEquals(0, jobsRepository.claimExpiredLease(other.getId(), "b", now.plusMinutes(1), now));
+    jobsRepository.renewLeases(List.of(other.getId()), "a", now.minusSeconds(1));
+
+    // act
+    jobService.recoverExpiredJobs();
+
+    // assert
+    await()
+        .atMost(10, SECONDS)
+        .untilAsserted(
+            () -> assertEquals("complete", jobsRepository.findById(orphan.getId()).get().getStatus()));
+    Job resumed = jobsRepository.findById(orphan.getId()).get();
+    assertEquals(2, resumed.getAttempts());
+    assertNull(resumed.getLeaseOwner());
+    assertEquals(
+        "Hello World! from test job!\nGoodbye from test job!", jobService.getJobLogs(orphan.getId()));
+
+    Job abandoned = jobsRepository.findById(other.getId()).get();
+    assertEquals("error", abandoned.getStatus());
+    assertEquals(3, abandoned.getAttempts());
+    assertEquals(
+        "Job was interrupted and cannot be resumed (attempt 3)",
+        jobService.getJobLogs(other.getId()));
+  }
+
+  @Test
+  public void job_summaries_are_filtered_and_paged_by_id() throws Exception {
+    // arrange
+    Job first = jobsRepository.save(Job.builder().status("complete").log("x").build());
+    Job second = jobsRepository.save(Job.builder().status("error").build());
+    Job third = jobsRepository.save(Job.builder().status("complete").build());
+    assertNotNull(first.getCreatedAt());
+
+    // act
+    List<JobSummary> page1 =
+        jobsRepository.findSummaries(null, null, null, null, null, PageRequest.ofSize(2));
+    List<JobSummary> page2 =
+        jobsRepository.findSummaries(
+            null, null, null, null, page1.get(1).getId(), PageRequest.ofSize(2));
+    List<JobSummary> complete =
+        jobsRepository.findSummaries(
+            "complete",
+            null,
+            first.getCreatedAt().minusMinutes(1),
+            ZonedDateTime.now().plusMinutes(1),
+            null,
+            PageRequest.ofSize(10));
+    List<JobSummary> none =
+        jobsRepository.findSummaries(
+            null, 42L, null, first.getCreatedAt().minusMinutes(1), null, PageRequest.ofSize(10));
+
+    // assert
+    assertEquals(List.of(third.getId(), second.getId()), page1.stream().map(JobSummary::getId).toList());
+    assertEquals(List.of(first.getId()), page2.stream().map(JobSummary::getId).toList());
+    assertEquals(List.of(third.getId(), first.getId()), complete.stream().map(JobSummary::getId).toList());
+    assertEquals(List.of(), none);
+  }
+
+  @Test
+  public void a_status_filtered_page_is_read_from_the_status_index() {
+    String plan =
+        jdbcTemplate.queryForObject(
+            "EXPLAIN SELECT ID, STATUS FROM JOBS WHERE STATUS = 'complete' AND ID < 100"
+                + " ORDER BY ID DESC FETCH FIRST 10 ROWS ONLY",
+            String.class);
+
+    // both conditions are index conditions, so only this status's rows below the cursor are read
+    assertTrue(plan.contains("JOBS_STATUS_ID_IDX: STATUS = 'complete'"), plan);
+    assertTrue(plan.contains("AND ID <"), plan);
+  }
+
+  @Test
+  public void retention_deletes_old_finished_jobs_with_their_logs() throws Exception {
+    // arrange
+    Job oldest = jobsRepository.save(Job.builder().status("complete").build());
+    Job old = jobsRepository.save(Job.builder().status("error").build());
+    Job running = jobsRepository.save(Job.builder().status("running").build());
+    Job newest = jobsRepository.save(Job.builder().status("complete").build());
+    jobLogLinesRepository.save(
+        JobLogLine.builder().jobId(oldest.getId()).lineNumber(0).message("gone").build());
+    jobLogArchivesRepository.save(
+        JobLogArchive.builder().jobId(old.getId()).lineCount(1).content(new byte[] {1}).build());
+    JobRetentionService keepNewest =
+        new JobRetentionService(jobsRepository, new SimpleMeterRegistry(), 0, 1, 1);
+
+    // act
+    JobPurgeReport report = keepNewest.purge();
+
+    // assert
+    assertEquals(2, report.getDeleted());
+    assertEquals(1, report.getSkipped());
+    assertEquals(
+        List.of(running.getId(), newest.getId()),
+        StreamSupport.stream(jobsRepository.findAll().spliterator(), false).map(Job::getId).toList());
+    assertEquals(0, jobLogLinesRepository.countByJobId(oldest.getId()));
+    assertEquals(Optional.empty(), jobLogArchivesRepository.findById(old.getId()));
+
+    JobPurgeReport deleteAll = keepNewest.deleteAll();
+    assertEquals(1, deleteAll.getDeleted());
+    assertEquals(1, deleteAll.getSkipped());
+    assertEquals(
+        List.of(running.getId()),
+        StreamSupport.stream(jobsRepository.findAll().spliterator(), false).map(Job::getId).toList());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void finishing_a_job_leaves_columns_written_by_others_alone() throws Exception {
+    // arrange
+    CountDownLatch launched = new CountDownLatch(1);
+    AtomicReference<Job> launchedJob = new AtomicReference<>();
+
+    // act
+    Job job =
+        jobService.runAsJob(
+            ctx -> {
+              launched.await();
+              ctx.progress(70);
+              // an admin asks to cancel just as the job ends
+              jobsRepository.requestCancel(launchedJob.get().getId());
+            });
+    launchedJob.set(job);
+    launched.countDown();
+
+    // assert
+    await()
+        .atMost(10, SECONDS)
+        .untilAsserted(
+            () -> assertEquals("complete", jobsRepository.findById(job.getId()).get().getStatus()));
+    Job finished = jobsRepository.findById(job.getId()).get();
+    assertEquals(70, finished.getProgress());
+    assertTrue(finished.getCancelRequested());
+    assertNull(finished.getLeaseOwner());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_cancel_a_running_job() throws Exception {
+    // arrange
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=30000").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+    Job job = mapper.readValue(response.getResponse().getContentAsString(), Job.class);
+    await()
+        .atMost(10, SECONDS)
+        .untilAsserted(
+            () -> assertEquals(50, jobsRepository.findById(job.getId()).get().getProgress()));
+
+    // act
+    mockMvc
+        .perform(post("/api/jobs/cancel?id={id}", job.getId()).with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    await()
+        .atMost(5, SECONDS)
+        .untilAsserted(
+            () -> assertEquals("cancelled", jobsRepository.findById(job.getId()).get().getStatus()));
+    assertEquals(
+        "Hello World! from test job!\nJob cancelled by an administrator",
+        jobService.getJobLogs(job.getId()));
+  }
+}
@@ -0,0 +1,201 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * Walks the /page endpoint of a CRUD controller against a real table, and reports the latency of
+ * /all and of pages near the start and the end of a large table.
+ */
+@Slf4j
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@TestPropertySource(properties = "logging.level.sql=INFO")
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class KeysetPaginationIT {
+  private static final int ROWS = 20_000;
+  private static final int REQUESTS = 100;
+
+  @Autowired public MockMvc mockMvc;
+
+  @Autowired public ObjectMapper mapper;
+
+  @Autowired JdbcTemplate jdbcTemplate;
+
+  @MockBean UserRepository userRepository;
+
+  private void insertRestaurants(int count) {
+    List<Object[]> batch = new ArrayList<>();
+    for (long i = 1; i <= count; i++) {
+      // names repeat, so the id has to break ties; every 10th name is missing
+      batch.add(new Object[] {i, i % 10 == 0 ? null : "Restaurant " + (i % 37), "Description " + i});
+    }
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO RESTAURANTS (ID, NAME, DESCRIPTION) VALUES (?, ?, ?)", batch);
+    jdbcTemplate.execute("ALTER SEQUENCE RESTAURANTS_SEQ RESTART WITH " + (count + 1));
+  }
+
+  /** Follows the Link headers from the given URL, returning every row seen. */
+  private List<Restaurant> walk(String url) throws Exception {
+    List<Restaurant> seen = new ArrayList<>();
+    String next = url;
+    while (next != null) {
+      MvcResult response = mockMvc.perform(get(next)).andExpect(status().isOk()).andReturn();
+      seen.addAll(
+          mapper.readValue(
+              response.getResponse().getContentAsString(), new TypeReference<List<Restaurant>>() {}));
+      String link = response.getResponse().getHeader("Link");
+      next = link == null ? null : link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+    }
+    return seen;
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void pages_by_id_cover_every_row_once() throws Exception {
+    insertRestaurants(250);
+
+    List<Restaurant> seen = walk("/api/restaurants/page?size=60");
+
+    assertEquals(250, seen.size());
+    for (int i = 0; i < seen.size(); i++) {
+      assertEquals(i + 1, seen.get(i).getId());
+    }
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void pages_by_name_descending_skip_null_names_and_keep_the_order() throws Exception {
+    insertRestaurants(250);
+
+    List<Restaurant> seen = walk("/api/restaurants/page?sort=name,desc&size=7");
+
+    assertEquals(225, seen.size());
+    assertEquals(225, seen.stream().map(Restaurant::getId).distinct().count());
+    List<Restaurant> sorted = new ArrayList<>(seen);
+    sorted.sort(
+        Comparator.comparing(Restaurant::getName)
+            .thenComparing(Restaurant::getId)
+            .reversed());
+    assertEquals(sorted, seen);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_cursor_only_works_with_its_sort() throws Exception {
+    insertRestaurants(20);
+    String cursor =
+        mockMvc
+            .perform(get("/api/restaurants/page?sort=name&size=5"))
+            .andReturn()
+            .getResponse()
+            .getHeader("X-Next-Cursor");
+
+    mockMvc
+        .perform(get("/api/restaurants/page?sort=name,desc&size=5&cursor=" + cursor))
+        .andExpect(status().isBadRequest());
+    mockMvc
+        .perform(get("/api/restaurants/page?sort=name&size=5&cursor=" + cursor))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  public void page_by_name_uses_the_name_index() {
+    String plan =
+        jdbcTemplate.queryForObject(
+            "EXPLAIN SELECT * FROM RESTAURANTS WHERE NAME IS NOT NULL AND"
+                + " (NAME > 'Restaurant 5' OR (NAME = 'Restaurant 5' AND ID > 100))"
+                + " ORDER BY NAME, ID FETCH FIRST 101 ROWS ONLY",
+            String.class);
+
+    assertTrue(plan.contains("RESTAURANTS_NAME_IDX"), plan);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void latency_of_all_and_of_pages_with_20k_rows() throws Exception {
+    insertRestaurants(ROWS);
+    MvcResult first =
+        mockMvc.perform(get("/api/restaurants/page?sort=name&size=100")).andReturn();
+    assertTrue(first.getResponse().getHeader("Link") != null);
+    // 18,000 rows have a name; skip all but the last 1,000 of them
+    String deepCursor = "";
+    for (int i = 0; i < 17; i++) {
+      deepCursor =
+          mockMvc
+              .perform(get("/api/restaurants/page?sort=name&size=1000&cursor=" + deepCursor))
+              .andReturn()
+              .getResponse()
+              .getHeader("X-Next-Cursor");
+    }
+
+    benchmark("GET /all", "/api/restaurants/all");
+    benchmark("GET /page first 100 by id", "/api/restaurants/page?size=100");
+    benchmark("GET /page first 100 by name", "/api/restaurants/page?sort=name&size=100");
+    benchmark(
+        "GET /page 100 by name near the end",
+        "/api/restaurants/page?sort=name&size=100&cursor=" + deepCursor);
+    assertNull(
+        mockMvc
+            .perform(get("/api/restaurants/page?sort=name&size=1000&cursor=" + deepCursor))
+            .andReturn()
+            .getResponse()
+            .getHeader("X-Next-Cursor"));
+  }
+
+  private void benchmark(String name, String url) throws Exception {
+    // warm up the dispatcher, statement cache and JIT before measuring
+    for (int i = 0; i < REQUESTS / 5; i++) {
+      mockMvc.perform(get(url)).andExpect(status().isOk());
+    }
+    long[] nanos = new long[REQUESTS];
+    int bytes = 0;
+    for (int i = 0; i < REQUESTS; i++) {
+      long start = System.nanoTime();
+      MvcResult response = mockMvc.perform(get(url)).andReturn();
+      nanos[i] = System.nanoTime() - start;
+      bytes = response.getResponse().getContentAsByteArray().length;
+    }
+    Arrays.sort(nanos);
+    log.info(
+        "{} with {} rows: {} bytes p50={}us p99={}us",
+        name,
+        ROWS,
+        bytes,
+        nanos[REQUESTS / 2] / 1000,
+        nanos[REQUESTS * 99 / 100] / 1000);
+  }
+}
@@ -0,0 +1,142 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Checks which responses Tomcat compresses, and reports bytes on the wire and latency for JSON
+ * arrays of several sizes with and without gzip. Goes over a real port because MockMvc bypasses
+ * the container's compression.
+ */
+@Slf4j
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("integration")
+@Import({TestConfig.class, ResponseCompressionIT.PayloadController.class})
+public class ResponseCompressionIT {
+  private static final int REQUESTS = 500;
+
+  @LocalServerPort int port;
+
+  @MockBean UserRepository userRepository;
+
+  private final HttpClient client = HttpClient.newHttpClient();
+
+  /** Stands in for the /all endpoints: a JSON array of entity-sized rows. */
+  @RestController
+  static class PayloadController {
+    @GetMapping("/test/compression/items")
+    public List<Map<String, Object>> items(@RequestParam int count) {
+      return IntStream.range(0, count)
+          .mapToObj(
+              i ->
+                  Map.<String, Object>of(
+                      "id", i,
+                      "reviewerEmail", "reviewer" + (i % 50) + "@ucsb.edu",
+                      "stars", i % 5 + 1,
+                      "dateReviewed", "2025-04-%02dT12:00:00".formatted(i % 28 + 1),
+                      "comments", "Comment number " + i + " about the food at this dining common"))
+          .toList();
+    }
+
+    @GetMapping(value = "/test/compression/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<String> events() {
+      return ResponseEntity.ok("data: line\n\n".repeat(1000));
+    }
+  }
+
+  private HttpResponse<byte[]> get(String path, String acceptEncoding) throws Exception {
+    HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+    if (acceptEncoding != null) {
+      request.header("Accept-Encoding", acceptEncoding);
+    }
+    return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+  }
+
+  private static String encoding(HttpResponse<?> response) {
+    return response.headers().firstValue("Content-Encoding").orElse("identity");
+  }
+
+  @Test
+  public void large_json_is_gzipped_only_when_accepted() throws Exception {
+    HttpResponse<byte[]> plain = get("/test/compression/items?count=100", null);
+    HttpResponse<byte[]> gzipped = get("/test/compression/items?count=100", "gzip, deflate, br");
+
+    assertEquals(200, gzipped.statusCode());
+    assertEquals("identity", encoding(plain));
+    assertEquals("gzip", encoding(gzipped));
+    assertTrue(gzipped.headers().firstValue("Vary").orElse("").equalsIgnoreCase("accept-encoding"));
+    assertTrue(gzipped.body().length * 4 < plain.body().length);
+  }
+
+  @Test
+  public void small_json_is_sent_as_is() throws Exception {
+    assertEquals("identity", encoding(get("/test/compression/items?count=1", "gzip")));
+  }
+
+  @Test
+  public void event_streams_are_never_compressed() throws Exception {
+    HttpResponse<byte[]> response = get("/test/compression/events", "gzip");
+
+    assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/event-stream"));
+    assertEquals("identity", encoding(response));
+  }
+
+  @Test
+  public void bytes_on_wire_and_latency() throws Exception {
+    for (int count : new int[] {10, 100, 1_000, 10_000}) {
+      String path = "/test/compression/items?count=" + count;
+      for (String acceptEncoding : new String[] {null, "gzip"}) {
+        int requests = count >= 10_000 ? REQUESTS / 5 : REQUESTS;
+        // warm up the connection and JIT before measuring
+        for (int i = 0; i < requests / 5; i++) {
+          get(path, acceptEncoding);
+        }
+        long[] nanos = new long[requests];
+        int bytes = 0;
+        for (int i = 0; i < requests; i++) {
+          long start = System.nanoTime();
+          HttpResponse<byte[]> response = get(path, acceptEncoding);
+          nanos[i] = System.nanoTime() - start;
+          bytes = response.body().length;
+        }
+        Arrays.sort(nanos);
+        log.info(
+            "{} items, {}: {} bytes p50={}us p99={}us over {} requests",
+            count,
+            acceptEncoding == null ? "identity" : acceptEncoding,
+            bytes,
+            nanos[requests / 2] / 1000,
+            nanos[requests * 99 / 100] / 1000,
+            requests);
+        assertFalse(bytes == 0);
+      }
+    }
+  }
+}
@@ -0,0 +1,185 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Checks that the PUT and DELETE endpoints write a row with a single UPDATE or DELETE statement
+ * against a real database, and answer 404 when no row was affected.
+ */
+@Slf4j
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@TestPropertySource(
+    properties = {
+      "logging.level.sql=INFO",
+      "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO",
+      "spring.jpa.properties.hibernate.generate_statistics=true"
+    })
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class SingleStatementWriteIT {
+  private static final int ROWS = 500;
+
+  @Autowired public MockMvc mockMvc;
+
+  @Autowired public ObjectMapper mapper;
+
+  @Autowired UCSBDateRepository ucsbDateRepository;
+
+  @Autowired UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  @Autowired EntityManagerFactory entityManagerFactory;
+
+  @MockBean UserRepository userRepository;
+
+  private Statistics statistics() {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+    return statistics;
+  }
+
+  private static UCSBDate date(String name) {
+    return UCSBDate.builder()
+        .quarterYYYYQ("20252")
+        .name(name)
+        .localDateTime(LocalDateTime.parse("2025-04-01T00:00:00"))
+        .build();
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void put_and_delete_a_date_with_one_statement_each() throws Exception {
+    UCSBDate saved = ucsbDateRepository.save(date("first day"));
+    UCSBDate edited = date("last day");
+
+    Statistics statistics = statistics();
+    mockMvc
+        .perform(
+            put("/api/ucsbdates?id=" + saved.getId())
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(edited)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.id").value(saved.getId()))
+        .andExpect(jsonPath("$.name").value("last day"));
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals("last day", ucsbDateRepository.findById(saved.getId()).get().getName());
+
+    statistics = statistics();
+    mockMvc
+        .perform(delete("/api/ucsbdates?id=" + saved.getId()).with(csrf()))
+        .andExpect(status().isOk());
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertTrue(ucsbDateRepository.findById(saved.getId()).isEmpty());
+
+    mockMvc
+        .perform(delete("/api/ucsbdates?id=" + saved.getId()).with(csrf()))
+        .andExpect(status().isNotFound())
+        .andExpect(
+            jsonPath("$.message").value("UCSBDate with id %d not found".formatted(saved.getId())));
+    mockMvc
+        .perform(
+            put("/api/ucsbdates?id=" + saved.getId())
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(edited)))
+        .andExpect(status().isNotFound());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void put_and_delete_an_organization_by_its_code() throws Exception {
+    ucsbOrganizationRepository.save(
+        UCSBOrganization.builder()
+            .orgCode("ZPR")
+            .orgTranslationShort("ZETA PHI RHO")
+            .orgTranslation("ZETA PHI RHO")
+            .inactive(true)
+            .build());
+    UCSBOrganization edited =
+        UCSBOrganization.builder()
+            .orgCode("IGNORED")
+            .orgTranslationShort("SKYDIVING CLUB")
+            .orgTranslation("SKYDIVING CLUB AT UCSB")
+            .inactive(false)
+            .build();
+
+    mockMvc
+        .perform(
+            put("/api/ucsborganization?orgCode=ZPR")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(edited)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.orgCode").value("ZPR"));
+    UCSBOrganization updated = ucsbOrganizationRepository.findById("ZPR").get();
+    assertEquals("SKYDIVING CLUB AT UCSB", updated.getOrgTranslation());
+    assertEquals(false, updated.getInactive());
+
+    mockMvc
+        .perform(delete("/api/ucsborganization?orgCode=ZPR").with(csrf()))
+        .andExpect(status().isOk());
+    assertEquals(0, ucsbOrganizationRepository.count());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void edit_500_dates_one_request_each() throws Exception {
+    List<UCSBDate> dates = IntStream.range(0, ROWS).mapToObj(i -> date("day " + i)).toList();
+    ucsbDateRepository.saveAll(dates);
+
+    Statistics statistics = statistics();
+    long start = System.nanoTime();
+    for (UCSBDate date : dates) {
+      mockMvc
+          .perform(
+              put("/api/ucsbdates?id=" + date.getId())
+                  .with(csrf())
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content(mapper.writeValueAsString(date("moved " + date.getId()))))
+          .andExpect(status().isOk());
+    }
+    log.info(
+        "PUT of {} dates: {}ms, {} JDBC statements prepared",
+        ROWS,
+        (System.nanoTime() - start) / 1_000_000,
+        statistics.getPrepareStatementCount());
+    assertEquals(ROWS, statistics.getPrepareStatementCount());
+  }
+}
@@ -0,0 +1,123 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import edu.ucsb.cs156.example.config.CookieAuthorizationRequestRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.SessionTokenService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.servlet.http.Cookie;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+      "app.session.stateless=true",
+      "app.session.token.secret=integration-test-secret-0123456789"
+    })
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+public class StatelessSessionIT {
+  @Autowired public MockMvc mockMvc;
+
+  @Autowired SessionTokenService sessionTokenService;
+
+  @MockBean UserRepository userRepository;
+
+  private Cookie sessionCookie(String... roles) {
+    List<GrantedAuthority> authorities =
+        List.of(roles).stream().map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role)).toList();
+    DefaultOAuth2User principal =
+        new DefaultOAuth2User(
+            authorities, Map.of("sub", "12345", "email", "admingaucho@ucsb.edu"), "sub");
+    String token =
+        sessionTokenService.issue(
+            new OAuth2AuthenticationToken(principal, authorities, "my-oauth-provider"));
+    return new Cookie("SESSION_TOKEN", token);
+  }
+
+  @Test
+  public void signed_cookie_authenticates_without_a_session() throws Exception {
+    MvcResult result =
+        mockMvc
+            .perform(get("/api/admin/users/admins").cookie(sessionCookie("ROLE_USER", "ROLE_ADMIN")))
+            .andExpect(status().isOk())
+            .andExpect(content().json("[\"admingaucho@ucsb.edu\"]"))
+            .andReturn();
+
+    assertNull(result.getRequest().getSession(false));
+  }
+
+  @Test
+  public void roles_come_from_the_cookie() throws Exception {
+    mockMvc
+        .perform(get("/api/admin/users/admins").cookie(sessionCookie("ROLE_USER")))
+        .andExpect(status().isForbidden());
+  }
+
+  @Test
+  public void forged_cookie_is_deleted_and_ignored() throws Exception {
+    Cookie cookie = sessionCookie("ROLE_USER");
+    Cookie forged =
+        new Cookie("SESSION_TOKEN", cookie.getValue().replaceFirst("\\.", ".x"));
+
+    MvcResult result =
+        mockMvc
+            .perform(get("/api/admin/users/admins").cookie(forged))
+            .andExpect(status().isForbidden())
+            .andReturn();
+
+    String setCookie = result.getResponse().getHeader("Set-Cookie");
+    assertTrue(setCookie.startsWith("SESSION_TOKEN=;"), setCookie);
+    assertTrue(setCookie.contains("Max-Age=0"), setCookie);
+  }
+
+  @Test
+  public void login_redirect_keeps_the_authorization_request_in_a_cookie() throws Exception {
+    MvcResult result =
+        mockMvc
+            .perform(get("/oauth2/authorization/my-oauth-provider"))
+            .andExpect(status().is3xxRedirection())
+            .andReturn();
+
+    assertNull(result.getRequest().getSession(false));
+    Cookie authorizationRequest = result.getResponse().getCookie("OAUTH2_AUTH_REQUEST");
+    assertNotNull(authorizationRequest);
+    assertTrue(sessionTokenService.unsign(authorizationRequest.getValue()).isPresent());
+    assertEquals(300, authorizationRequest.getMaxAge());
+
+    // the callback can rebuild the request from the cookie alone
+    MockHttpServletRequest callback = new MockHttpServletRequest();
+    callback.setCookies(authorizationRequest);
+    OAuth2AuthorizationRequest loaded =
+        new CookieAuthorizationRequestRepository(sessionTokenService)
+            .loadAuthorizationRequest(callback);
+    assertEquals(result.getResponse().getRedirectedUrl(), loaded.getAuthorizationRequestUri());
+    assertEquals("my-oauth-provider", loaded.getAttribute("registration_id"));
+  }
+}
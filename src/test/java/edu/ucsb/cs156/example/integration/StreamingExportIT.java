@@ -0,0 +1,255 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import edu.ucsb.cs156.example.controllers.MenuItemReviewsController;
+import edu.ucsb.cs156.example.repositories.MenuItemsReviewRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Checks that the /all endpoints stream rows, and reports the heap retained while exporting a large
+ * table with the streaming endpoint and with the old findAll() list. The export is written to a
+ * response that discards its bytes, so only the application's own memory use is measured.
+ */
+@Slf4j
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@TestPropertySource(properties = "logging.level.sql=INFO")
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class StreamingExportIT {
+  private static final int ROWS = 1_000_000;
+
+  @Autowired public MockMvc mockMvc;
+
+  @Autowired public ObjectMapper mapper;
+
+  @Autowired JdbcTemplate jdbcTemplate;
+
+  @Autowired MenuItemsReviewRepository menuItemsReviewRepository;
+
+  @Autowired MenuItemReviewsController menuItemReviewsController;
+
+  @Autowired MeterRegistry meterRegistry;
+
+  @MockBean UserRepository userRepository;
+
+  private void insertReviews(int count) {
+    LocalDateTime date = LocalDateTime.parse("2025-04-01T12:00:00");
+    for (int from = 1; from <= count; from += 10_000) {
+      List<Object[]> batch = new ArrayList<>();
+      for (long i = from; i < from + 10_000 && i <= count; i++) {
+        batch.add(
+            new Object[] {
+              i,
+              i % 500,
+              "reviewer" + (i % 50) + "@ucsb.edu",
+              (int) (i % 5) + 1,
+              Timestamp.valueOf(date.plusMinutes(i)),
+              "Comment number " + i + " about the food at this dining common"
+            });
+      }
+      jdbcTemplate.batchUpdate(
+          "INSERT INTO MENUITEMREVIEWS (ID, ITEM_ID, REVIEWER_EMAIL, STARS, DATE_REVIEWED, COMMENTS)"
+              + " VALUES (?, ?, ?, ?, ?, ?)",
+          batch);
+    }
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void all_streams_the_same_json_as_serializing_find_all() throws Exception {
+    insertReviews(1234);
+
+    String expected = mapper.writeValueAsString(menuItemsReviewRepository.findAll());
+
+    byte[] body =
+        mockMvc
+            .perform(get("/api/MenuItemReviews/all"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/json"))
+            .andExpect(content().json(expected, true))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+
+    // the streamed body is measured in bytes, although the controller method returns nothing
+    assertEquals(
+        body.length,
+        meterRegistry
+            .get("app.controller.response.size")
+            .tags("controller", "MenuItemReviewsController", "method", "allMenuItemReviews")
+            .summary()
+            .totalAmount());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void heap_retained_exporting_1m_rows() throws Exception {
+    insertReviews(ROWS);
+
+    DiscardingResponse streamed = new DiscardingResponse();
+    long streamedStart = System.nanoTime();
+    long streamedPeak;
+    try (PeakHeap peak = new PeakHeap()) {
+      menuItemReviewsController.allMenuItemReviews(streamed);
+      streamedPeak = peak.retained();
+    }
+    long streamedMillis = (System.nanoTime() - streamedStart) / 1_000_000;
+
+    DiscardingResponse listed = new DiscardingResponse();
+    long listedStart = System.nanoTime();
+    long listedPeak;
+    try (PeakHeap peak = new PeakHeap()) {
+      mapper.writeValue(listed.getOutputStream(), menuItemsReviewRepository.findAll());
+      listedPeak = peak.retained();
+    }
+    long listedMillis = (System.nanoTime() - listedStart) / 1_000_000;
+
+    log.info(
+        "GET /all streamed with {} rows: {} bytes, peak retained heap={}MB, {}ms",
+        ROWS,
+        streamed.bytes,
+        streamedPeak >> 20,
+        streamedMillis);
+    log.info(
+        "findAll() list with {} rows: {} bytes, peak retained heap={}MB, {}ms",
+        ROWS,
+        listed.bytes,
+        listedPeak >> 20,
+        listedMillis);
+    assertEquals(listed.bytes, streamed.bytes);
+    assertTrue(streamedPeak < listedPeak / 3, streamedPeak + " vs " + listedPeak);
+  }
+
+  /** A response whose body is counted and thrown away. */
+  static class DiscardingResponse extends HttpServletResponseWrapper {
+    long bytes;
+
+    DiscardingResponse() {
+      super(new MockHttpServletResponse());
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+      return new ServletOutputStream() {
+        @Override
+        public void write(int b) {
+          bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+          bytes += len;
+        }
+
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {}
+      };
+    }
+  }
+
+  /**
+   * Tracks the heap still in use after each garbage collection while open, above what was in use
+   * when it was opened. This is the memory the code under test retains, not the garbage it makes.
+   */
+  static class PeakHeap implements NotificationListener, AutoCloseable {
+    private final Set<String> heapPools =
+        ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .map(MemoryPoolMXBean::getName)
+            .collect(Collectors.toSet());
+    private final long baseline;
+    private long peak;
+
+    PeakHeap() {
+      System.gc();
+      baseline = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+      for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+        ((NotificationEmitter) gc).addNotificationListener(this, null, null);
+      }
+    }
+
+    @Override
+    public synchronized void handleNotification(Notification notification, Object handback) {
+      if (!notification
+          .getType()
+          .equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+        return;
+      }
+      GarbageCollectionNotificationInfo info =
+          GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+      long used =
+          info.getGcInfo().getMemoryUsageAfterGc().entrySet().stream()
+              .filter(pool -> heapPools.contains(pool.getKey()))
+              .mapToLong(pool -> pool.getValue().getUsed())
+              .sum();
+      peak = Math.max(peak, used);
+    }
+
+    /** The peak so far, less the baseline. */
+    long retained() throws InterruptedException {
+      // notifications arrive on another thread, shortly after the collection
+      Thread.sleep(500);
+      synchronized (this) {
+        return Math.max(0, peak - baseline);
+      }
+    }
+
+    @Override
+    public void close() throws Exception {
+      for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+        ((NotificationEmitter) gc).removeNotificationListener(this);
+      }
+    }
+  }
+}
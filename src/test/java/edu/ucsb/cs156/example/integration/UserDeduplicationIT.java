@@ -0,0 +1,74 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.util.List;
+import java.util.Map;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Runs the Users-2 and Users-3 changesets again over a table holding duplicate users, as a
+ * database created before the unique indexes might, and checks that the duplicates are merged
+ * rather than just dropped.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class UserDeduplicationIT {
+
+  @Autowired JdbcTemplate jdbcTemplate;
+
+  @Autowired SpringLiquibase liquibase;
+
+  private void insertUser(long id, String email, String googleSub, boolean admin) {
+    jdbcTemplate.update(
+        "INSERT INTO USERS (ID, EMAIL, GOOGLE_SUB, ADMIN, EMAIL_VERIFIED) VALUES (?, ?, ?, ?, TRUE)",
+        id,
+        email,
+        googleSub,
+        admin);
+  }
+
+  @Test
+  public void duplicate_users_are_merged_into_the_first_one() throws Exception {
+    // arrange
+    jdbcTemplate.execute("DROP INDEX USERS_EMAIL_IDX");
+    jdbcTemplate.execute("DROP INDEX USERS_GOOGLE_SUB_IDX");
+    jdbcTemplate.update("DELETE FROM DATABASECHANGELOG WHERE ID IN ('Users-2', 'Users-3')");
+    insertUser(1, "alice@ucsb.edu", null, false);
+    insertUser(2, "alice@ucsb.edu", "alice", true);
+    insertUser(3, "bob@ucsb.edu", "bob", false);
+    insertUser(4, "bob@example.org", "bob", true);
+    insertUser(5, "carol@ucsb.edu", "carol", false);
+    jdbcTemplate.update("INSERT INTO JOBS (ID, CREATED_BY_ID) VALUES (1, 2), (2, 4), (3, 5)");
+
+    // act
+    liquibase.afterPropertiesSet();
+
+    // assert
+    List<Map<String, Object>> users =
+        jdbcTemplate.queryForList("SELECT ID, ADMIN FROM USERS ORDER BY ID");
+    assertEquals(
+        List.of(
+            Map.of("ID", 1L, "ADMIN", true),
+            Map.of("ID", 3L, "ADMIN", true),
+            Map.of("ID", 5L, "ADMIN", false)),
+        users);
+    assertEquals(
+        List.of(1L, 3L, 5L),
+        jdbcTemplate.queryForList("SELECT CREATED_BY_ID FROM JOBS ORDER BY ID", Long.class));
+  }
+}
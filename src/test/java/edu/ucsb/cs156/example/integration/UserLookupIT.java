@@ -0,0 +1,138 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntConsumer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Checks that user lookups use the unique indexes on USERS and reports their latency with 100k
+ * users in the table.
+ */
+@Slf4j
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@TestPropertySource(properties = "logging.level.sql=INFO")
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class UserLookupIT {
+  private static final int USERS = 100_000;
+  private static final int LOOKUPS = 2_000;
+
+  @Autowired UserRepository userRepository;
+
+  @Autowired JdbcTemplate jdbcTemplate;
+
+  @Test
+  public void lookups_by_email_and_sub_use_the_unique_indexes() {
+    String byEmail = explain("SELECT * FROM USERS WHERE EMAIL = 'user1@ucsb.edu'");
+    String bySub = explain("SELECT * FROM USERS WHERE GOOGLE_SUB = 'sub1'");
+
+    assertTrue(byEmail.contains("USERS_EMAIL_IDX"), byEmail);
+    assertTrue(bySub.contains("USERS_GOOGLE_SUB_IDX"), bySub);
+  }
+
+  @Test
+  public void duplicate_email_is_rejected() {
+    userRepository.save(User.builder().email("alice@ucsb.edu").googleSub("1").build());
+
+    assertThrows(
+        DataIntegrityViolationException.class,
+        () -> userRepository.save(User.builder().email("alice@ucsb.edu").googleSub("2").build()));
+  }
+
+  @Test
+  public void duplicate_google_sub_is_rejected() {
+    userRepository.save(User.builder().email("alice@ucsb.edu").googleSub("1").build());
+
+    assertThrows(
+        DataIntegrityViolationException.class,
+        () -> userRepository.save(User.builder().email("bob@ucsb.edu").googleSub("1").build()));
+  }
+
+  @Test
+  public void lookup_latency_with_100k_users() {
+    insertUsers(USERS);
+    Random random = new Random(156);
+
+    benchmark(
+        "findByEmail",
+        random,
+        i -> assertEquals(i, userRepository.findByEmail("user" + i + "@ucsb.edu").get().getId()));
+    benchmark(
+        "findByGoogleSub",
+        random,
+        i -> assertEquals(i, userRepository.findByGoogleSub("sub" + i).get().getId()));
+    benchmark(
+        "findAdminByEmail",
+        random,
+        i -> assertEquals(i % 100 == 0, userRepository.findAdminByEmail("user" + i + "@ucsb.edu").get()));
+  }
+
+  private void insertUsers(int count) {
+    List<Object[]> batch = new ArrayList<>();
+    for (long i = 1; i <= count; i++) {
+      batch.add(new Object[] {i, "user" + i + "@ucsb.edu", "sub" + i, i % 100 == 0});
+      if (batch.size() == 5_000) {
+        insertBatch(batch);
+        batch.clear();
+      }
+    }
+    insertBatch(batch);
+    jdbcTemplate.execute("ALTER SEQUENCE USERS_SEQ RESTART WITH " + (count + 1));
+  }
+
+  private void insertBatch(List<Object[]> batch) {
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO USERS (ID, EMAIL, GOOGLE_SUB, ADMIN, EMAIL_VERIFIED) VALUES (?, ?, ?, ?, TRUE)",
+        batch);
+  }
+
+  private void benchmark(String name, Random random, IntConsumer lookup) {
+    // warm up the connection pool, statement cache and JIT before measuring
+    for (int i = 0; i < LOOKUPS / 10; i++) {
+      lookup.accept(random.nextInt(USERS) + 1);
+    }
+    long[] nanos = new long[LOOKUPS];
+    for (int i = 0; i < LOOKUPS; i++) {
+      int id = random.nextInt(USERS) + 1;
+      long start = System.nanoTime();
+      lookup.accept(id);
+      nanos[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(nanos);
+    log.info(
+        "{} over {} users: p50={}us p99={}us max={}us",
+        name,
+        USERS,
+        nanos[LOOKUPS / 2] / 1000,
+        nanos[LOOKUPS * 99 / 100] / 1000,
+        nanos[LOOKUPS - 1] / 1000);
+  }
+
+  private String explain(String sql) {
+    return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+  }
+}
@@ -0,0 +1,76 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class AdminDirectoryTests {
+
+  @Mock private UserRepository userRepository;
+
+  private AdminDirectory directory(long ttlMs) {
+    return new AdminDirectory(userRepository, List.of("boss@ucsb.edu", " chief@ucsb.edu "), ttlMs, 100);
+  }
+
+  @Test
+  public void configured_emails_are_admins_without_a_query() {
+    AdminDirectory adminDirectory = directory(60000);
+
+    assertTrue(adminDirectory.isAdmin("boss@ucsb.edu"));
+    assertTrue(adminDirectory.isAdminEmail("chief@ucsb.edu"));
+    assertFalse(adminDirectory.isAdminEmail(null));
+    verify(userRepository, never()).findAdminByEmail("boss@ucsb.edu");
+  }
+
+  @Test
+  public void database_flag_is_cached_until_evicted() {
+    when(userRepository.findAdminByEmail("alice@ucsb.edu")).thenReturn(Optional.of(true));
+    when(userRepository.findAdminByEmail("bob@ucsb.edu")).thenReturn(Optional.empty());
+    AdminDirectory adminDirectory = directory(60000);
+
+    assertTrue(adminDirectory.isAdmin("alice@ucsb.edu"));
+    assertTrue(adminDirectory.isAdmin("alice@ucsb.edu"));
+    assertFalse(adminDirectory.isAdmin("bob@ucsb.edu"));
+    verify(userRepository, times(1)).findAdminByEmail("alice@ucsb.edu");
+
+    adminDirectory.evict("alice@ucsb.edu");
+    adminDirectory.isAdmin("alice@ucsb.edu");
+    verify(userRepository, times(2)).findAdminByEmail("alice@ucsb.edu");
+  }
+
+  @Test
+  public void zero_ttl_always_queries() {
+    when(userRepository.findAdminByEmail("alice@ucsb.edu")).thenReturn(Optional.of(false));
+    AdminDirectory adminDirectory = directory(0);
+
+    adminDirectory.isAdmin("alice@ucsb.edu");
+    adminDirectory.isAdmin("alice@ucsb.edu");
+
+    verify(userRepository, times(2)).findAdminByEmail("alice@ucsb.edu");
+  }
+
+  @Test
+  public void admin_emails_can_be_replaced() {
+    AdminDirectory adminDirectory = directory(60000);
+
+    adminDirectory.setAdminEmails(List.of("alice@ucsb.edu", ""));
+
+    assertEquals(Set.of("alice@ucsb.edu"), adminDirectory.getAdminEmails());
+    assertTrue(adminDirectory.isAdmin("alice@ucsb.edu"));
+    assertFalse(adminDirectory.isAdminEmail("boss@ucsb.edu"));
+  }
+}
@@ -0,0 +1,37 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.ucsb.cs156.example.entities.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+public class AuthTelemetryTests {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final AuthTelemetry authTelemetry = new AuthTelemetry(meterRegistry, 2);
+
+  @Test
+  public void events_are_counted() {
+    User alice = User.builder().id(7L).build();
+
+    authTelemetry.login(alice, true);
+    authTelemetry.login(alice, false);
+    authTelemetry.login(alice, false);
+    authTelemetry.adminPromotion(alice);
+    authTelemetry.userResolved(true);
+    authTelemetry.userResolved(true);
+    authTelemetry.userResolved(false);
+
+    assertEquals(1, count("auth.logins", "outcome", "created"));
+    assertEquals(2, count("auth.logins", "outcome", "returning"));
+    assertEquals(2, count("auth.user.cache", "result", "hit"));
+    assertEquals(1, count("auth.user.cache", "result", "miss"));
+    assertEquals(1, meterRegistry.get("auth.admin.promotions").counter().count());
+  }
+
+  private double count(String name, String tag, String value) {
+    return meterRegistry.get(name).tag(tag, value).counter().count();
+  }
+}
@@ -0,0 +1,141 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.errors.InvalidBulkRequestException;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.BulkRowError;
+import edu.ucsb.cs156.example.repositories.MenuItemsReviewRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class BulkWriterTests {
+
+  private final BulkWriter bulkWriter = new BulkWriter();
+
+  private final MenuItemsReviewRepository reviewRepository = mock(MenuItemsReviewRepository.class);
+
+  private final UCSBOrganizationRepository organizationRepository =
+      mock(UCSBOrganizationRepository.class);
+
+  {
+    bulkWriter.mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+  }
+
+  private List<JsonNode> read(String body) throws IOException {
+    return bulkWriter.read(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static MenuItemReview review(long id) {
+    return MenuItemReview.builder().id(id).itemId(1L).stars(5).build();
+  }
+
+  @Test
+  public void reads_a_json_array_and_ndjson_alike() throws Exception {
+    assertEquals(read("[{\"stars\":1},{\"stars\":2}]"), read("{\"stars\":1}\n{\"stars\":2}\n"));
+    assertEquals(0, read("").size());
+  }
+
+  @Test
+  public void unreadable_bodies_are_rejected() {
+    assertThrows(InvalidBulkRequestException.class, () -> read("[{\"stars\":1},"));
+    assertThrows(InvalidBulkRequestException.class, () -> read("7\n".repeat(BulkWriter.MAX_ROWS + 1)));
+  }
+
+  @Test
+  public void rows_without_an_id_are_created_and_rows_with_one_updated() throws Exception {
+    when(reviewRepository.findAllById(any())).thenReturn(List.of(review(7)));
+
+    BulkResult result =
+        bulkWriter.save(
+            reviewRepository, MenuItemReview.class, read("[{\"stars\":1},{\"id\":7,\"stars\":2}]"));
+
+    assertEquals(BulkResult.builder().created(1).updated(1).build(), result);
+    verify(reviewRepository).saveAll(any());
+  }
+
+  @Test
+  public void nothing_is_saved_when_any_row_is_in_error() throws Exception {
+    when(reviewRepository.findAllById(any())).thenReturn(List.of(review(7)));
+
+    BulkResult result =
+        bulkWriter.save(
+            reviewRepository,
+            MenuItemReview.class,
+            read(
+                "{\"id\":8}\n"
+                    + "{\"dateReviewed\":\"yesterday\"}\n"
+                    + "{\"id\":7}\n"
+                    + "{\"id\":7}\n"
+                    + "null\n"));
+
+    assertEquals(
+        List.of(0, 1, 3, 4), result.getErrors().stream().map(BulkRowError::getIndex).toList());
+    assertEquals("MenuItemReview with id 8 not found", result.getErrors().get(0).getMessage());
+    assertEquals("Duplicate id 7", result.getErrors().get(2).getMessage());
+    verify(reviewRepository, never()).saveAll(any());
+  }
+
+  @Test
+  public void assigned_ids_are_created_or_replaced_but_required() throws Exception {
+    when(organizationRepository.findAllById(any()))
+        .thenReturn(List.of(UCSBOrganization.builder().orgCode("ZPR").build()));
+
+    assertEquals(
+        BulkResult.builder().created(1).updated(1).build(),
+        bulkWriter.save(
+            organizationRepository,
+            UCSBOrganization.class,
+            read("[{\"orgCode\":\"ZPR\"},{\"orgCode\":\"SKY\"}]")));
+    assertEquals(
+        List.of(new BulkRowError(0, "orgCode is required")),
+        bulkWriter
+            .save(organizationRepository, UCSBOrganization.class, read("[{\"orgTranslation\":\"x\"}]"))
+            .getErrors());
+  }
+
+  @Test
+  public void deletes_ids_or_objects_with_an_id() throws Exception {
+    List<MenuItemReview> found = List.of(review(7), review(8));
+    when(reviewRepository.findAllById(any())).thenReturn(found);
+
+    BulkResult result =
+        bulkWriter.delete(reviewRepository, MenuItemReview.class, read("[7, {\"id\":8}]"));
+
+    assertEquals(BulkResult.builder().deleted(2).build(), result);
+    verify(reviewRepository).deleteAll(found);
+  }
+
+  @Test
+  public void nothing_is_deleted_when_any_id_is_missing_or_invalid() throws Exception {
+    when(reviewRepository.findAllById(any())).thenReturn(List.of(review(7)));
+
+    BulkResult result =
+        bulkWriter.delete(
+            reviewRepository, MenuItemReview.class, read("[7, \"seven\", 9, [7], 7]"));
+
+    assertEquals(
+        List.of(
+            new BulkRowError(1, "Invalid id \"seven\""),
+            new BulkRowError(2, "MenuItemReview with id 9 not found"),
+            new BulkRowError(3, "Invalid id [7]"),
+            new BulkRowError(4, "Duplicate id 7")),
+        result.getErrors());
+    verify(reviewRepository, never()).deleteAll(any());
+  }
+}
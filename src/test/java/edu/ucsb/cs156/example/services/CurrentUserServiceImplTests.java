@@ -0,0 +1,90 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+
+@ExtendWith(MockitoExtension.class)
+public class CurrentUserServiceImplTests {
+
+  @Mock private UserProvisioningService userProvisioningService;
+
+  @Mock private GrantedAuthoritiesService grantedAuthoritiesService;
+
+  @Spy private UserCache userCache = new UserCache(60000, 100);
+
+  @Spy private AuthTelemetry authTelemetry = new AuthTelemetry(new SimpleMeterRegistry(), 0);
+
+  @InjectMocks private CurrentUserServiceImpl currentUserService;
+
+  @BeforeEach
+  public void logIn() {
+    DefaultOAuth2User principal =
+        new DefaultOAuth2User(
+            List.of(new SimpleGrantedAuthority("ROLE_USER")),
+            Map.of("sub", "12345", "email", "alice@ucsb.edu", "email_verified", true),
+            "sub");
+    SecurityContextHolder.getContext()
+        .setAuthentication(
+            new OAuth2AuthenticationToken(principal, principal.getAuthorities(), "google"));
+  }
+
+  @AfterEach
+  public void logOut() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  public void provisioned_user_is_read_once_and_then_served_from_the_cache() {
+    User alice = User.builder().id(7L).email("alice@ucsb.edu").googleSub("12345").build();
+    when(userProvisioningService.findUser("12345", "alice@ucsb.edu")).thenReturn(Optional.of(alice));
+
+    User first = currentUserService.getUser();
+    User second = currentUserService.getUser();
+
+    assertSame(alice, first);
+    assertSame(alice, second);
+    verify(userProvisioningService, times(1)).findUser("12345", "alice@ucsb.edu");
+    verify(userProvisioningService, never()).provision(any());
+    verify(authTelemetry).userResolved(false);
+    verify(authTelemetry).userResolved(true);
+  }
+
+  @Test
+  public void user_missing_from_the_database_is_provisioned() {
+    User alice = User.builder().id(7L).email("alice@ucsb.edu").googleSub("12345").build();
+    when(userProvisioningService.findUser("12345", "alice@ucsb.edu")).thenReturn(Optional.empty());
+    when(userProvisioningService.provision(any())).thenReturn(alice);
+
+    assertSame(alice, currentUserService.getUser());
+  }
+
+  @Test
+  public void no_user_without_oauth2_login() {
+    SecurityContextHolder.clearContext();
+
+    assertNull(currentUserService.getUser());
+  }
+}
@@ -1,13 +1,20 @@
 package edu.ucsb.cs156.example.services;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.jobs.JobLogArchiver;
 import edu.ucsb.cs156.example.services.jobs.JobService;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.PageRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
@@ -16,6 +23,10 @@ public class JobLogsServiceTests {
 
   @Mock private JobsRepository jobRepository;
 
+  @Mock private JobLogLinesRepository jobLogLinesRepository;
+
+  @Mock private JobLogArchiver jobLogArchiver;
+
   @InjectMocks private JobService jobService;
 
   @BeforeEach
@@ -53,6 +64,25 @@ public class JobLogsServiceTests {
     assertEquals("", result);
   }
 
+  @Test
+  void test_getJobLogs_reassembles_log_lines() {
+    // Arrange
+    Long jobId = 4L;
+    Job job = Job.builder().id(jobId).log("legacy log that should be ignored").build();
+    when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.findAllByJobIdOrderByLineNumberAsc(jobId))
+        .thenReturn(
+            List.of(
+                JobLogLine.builder().jobId(jobId).lineNumber(0).message("line one").build(),
+                JobLogLine.builder().jobId(jobId).lineNumber(1).message("line two").build()));
+
+    // Act
+    String result = jobService.getJobLogs(jobId);
+
+    // Assert
+    assertEquals("line one\nline two", result);
+  }
+
   @Test
   void test_getJobLogs_job_not_found() {
     // Arrange
@@ -62,4 +92,58 @@ public class JobLogsServiceTests {
     // Act & Assert
     assertThrows(IllegalArgumentException.class, () -> jobService.getJobLogs(jobId));
   }
+
+  @Test
+  void getJobLogLines_reads_only_the_requested_lines() {
+    // Arrange
+    when(jobLogLinesRepository.findAllByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+            5L, 2, PageRequest.ofSize(1)))
+        .thenReturn(List.of(JobLogLine.builder().jobId(5L).lineNumber(2).message("two").build()));
+
+    // Act & Assert
+    assertEquals(List.of("two"), jobService.getJobLogLines(5L, 2, 1));
+    assertEquals(List.of(), jobService.getJobLogLines(5L, 2, 0));
+    verify(jobRepository, never()).findById(anyLong());
+  }
+
+  @Test
+  void getJobLogLines_slices_legacy_logs() {
+    // Arrange
+    Job job = Job.builder().id(6L).log("a\nb\nc").build();
+    when(jobRepository.findById(6L)).thenReturn(Optional.of(job));
+
+    // Act & Assert
+    assertEquals(3, jobService.countJobLogLines(6L));
+    assertEquals(List.of("b", "c"), jobService.getJobLogLines(6L, 1, 10));
+    assertEquals(List.of(), jobService.getJobLogLines(6L, 5, 10));
+    assertEquals(0, jobService.countJobLogLines(7L));
+  }
+
+  @Test
+  void getJobLogLines_past_the_end_of_line_log_is_empty() {
+    // Arrange
+    when(jobLogLinesRepository.countByJobId(8L)).thenReturn(3);
+
+    // Act & Assert
+    assertEquals(3, jobService.countJobLogLines(8L));
+    assertEquals(List.of(), jobService.getJobLogLines(8L, 3, 10));
+    verify(jobRepository, never()).findById(anyLong());
+  }
+
+  @Test
+  void archived_logs_are_read_from_the_archive() {
+    // Arrange
+    Job job = Job.builder().id(9L).build();
+    when(jobRepository.findById(9L)).thenReturn(Optional.of(job));
+    when(jobLogArchiver.findLog(9L)).thenReturn(Optional.of("a\n\nc"));
+    when(jobLogArchiver.findLineCount(9L)).thenReturn(Optional.of(3));
+    when(jobLogArchiver.findCompressedLog(9L)).thenReturn(Optional.of(new byte[] {1, 2}));
+    when(jobLogArchiver.findLines(9L, 1, 5)).thenReturn(Optional.of(List.of("", "c")));
+
+    // Act & Assert
+    assertEquals("a\n\nc", jobService.getJobLogs(9L));
+    assertEquals(3, jobService.countJobLogLines(9L));
+    assertEquals(List.of("", "c"), jobService.getJobLogLines(9L, 1, 5));
+    assertArrayEquals(new byte[] {1, 2}, jobService.getCompressedJobLogs(9L).get());
+  }
 }
@@ -0,0 +1,68 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+public class JsonArrayStreamerTests {
+
+  private final JsonArrayStreamer streamer = new JsonArrayStreamer();
+
+  private final EntityManager entityManager = mock(EntityManager.class);
+
+  @SuppressWarnings("unchecked")
+  private final ObjectProvider<EntityManager> entityManagerProvider = mock(ObjectProvider.class);
+
+  {
+    streamer.mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    streamer.entityManager = entityManagerProvider;
+  }
+
+  private static final List<Restaurant> RESTAURANTS =
+      List.of(
+          Restaurant.builder().id(1L).name("Freebirds").description("Burritos").build(),
+          Restaurant.builder().id(2L).name("Blaze").description("Pizza").build());
+
+  @Test
+  public void writes_the_same_json_as_serializing_a_list() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long count = streamer.write(RESTAURANTS::stream, out);
+
+    assertEquals(2, count);
+    assertEquals(streamer.mapper.writeValueAsString(RESTAURANTS), out.toString());
+  }
+
+  @Test
+  public void an_empty_stream_is_an_empty_array() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    assertEquals(0, streamer.write(Stream::empty, out));
+    assertEquals("[]", out.toString());
+  }
+
+  @Test
+  public void closes_the_stream_and_detaches_each_row() throws Exception {
+    when(entityManagerProvider.getIfAvailable()).thenReturn(entityManager);
+    AtomicBoolean closed = new AtomicBoolean();
+
+    streamer.write(() -> RESTAURANTS.stream().onClose(() -> closed.set(true)), new ByteArrayOutputStream());
+
+    assertTrue(closed.get());
+    verify(entityManager).detach(RESTAURANTS.get(0));
+    verify(entityManager).detach(RESTAURANTS.get(1));
+  }
+}
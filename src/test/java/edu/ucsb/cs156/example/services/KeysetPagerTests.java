@@ -0,0 +1,157 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.errors.InvalidPageRequestException;
+import edu.ucsb.cs156.example.models.KeysetPage;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.repository.query.FluentQuery.FetchableFluentQuery;
+
+public class KeysetPagerTests {
+
+  private final KeysetPager keysetPager = new KeysetPager();
+
+  private final ArticlesRepository articlesRepository = mock(ArticlesRepository.class);
+
+  private static final LocalDateTime DATE = LocalDateTime.parse("2025-04-01T12:00:00");
+
+  {
+    keysetPager.mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+  }
+
+  private static Articles article(long id) {
+    return Articles.builder().id(id).title("Article " + id).dateAdded(DATE.plusDays(id)).build();
+  }
+
+  private void returnWindow(List<Articles> articles, boolean hasNext) {
+    Window<Articles> window =
+        Window.from(
+            articles,
+            i ->
+                ScrollPosition.forward(
+                    Map.of(
+                        "dateAdded", articles.get(i).getDateAdded(),
+                        "id", articles.get(i).getId())),
+            hasNext);
+    when(articlesRepository.findBy(any(), any())).thenReturn(window);
+  }
+
+  @Test
+  public void next_cursor_points_after_the_last_row_and_decodes_to_typed_keys() {
+    returnWindow(List.of(article(1), article(2)), true);
+
+    KeysetPage<Articles> page =
+        keysetPager.page(articlesRepository, Articles.class, Set.of("dateAdded"), "dateAdded", null, 2);
+
+    assertEquals(2, page.getItems().size());
+    Map<String, Object> keys =
+        keysetPager.decode(
+            page.getNextCursor(),
+            Articles.class,
+            "dateAdded,asc",
+            Sort.by("dateAdded").and(Sort.by("id")));
+    assertEquals(Map.of("dateAdded", DATE.plusDays(2), "id", 2L), keys);
+  }
+
+  /** Runs the query the pager builds against a mocked fluent query, and returns that. */
+  @SuppressWarnings("unchecked")
+  private FetchableFluentQuery<Articles> runQuery() {
+    FetchableFluentQuery<Articles> query = mock(FetchableFluentQuery.class, RETURNS_SELF);
+    when(query.scroll(any())).thenReturn(Window.from(List.of(), i -> ScrollPosition.keyset(), false));
+    when(articlesRepository.findBy(any(), any()))
+        .thenAnswer(
+            invocation ->
+                invocation.<Function<FetchableFluentQuery<Articles>, Window<Articles>>>getArgument(1)
+                    .apply(query));
+    return query;
+  }
+
+  @Test
+  public void pages_are_sorted_with_the_id_as_tie_breaker() {
+    FetchableFluentQuery<Articles> query = runQuery();
+
+    keysetPager.page(articlesRepository, Articles.class, Set.of("dateAdded"), "dateAdded,desc", null, 10);
+
+    verify(query).sortBy(Sort.by(Sort.Direction.DESC, "dateAdded").and(Sort.by(Sort.Direction.DESC, "id")));
+    verify(query).limit(10);
+    verify(query).scroll(ScrollPosition.keyset());
+  }
+
+  @Test
+  public void page_size_is_clamped() {
+    FetchableFluentQuery<Articles> query = runQuery();
+
+    keysetPager.page(articlesRepository, Articles.class, Set.of(), "id", null, 0);
+    keysetPager.page(articlesRepository, Articles.class, Set.of(), "id", "", 5000);
+
+    verify(query).limit(1);
+    verify(query).limit(KeysetPager.MAX_PAGE_SIZE);
+  }
+
+  @Test
+  public void last_page_has_no_cursor() {
+    returnWindow(List.of(article(1)), false);
+
+    assertNull(
+        keysetPager.page(articlesRepository, Articles.class, Set.of(), "id,desc", null, 10).getNextCursor());
+  }
+
+  @Test
+  public void cursor_for_another_sort_is_rejected() {
+    returnWindow(List.of(article(1)), true);
+    String cursor =
+        keysetPager.page(articlesRepository, Articles.class, Set.of("dateAdded"), "dateAdded", null, 1)
+            .getNextCursor();
+
+    InvalidPageRequestException e =
+        assertThrows(
+            InvalidPageRequestException.class,
+            () -> keysetPager.page(articlesRepository, Articles.class, Set.of("dateAdded"), "dateAdded,desc", cursor, 1));
+    assertEquals("Cursor does not match sort dateAdded,desc", e.getMessage());
+  }
+
+  @Test
+  public void bad_requests_are_rejected() {
+    assertThrows(
+        InvalidPageRequestException.class,
+        () -> keysetPager.page(articlesRepository, Articles.class, Set.of("dateAdded"), "email", null, 10));
+    assertThrows(
+        InvalidPageRequestException.class,
+        () -> keysetPager.page(articlesRepository, Articles.class, Set.of(), "id,sideways", null, 10));
+    assertThrows(
+        InvalidPageRequestException.class,
+        () -> keysetPager.page(articlesRepository, Articles.class, Set.of(), "id", "not a cursor!", 10));
+    String wrongType =
+        keysetPager.encode(new KeysetPager.Cursor("id,asc", Map.of("id", "not-a-number")));
+    assertThrows(
+        InvalidPageRequestException.class,
+        () -> keysetPager.page(articlesRepository, Articles.class, Set.of(), "id", wrongType, 10));
+  }
+
+  @Test
+  public void id_property_is_found_from_the_id_annotation() {
+    assertEquals("id", keysetPager.idProperty(Articles.class));
+    assertEquals("orgCode", keysetPager.idProperty(UCSBOrganization.class));
+    assertThrows(IllegalArgumentException.class, () -> keysetPager.idProperty(String.class));
+  }
+}
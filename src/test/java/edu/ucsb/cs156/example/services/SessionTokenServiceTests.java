@@ -0,0 +1,103 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+
+public class SessionTokenServiceTests {
+  private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+  private final SessionTokenService sessionTokenService =
+      new SessionTokenService(true, SECRET, 60000, "SESSION_TOKEN");
+
+  private OAuth2AuthenticationToken login(String... roles) {
+    List<GrantedAuthority> authorities =
+        List.of(roles).stream().map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role)).toList();
+    DefaultOAuth2User principal =
+        new DefaultOAuth2User(
+            authorities,
+            Map.of("sub", "12345", "email", "alice@ucsb.edu", "name", "Alice"),
+            "sub");
+    return new OAuth2AuthenticationToken(principal, authorities, "google");
+  }
+
+  @Test
+  public void issued_token_round_trips_the_principal_and_roles() {
+    String token = sessionTokenService.issue(login("ROLE_USER", "ROLE_ADMIN", "SCOPE_email"));
+
+    OAuth2AuthenticationToken authentication = sessionTokenService.verify(token).get();
+
+    assertEquals("12345", authentication.getName());
+    assertEquals("alice@ucsb.edu", authentication.getPrincipal().getAttribute("email"));
+    assertEquals("google", authentication.getAuthorizedClientRegistrationId());
+    assertEquals(
+        Set.of("ROLE_USER", "ROLE_ADMIN"),
+        authentication.getAuthorities().stream()
+            .map(GrantedAuthority::getAuthority)
+            .collect(Collectors.toSet()));
+  }
+
+  @Test
+  public void tampered_token_is_rejected() {
+    String token = sessionTokenService.issue(login("ROLE_USER"));
+    String forged =
+        sessionTokenService.sign("{\"sub\":\"12345\",\"reg\":\"google\",\"roles\":[\"ROLE_ADMIN\"],\"exp\":9999999999}"
+            .getBytes(StandardCharsets.UTF_8));
+    String spliced = forged.substring(0, forged.indexOf('.')) + token.substring(token.indexOf('.'));
+
+    assertTrue(sessionTokenService.verify(forged).isPresent());
+    assertFalse(sessionTokenService.verify(spliced).isPresent());
+    assertFalse(sessionTokenService.verify("not-a-token").isPresent());
+    assertFalse(sessionTokenService.verify("!!!.???").isPresent());
+  }
+
+  @Test
+  public void token_signed_with_another_secret_is_rejected() {
+    SessionTokenService other =
+        new SessionTokenService(true, "another-secret-another-secret-xx", 60000, "SESSION_TOKEN");
+
+    assertFalse(sessionTokenService.verify(other.issue(login("ROLE_USER"))).isPresent());
+  }
+
+  @Test
+  public void expired_token_is_rejected() {
+    SessionTokenService expired = new SessionTokenService(true, SECRET, 0, "SESSION_TOKEN");
+
+    assertFalse(expired.verify(expired.issue(login("ROLE_USER"))).isPresent());
+  }
+
+  @Test
+  public void stateless_mode_needs_a_long_secret() {
+    assertThrows(IllegalStateException.class, () -> new SessionTokenService(true, "short", 60000, "S"));
+    assertFalse(new SessionTokenService(false, "", 60000, "S").unsign("a.b").isPresent());
+  }
+
+  @Test
+  public void cookie_is_http_only_and_read_back() {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    sessionTokenService.writeCookie(request, response, "abc");
+    request.setCookies(response.getCookies());
+
+    String header = response.getHeader("Set-Cookie");
+    assertTrue(header.contains("HttpOnly"), header);
+    assertTrue(header.contains("SameSite=Lax"), header);
+    assertEquals("abc", SessionTokenService.readCookie(request, "SESSION_TOKEN").get());
+    assertFalse(SessionTokenService.readCookie(request, "OTHER").isPresent());
+  }
+}
@@ -0,0 +1,66 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import edu.ucsb.cs156.example.entities.User;
+import org.junit.jupiter.api.Test;
+
+public class UserCacheTests {
+
+  private final User alice = User.builder().id(1L).email("alice@ucsb.edu").googleSub("a").build();
+  private final User bob = User.builder().id(2L).email("bob@ucsb.edu").googleSub("b").build();
+
+  @Test
+  public void stored_user_is_returned_until_evicted() {
+    UserCache cache = new UserCache(60000, 10);
+    cache.put(UserCache.keyFor("a", "alice@ucsb.edu"), alice);
+    cache.put(UserCache.keyFor("b", "bob@ucsb.edu"), bob);
+
+    assertSame(alice, cache.get("sub:a"));
+
+    cache.evict(User.builder().id(1L).email("alice@ucsb.edu").build());
+
+    assertNull(cache.get("sub:a"));
+    assertSame(bob, cache.get("sub:b"));
+
+    cache.evictAll();
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void expired_entry_is_dropped() throws Exception {
+    UserCache cache = new UserCache(1, 10);
+    cache.put("sub:a", alice);
+
+    Thread.sleep(5);
+
+    assertNull(cache.get("sub:a"));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void least_recently_used_entry_is_dropped_when_full() {
+    UserCache cache = new UserCache(60000, 1);
+    cache.put("sub:a", alice);
+    cache.put("sub:b", bob);
+
+    assertNull(cache.get("sub:a"));
+    assertSame(bob, cache.get("sub:b"));
+  }
+
+  @Test
+  public void zero_ttl_disables_the_cache() {
+    UserCache cache = new UserCache(0, 10);
+    cache.put("sub:a", alice);
+
+    assertNull(cache.get("sub:a"));
+  }
+
+  @Test
+  public void key_falls_back_to_email() {
+    assertEquals("sub:a", UserCache.keyFor("a", "alice@ucsb.edu"));
+    assertEquals("email:alice@ucsb.edu", UserCache.keyFor(null, "alice@ucsb.edu"));
+  }
+}
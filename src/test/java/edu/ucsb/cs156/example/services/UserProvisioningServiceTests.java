@@ -0,0 +1,127 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+
+@ExtendWith(MockitoExtension.class)
+public class UserProvisioningServiceTests {
+
+  @Mock private UserRepository userRepository;
+
+  @Mock private AdminDirectory adminDirectory;
+
+  @Spy private UserCache userCache = new UserCache(60000, 100);
+
+  @Spy private AuthTelemetry authTelemetry = new AuthTelemetry(new SimpleMeterRegistry(), 0);
+
+  @InjectMocks private UserProvisioningService userProvisioningService;
+
+  private final OAuth2User alice =
+      new DefaultOAuth2User(
+          List.of(new SimpleGrantedAuthority("ROLE_USER")),
+          Map.of(
+              "sub", "12345",
+              "email", "alice@ucsb.edu",
+              "email_verified", true,
+              "name", "Alice Gaucho",
+              "hd", "ucsb.edu"),
+          "sub");
+
+  @Test
+  public void new_user_is_inserted_and_cached() {
+    when(userRepository.findByGoogleSub("12345")).thenReturn(Optional.empty());
+    when(userRepository.findByEmail("alice@ucsb.edu")).thenReturn(Optional.empty());
+
+    User u = userProvisioningService.provision(alice);
+
+    ArgumentCaptor<User> saved = ArgumentCaptor.forClass(User.class);
+    verify(userRepository).save(saved.capture());
+    assertSame(u, saved.getValue());
+    assertEquals("12345", u.getGoogleSub());
+    assertEquals("Alice Gaucho", u.getFullName());
+    assertEquals("ucsb.edu", u.getHostedDomain());
+    assertTrue(u.getEmailVerified());
+    assertFalse(u.getAdmin());
+    assertSame(u, userCache.get("sub:12345"));
+    verify(authTelemetry).login(u, true);
+  }
+
+  @Test
+  public void existing_user_is_updated_in_place() {
+    User existing =
+        User.builder().id(7L).googleSub("12345").email("alice@ucsb.edu").fullName("Alice").build();
+    when(userRepository.findByGoogleSub("12345")).thenReturn(Optional.of(existing));
+
+    User u = userProvisioningService.provision(alice);
+
+    assertSame(existing, u);
+    assertEquals(7L, u.getId());
+    assertEquals("Alice Gaucho", u.getFullName());
+    verify(userRepository).save(existing);
+    verify(userRepository, never()).findByEmail(any());
+  }
+
+  @Test
+  public void user_saved_without_a_sub_is_matched_by_email() {
+    User legacy = User.builder().id(7L).email("alice@ucsb.edu").build();
+    when(userRepository.findByGoogleSub("12345")).thenReturn(Optional.empty());
+    when(userRepository.findByEmail("alice@ucsb.edu")).thenReturn(Optional.of(legacy));
+
+    User u = userProvisioningService.provision(alice);
+
+    assertSame(legacy, u);
+    assertEquals("12345", u.getGoogleSub());
+  }
+
+  @Test
+  public void admin_email_promotes_the_user_and_evicts_the_cached_copy() {
+    when(adminDirectory.isAdminEmail("alice@ucsb.edu")).thenReturn(true);
+    User existing = User.builder().id(7L).googleSub("12345").email("alice@ucsb.edu").build();
+    when(userRepository.findByGoogleSub("12345")).thenReturn(Optional.of(existing));
+
+    User u = userProvisioningService.provision(alice);
+
+    assertTrue(u.getAdmin());
+    verify(userCache).evict(existing);
+    verify(adminDirectory).evict("alice@ucsb.edu");
+    verify(authTelemetry).adminPromotion(existing);
+    verify(authTelemetry).login(existing, false);
+    assertSame(existing, userCache.get("sub:12345"));
+  }
+
+  @Test
+  public void concurrent_insert_falls_back_to_the_winning_row() {
+    User winner = User.builder().id(9L).googleSub("12345").email("alice@ucsb.edu").build();
+    when(userRepository.findByGoogleSub("12345"))
+        .thenReturn(Optional.empty())
+        .thenReturn(Optional.of(winner));
+    when(userRepository.findByEmail("alice@ucsb.edu")).thenReturn(Optional.empty());
+    when(userRepository.save(any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+    assertSame(winner, userProvisioningService.provision(alice));
+  }
+}
@@ -1,13 +1,23 @@
 package edu.ucsb.cs156.example.services.jobs;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.errors.JobCancelledException;
 import org.junit.jupiter.api.Test;
 
 
 public class JobContextTests {
   @Test
-  public void when_jobs_repository_is_null_does_not_save() throws Exception {
+  public void when_log_buffer_is_null_does_not_save() throws Exception {
 
     // arrange
 
@@ -18,7 +28,78 @@ public class JobContextTests {
     ctx.log("This is a log message");
 
     // assert
-    assertEquals("This is a log message", job1.getLog());
+    assertEquals(1, ctx.getLineCount());
+    assertNull(job1.getLog());
+  }
+
+  @Test
+  public void log_appends_numbered_lines_without_touching_job() throws Exception {
+
+    // arrange
+
+    JobLogBuffer jobLogBuffer = mock(JobLogBuffer.class);
+    Job job1 = Job.builder().id(17L).build();
+    JobContext ctx = new JobContext(jobLogBuffer, job1);
+
+    // act
+    ctx.log("first");
+    ctx.log("second");
+
+    // assert
+    JobLogLine first = JobLogLine.builder().jobId(17L).lineNumber(0).message("first").build();
+    JobLogLine second = JobLogLine.builder().jobId(17L).lineNumber(1).message("second").build();
+    verify(jobLogBuffer, times(1)).append(first);
+    verify(jobLogBuffer, times(1)).append(second);
+    assertEquals(2, ctx.getLineCount());
+    assertNull(job1.getLog());
+  }
+
+  @Test
+  public void multi_line_messages_are_stored_as_separate_lines() throws Exception {
+
+    // arrange
+
+    JobLogBuffer jobLogBuffer = mock(JobLogBuffer.class);
+    Job job1 = Job.builder().id(17L).build();
+    JobContext ctx = new JobContext(jobLogBuffer, job1);
+
+    // act
+    ctx.log("first\nsecond");
+    ctx.log(null);
+
+    // assert
+    verify(jobLogBuffer, times(1))
+        .append(JobLogLine.builder().jobId(17L).lineNumber(0).message("first").build());
+    verify(jobLogBuffer, times(1))
+        .append(JobLogLine.builder().jobId(17L).lineNumber(1).message("second").build());
+    verify(jobLogBuffer, times(1))
+        .append(JobLogLine.builder().jobId(17L).lineNumber(2).message("null").build());
+    assertEquals(3, ctx.getLineCount());
   }
 
+  @Test
+  public void progress_is_clamped_to_a_percentage() throws Exception {
+    JobContext ctx = new JobContext(null, Job.builder().build());
+
+    assertNull(ctx.getProgress());
+    ctx.progress(150);
+    assertEquals(100, ctx.getProgress());
+    ctx.progress(-5);
+    assertEquals(0, ctx.getProgress());
+  }
+
+  @Test
+  public void check_cancelled_throws_once_cancelled() throws Exception {
+    JobContext ctx = new JobContext(null, Job.builder().build());
+
+    ctx.checkCancelled();
+    assertFalse(ctx.isCancelled());
+
+    ctx.cancel("first reason");
+    ctx.cancel("second reason");
+
+    assertTrue(ctx.isCancelled());
+    JobCancelledException e = assertThrows(JobCancelledException.class, ctx::checkCancelled);
+    assertEquals("first reason", e.getMessage());
+  }
 }
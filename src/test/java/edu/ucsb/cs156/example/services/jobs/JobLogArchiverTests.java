@@ -0,0 +1,168 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.JobLogArchive;
+import edu.ucsb.cs156.example.entities.JobLogArchiveChunk;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogArchiveChunksRepository;
+import edu.ucsb.cs156.example.repositories.JobLogArchivesRepository;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class JobLogArchiverTests {
+
+  @Mock private JobLogLinesRepository jobLogLinesRepository;
+
+  @Mock private JobLogArchivesRepository jobLogArchivesRepository;
+
+  @Mock private JobLogArchiveChunksRepository jobLogArchiveChunksRepository;
+
+  @InjectMocks private JobLogArchiver jobLogArchiver;
+
+  private static JobLogLine line(int lineNumber, String message) {
+    return JobLogLine.builder().jobId(1L).lineNumber(lineNumber).message(message).build();
+  }
+
+  /** Archives the lines, and has the mocked repositories return what was saved. */
+  private List<JobLogArchiveChunk> archive(List<JobLogLine> lines) {
+    when(jobLogLinesRepository.findAllByJobIdOrderByLineNumberAsc(1L)).thenReturn(lines);
+    jobLogArchiver.archive(1L);
+
+    ArgumentCaptor<JobLogArchive> archive = ArgumentCaptor.forClass(JobLogArchive.class);
+    verify(jobLogArchivesRepository, times(1)).save(archive.capture());
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<JobLogArchiveChunk>> chunks = ArgumentCaptor.forClass(List.class);
+    verify(jobLogArchiveChunksRepository, times(1)).saveAll(chunks.capture());
+    verify(jobLogLinesRepository, times(1)).deleteByJobId(1L);
+
+    lenient().when(jobLogArchivesRepository.findById(1L)).thenReturn(Optional.of(archive.getValue()));
+    lenient()
+        .when(jobLogArchivesRepository.findLineCountByJobId(1L))
+        .thenReturn(Optional.of(archive.getValue().getLineCount()));
+    lenient()
+        .when(jobLogArchiveChunksRepository.findAllByJobIdOrderByFirstLineAsc(1L))
+        .thenReturn(chunks.getValue());
+    lenient()
+        .when(jobLogArchiveChunksRepository.findOverlapping(anyLong(), anyInt(), anyInt()))
+        .thenAnswer(
+            invocation -> {
+              int from = invocation.getArgument(1);
+              int to = invocation.getArgument(2);
+              return chunks.getValue().stream()
+                  .filter(c -> c.getFirstLine() < to && c.getFirstLine() + c.getLineCount() > from)
+                  .toList();
+            });
+    return chunks.getValue();
+  }
+
+  @Test
+  public void archive_compresses_the_lines_and_deletes_them() {
+    // arrange
+    String repeated = "the same progress message over and over";
+    List<JobLogLine> lines =
+        IntStream.range(0, 200).mapToObj(i -> line(i, repeated)).toList();
+
+    // act
+    List<JobLogArchiveChunk> chunks = archive(lines);
+
+    // assert
+    assertEquals(1, chunks.size());
+    String text = String.join("\n", Collections.nCopies(200, repeated));
+    byte[] compressed = jobLogArchiver.findCompressedLog(1L).get();
+    assertEquals(text, JobLogArchiver.gunzip(compressed));
+    assertTrue(compressed.length < text.length() / 10);
+    assertEquals(Optional.of(200), jobLogArchiver.findLineCount(1L));
+  }
+
+  @Test
+  public void long_log_is_archived_in_chunks_that_form_one_gzip() {
+    // arrange
+    int count = JobLogArchiver.CHUNK_LINES * 2 + 10;
+    List<JobLogLine> lines =
+        IntStream.range(0, count).mapToObj(i -> line(i, i % 7 == 0 ? "" : "line \u00e9 " + i)).toList();
+
+    // act
+    List<JobLogArchiveChunk> chunks = archive(lines);
+
+    // assert
+    assertEquals(
+        List.of(0, JobLogArchiver.CHUNK_LINES, JobLogArchiver.CHUNK_LINES * 2),
+        chunks.stream().map(JobLogArchiveChunk::getFirstLine).toList());
+    assertEquals(
+        lines.stream().map(JobLogLine::getMessage).collect(Collectors.joining("\n")),
+        jobLogArchiver.findLog(1L).get());
+  }
+
+  @Test
+  public void a_slice_inflates_only_the_chunks_that_hold_it() {
+    // arrange
+    int count = JobLogArchiver.CHUNK_LINES * 3;
+    List<JobLogLine> lines = IntStream.range(0, count).mapToObj(i -> line(i, "line " + i)).toList();
+    archive(lines);
+
+    // act
+    List<String> slice =
+        jobLogArchiver.findLines(1L, JobLogArchiver.CHUNK_LINES - 2, 4).get();
+    List<String> last = jobLogArchiver.findLines(1L, count - 1, 10).get();
+
+    // assert
+    int first = JobLogArchiver.CHUNK_LINES - 2;
+    assertEquals(
+        List.of("line " + first, "line " + (first + 1), "line " + (first + 2), "line " + (first + 3)),
+        slice);
+    verify(jobLogArchiveChunksRepository).findOverlapping(1L, first, first + 4);
+    assertEquals(List.of("line " + (count - 1)), last);
+    assertEquals(Optional.of(List.of()), jobLogArchiver.findLines(1L, count, 10));
+    verify(jobLogArchiveChunksRepository, never()).findAllByJobIdOrderByFirstLineAsc(1L);
+  }
+
+  @Test
+  public void job_without_lines_is_not_archived() {
+    // act
+    jobLogArchiver.archive(2L);
+
+    // assert
+    verify(jobLogArchivesRepository, never()).save(any());
+    verify(jobLogArchiveChunksRepository, never()).saveAll(any());
+    verify(jobLogLinesRepository, never()).deleteByJobId(2L);
+  }
+
+  @Test
+  public void archive_from_before_chunks_is_read_back() {
+    // arrange
+    byte[] content = JobLogArchiver.gzip("hello\nw\u00f6rld\n!");
+    when(jobLogArchivesRepository.findById(3L))
+        .thenReturn(
+            Optional.of(JobLogArchive.builder().jobId(3L).lineCount(3).content(content).build()));
+    when(jobLogArchivesRepository.findLineCountByJobId(3L)).thenReturn(Optional.of(3));
+
+    // act & assert
+    assertEquals(Optional.of("hello\nw\u00f6rld\n!"), jobLogArchiver.findLog(3L));
+    assertEquals(Optional.of(content), jobLogArchiver.findCompressedLog(3L));
+    assertEquals(Optional.of(3), jobLogArchiver.findLineCount(3L));
+    assertEquals(Optional.of(List.of("w\u00f6rld")), jobLogArchiver.findLines(3L, 1, 1));
+    assertEquals(Optional.empty(), jobLogArchiver.findLog(4L));
+    assertEquals(Optional.empty(), jobLogArchiver.findLines(4L, 0, 10));
+  }
+}
@@ -0,0 +1,134 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class JobLogBufferTests {
+
+  private JobLogLinesRepository jobLogLinesRepository;
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  public void setup() {
+    jobLogLinesRepository = mock(JobLogLinesRepository.class);
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  private JobLogBuffer buffer(int batchSize, int capacity, long flushIntervalMs) {
+    return new JobLogBuffer(
+        jobLogLinesRepository, meterRegistry, batchSize, capacity, flushIntervalMs);
+  }
+
+  private static JobLogLine line(long jobId, int lineNumber) {
+    return JobLogLine.builder().jobId(jobId).lineNumber(lineNumber).message("line " + lineNumber).build();
+  }
+
+  @Test
+  public void lines_are_written_in_one_batch_when_batch_size_is_reached() {
+    JobLogBuffer buffer = buffer(3, 100, 60_000);
+
+    buffer.append(line(1, 0));
+    buffer.append(line(1, 1));
+    verify(jobLogLinesRepository, never()).saveAll(anyList());
+
+    buffer.append(line(1, 2));
+
+    verify(jobLogLinesRepository, times(1)).saveAll(List.of(line(1, 0), line(1, 1), line(1, 2)));
+    assertEquals(0, buffer.getBufferedLineCount());
+    assertEquals(1, meterRegistry.get("jobs.log.flush").timer().count());
+    assertEquals(3.0, meterRegistry.get("jobs.log.flush.batch.size").summary().totalAmount());
+  }
+
+  @Test
+  public void aged_buffers_are_flushed_and_fresh_ones_are_not() throws Exception {
+    JobLogBuffer aged = buffer(100, 100, 0);
+    aged.append(line(1, 0));
+    aged.flushAged();
+    verify(jobLogLinesRepository, times(1)).saveAll(List.of(line(1, 0)));
+
+    JobLogBuffer fresh = buffer(100, 100, 60_000);
+    fresh.append(line(2, 0));
+    fresh.flushAged();
+    verify(jobLogLinesRepository, never()).saveAll(List.of(line(2, 0)));
+    assertEquals(1, fresh.getBufferedLineCount());
+  }
+
+  @Test
+  public void close_flushes_remaining_lines_and_releases_buffer() {
+    JobLogBuffer buffer = buffer(100, 100, 60_000);
+    buffer.append(line(1, 0));
+    buffer.append(line(2, 0));
+
+    buffer.close(1);
+    buffer.close(1);
+    buffer.flush(1);
+
+    verify(jobLogLinesRepository, times(1)).saveAll(List.of(line(1, 0)));
+    assertEquals(1, buffer.getBufferedLineCount());
+  }
+
+  @Test
+  public void oldest_line_is_dropped_when_buffer_is_full() {
+    JobLogBuffer buffer = buffer(100, 2, 60_000);
+    buffer.append(line(1, 0));
+    buffer.append(line(1, 1));
+    buffer.append(line(1, 2));
+
+    buffer.flush(1);
+
+    verify(jobLogLinesRepository, times(1)).saveAll(List.of(line(1, 1), line(1, 2)));
+    assertEquals(1.0, meterRegistry.get("jobs.log.lines.dropped").counter().count());
+  }
+
+  @Test
+  public void failed_batch_is_requeued_ahead_of_newer_lines() {
+    JobLogBuffer buffer = buffer(100, 3, 60_000);
+    doThrow(new RuntimeException("database unavailable"))
+        .when(jobLogLinesRepository)
+        .saveAll(List.of(line(1, 0), line(1, 1)));
+
+    buffer.append(line(1, 0));
+    buffer.append(line(1, 1));
+    buffer.flush(1);
+    buffer.append(line(1, 2));
+    assertEquals(3, buffer.getBufferedLineCount());
+
+    buffer.flush(1);
+    verify(jobLogLinesRepository, times(1)).saveAll(List.of(line(1, 0), line(1, 1), line(1, 2)));
+    assertEquals(2, meterRegistry.get("jobs.log.flush").timer().count());
+    assertEquals(3.0, meterRegistry.get("jobs.log.flush.batch.size").summary().totalAmount());
+  }
+
+  @Test
+  public void failed_batch_that_no_longer_fits_is_counted_as_dropped() {
+    JobLogBuffer buffer = buffer(100, 2, 60_000);
+    doThrow(new RuntimeException("database unavailable"))
+        .when(jobLogLinesRepository)
+        .saveAll(anyList());
+
+    buffer.append(line(1, 0));
+    buffer.append(line(1, 1));
+    buffer.flush(1);
+    assertEquals(0.0, meterRegistry.get("jobs.log.lines.dropped").counter().count());
+
+    buffer.append(line(1, 2));
+    buffer.flush(1);
+    assertEquals(1.0, meterRegistry.get("jobs.log.lines.dropped").counter().count());
+
+    buffer.close(1);
+    assertEquals(3.0, meterRegistry.get("jobs.log.lines.dropped").counter().count());
+    assertEquals(0.0, meterRegistry.get("jobs.log.lines.buffered").gauge().value());
+  }
+}
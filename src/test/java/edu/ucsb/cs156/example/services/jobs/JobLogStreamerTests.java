@@ -0,0 +1,67 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@ExtendWith(MockitoExtension.class)
+public class JobLogStreamerTests {
+
+  @Mock private JobService jobService;
+
+  @Mock private JobsRepository jobsRepository;
+
+  @InjectMocks private JobLogStreamer jobLogStreamer;
+
+  @Test
+  public void running_job_keeps_its_subscription_and_advances_the_offset() {
+    when(jobsRepository.findStatusById(1L)).thenReturn(Optional.of("running"));
+    when(jobService.getJobLogLines(1L, 0, 500)).thenReturn(List.of("hello"));
+
+    jobLogStreamer.stream(1L, 0);
+    jobLogStreamer.pushNewLines();
+    jobLogStreamer.pushNewLines();
+
+    assertEquals(1, jobLogStreamer.getSubscriberCount());
+    verify(jobService, times(1)).getJobLogLines(1L, 1, 500);
+  }
+
+  @Test
+  public void closed_stream_is_dropped_on_next_tick() {
+    when(jobsRepository.findStatusById(1L)).thenReturn(Optional.of("running"));
+    when(jobService.getJobLogLines(1L, 0, 500)).thenReturn(List.of("x"));
+
+    SseEmitter emitter = jobLogStreamer.stream(1L, 0);
+    emitter.complete();
+    jobLogStreamer.pushNewLines();
+    jobLogStreamer.pushNewLines();
+
+    assertEquals(0, jobLogStreamer.getSubscriberCount());
+    verify(jobsRepository, times(1)).findStatusById(1L);
+  }
+
+  @Test
+  public void deleted_job_ends_the_stream() {
+    when(jobsRepository.findStatusById(1L)).thenReturn(Optional.empty());
+
+    jobLogStreamer.stream(1L, 0);
+    jobLogStreamer.pushNewLines();
+    jobLogStreamer.pushNewLines();
+
+    assertEquals(0, jobLogStreamer.getSubscriberCount());
+    verify(jobService, times(1)).getJobLogLines(anyLong(), anyInt(), anyInt());
+  }
+}
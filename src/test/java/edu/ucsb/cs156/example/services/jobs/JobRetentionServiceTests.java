@@ -0,0 +1,100 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.models.JobPurgeReport;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageRequest;
+
+public class JobRetentionServiceTests {
+
+  private JobsRepository jobsRepository;
+  private SimpleMeterRegistry meterRegistry;
+
+  @BeforeEach
+  public void setup() {
+    jobsRepository = mock(JobsRepository.class);
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  private JobRetentionService service(int maxAgeDays, int maxCount, int batchSize) {
+    return new JobRetentionService(jobsRepository, meterRegistry, maxAgeDays, maxCount, batchSize);
+  }
+
+  @Test
+  public void old_jobs_are_deleted_in_batches_until_a_short_batch() {
+    when(jobsRepository.findFinishedIdsCreatedBefore(any(), any()))
+        .thenReturn(List.of(1L, 2L))
+        .thenReturn(List.of(3L));
+    when(jobsRepository.deleteByIds(List.of(1L, 2L))).thenReturn(2);
+    when(jobsRepository.deleteByIds(List.of(3L))).thenReturn(1);
+
+    JobPurgeReport report = service(7, 0, 2).purge();
+
+    assertEquals(3, report.getDeleted());
+    ArgumentCaptor<ZonedDateTime> cutoff = ArgumentCaptor.forClass(ZonedDateTime.class);
+    verify(jobsRepository, times(2))
+        .findFinishedIdsCreatedBefore(cutoff.capture(), eq(PageRequest.ofSize(2)));
+    assertTrue(cutoff.getValue().isBefore(ZonedDateTime.now().minusDays(6)));
+    verify(jobsRepository, never()).findFinishedIdsNewestFirst(any());
+    assertEquals(3.0, meterRegistry.get("jobs.purged").counter().count());
+    assertEquals(1, meterRegistry.get("jobs.purge").timer().count());
+  }
+
+  @Test
+  public void jobs_beyond_the_newest_max_count_are_deleted() {
+    when(jobsRepository.findFinishedIdsNewestFirst(PageRequest.of(100, 1)))
+        .thenReturn(List.of(40L));
+    when(jobsRepository.findFinishedIdsUpTo(40L, PageRequest.ofSize(1000)))
+        .thenReturn(List.of(39L, 40L));
+    when(jobsRepository.deleteByIds(List.of(39L, 40L))).thenReturn(2);
+
+    JobPurgeReport report = service(0, 100, 1000).purge();
+
+    assertEquals(2, report.getDeleted());
+    verify(jobsRepository, never()).findFinishedIdsCreatedBefore(any(), any());
+  }
+
+  @Test
+  public void nothing_is_deleted_when_under_the_limits() {
+    JobPurgeReport report = service(30, 100, 1000).purge();
+
+    assertEquals(0, report.getDeleted());
+    verify(jobsRepository, never()).findFinishedIdsUpTo(anyLong(), any());
+    verify(jobsRepository, never()).deleteByIds(any());
+  }
+
+  @Test
+  public void delete_all_uses_one_bulk_statement_and_keeps_running_jobs() {
+    when(jobsRepository.deleteAllFinished()).thenReturn(5);
+    when(jobsRepository.countByStatus("running")).thenReturn(2L);
+
+    JobPurgeReport report = service(30, 100, 1000).deleteAll();
+
+    assertEquals(5, report.getDeleted());
+    assertEquals(2, report.getSkipped());
+    verify(jobsRepository, never()).deleteAll();
+  }
+
+  @Test
+  public void scheduled_purge_runs_the_purge() {
+    service(30, 0, 1000).purgeOnSchedule();
+
+    verify(jobsRepository, times(1)).findFinishedIdsCreatedBefore(any(), any());
+  }
+}
@@ -0,0 +1,489 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.CurrentUserService;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JobServiceTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobLogLinesRepository jobLogLinesRepository;
+
+  @Mock private JobLogBuffer jobLogBuffer;
+
+  @Mock private JobLogArchiver jobLogArchiver;
+
+  @Mock private CurrentUserService currentUserService;
+
+  @Spy private ObjectMapper mapper = new ObjectMapper();
+
+  @Mock private JobService self;
+
+  @InjectMocks private JobService jobService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(jobService, "leaseDurationMs", 60000L);
+    ReflectionTestUtils.setField(jobService, "maxAttempts", 3);
+    when(jobsRepository.finish(anyLong(), anyString(), any(), any(), any())).thenReturn(1);
+    when(jobsRepository.renewLeases(any(), anyString(), any()))
+        .thenAnswer(invocation -> invocation.<Collection<?>>getArgument(0).size());
+  }
+
+  private static JobLogLine line(long jobId, int lineNumber, String message) {
+    return JobLogLine.builder().jobId(jobId).lineNumber(lineNumber).message(message).build();
+  }
+
+  @Test
+  public void job_is_marked_rejected_when_executor_is_full() {
+    // arrange
+    User user = User.builder().id(1L).build();
+    when(currentUserService.getUser()).thenReturn(user);
+    doThrow(new TaskRejectedException("queue full")).when(self).runJobAsync(any(), any());
+
+    // act
+    Job job = jobService.runAsJob(ctx -> ctx.log("never runs"));
+
+    // assert
+    assertEquals("rejected", job.getStatus());
+    assertNull(job.getJobType());
+    assertNull(job.getLeaseOwner());
+    verify(jobLogBuffer, times(1))
+        .append(line(job.getId(), 0, "Job rejected: the job executor queue is full"));
+    verify(jobLogBuffer, times(1)).close(job.getId());
+    verify(jobsRepository, times(1)).save(eq(job));
+    verify(jobsRepository, times(1))
+        .finish(eq(job.getId()), anyString(), eq("rejected"), isNull(), any());
+  }
+
+  @Test
+  public void serializable_job_functions_are_recorded_with_a_lease() {
+    // act
+    Job job = jobService.runAsJob(TestJob.builder().fail(true).sleepMs(5).build());
+
+    // assert
+    assertEquals("running", job.getStatus());
+    assertEquals(TestJob.class.getName(), job.getJobType());
+    assertEquals("{\"fail\":true,\"sleepMs\":5}", job.getParams());
+    assertEquals(1, job.getAttempts());
+    verify(self, times(1)).runJobAsync(eq(job), any(TestJob.class));
+    verify(jobsRepository, times(1)).save(job);
+    assertNotNull(job.getLeaseOwner());
+    assertNotNull(job.getLeaseExpiresAt());
+  }
+
+  @Test
+  public void heartbeat_does_nothing_without_local_jobs() {
+    jobService.renewLeases();
+    verify(jobsRepository, never()).renewLeases(any(), any(), any());
+  }
+
+  @Test
+  public void heartbeat_renews_leases_of_jobs_running_here() throws Exception {
+    // arrange
+    Job job = Job.builder().id(7L).status("running").attempts(1).build();
+    JobContextConsumer jobFunction =
+        ctx -> {
+          jobService.renewLeases();
+        };
+
+    // act
+    jobService.runJobAsync(job, jobFunction);
+    jobService.renewLeases();
+
+    // assert
+    verify(jobsRepository, times(1)).renewLeases(eq(List.of(7L)), anyString(), any());
+    assertEquals("complete", job.getStatus());
+  }
+
+  @Test
+  public void resumed_job_continues_numbering_after_existing_lines() throws Exception {
+    // arrange
+    Job job = Job.builder().id(3L).status("running").attempts(2).build();
+    when(jobLogLinesRepository.countByJobId(3L)).thenReturn(4);
+
+    // act
+    jobService.runJobAsync(job, ctx -> ctx.log("again"));
+
+    // assert
+    verify(jobLogBuffer, times(1)).append(line(3L, 4, "again"));
+    verify(jobLogBuffer, times(1)).close(3L);
+    assertEquals("complete", job.getStatus());
+  }
+
+  @Test
+  public void finished_job_is_saved_before_its_log_is_archived() {
+    // arrange
+    Job job = Job.builder().id(5L).status("running").attempts(1).build();
+    InOrder inOrder = inOrder(jobLogBuffer, jobLogArchiver, jobsRepository);
+
+    // act
+    jobService.runJobAsync(job, ctx -> ctx.log("done"));
+
+    // assert
+    inOrder.verify(jobLogBuffer).close(5L);
+    inOrder.verify(jobsRepository).finish(eq(5L), anyString(), eq("complete"), isNull(), any());
+    inOrder.verify(jobLogArchiver).archive(5L);
+    verify(jobsRepository, never()).save(any());
+  }
+
+  @Test
+  public void job_whose_lease_was_taken_over_is_not_saved_or_archived() {
+    // arrange
+    Job job = Job.builder().id(5L).status("running").attempts(1).build();
+    when(jobsRepository.finish(eq(5L), anyString(), any(), any(), any())).thenReturn(0);
+
+    // act
+    jobService.runJobAsync(job, ctx -> ctx.log("done"));
+
+    // assert
+    verify(jobLogBuffer, times(1)).close(5L);
+    verify(jobLogArchiver, never()).archive(5L);
+    verify(jobsRepository, never()).save(any());
+  }
+
+  @Test
+  public void failure_to_archive_does_not_fail_the_job() {
+    // arrange
+    Job job = Job.builder().id(6L).status("running").attempts(1).build();
+    doThrow(new IllegalStateException("db down")).when(jobLogArchiver).archive(6L);
+
+    // act
+    jobService.runJobAsync(job, ctx -> ctx.log("done"));
+
+    // assert
+    assertEquals("complete", job.getStatus());
+    verify(jobsRepository, times(1)).finish(eq(6L), anyString(), eq("complete"), isNull(), any());
+  }
+
+  @Test
+  public void recovery_claims_expired_job_and_runs_it_again() {
+    // arrange
+    Job job =
+        Job.builder()
+            .id(5L)
+            .status("running")
+            .jobType(TestJob.class.getName())
+            .params("{\"fail\":false,\"sleepMs\":0}")
+            .attempts(2)
+            .build();
+    when(jobsRepository.findIdsWithExpiredLease(any(), any())).thenReturn(List.of(5L, 6L));
+    when(jobsRepository.claimExpiredLease(eq(5L), anyString(), any(), any())).thenReturn(1);
+    when(jobsRepository.claimExpiredLease(eq(6L), anyString(), any(), any())).thenReturn(0);
+    when(jobsRepository.findById(5L)).thenReturn(Optional.of(job));
+
+    // act
+    jobService.recoverExpiredJobs();
+
+    // assert
+    ArgumentCaptor<JobContextConsumer> captor = ArgumentCaptor.forClass(JobContextConsumer.class);
+    verify(self, times(1)).runJobAsync(eq(job), captor.capture());
+    assertEquals(0, ((TestJob) captor.getValue()).getSleepMs());
+    verify(jobsRepository, never()).findById(6L);
+  }
+
+  @Test
+  public void recovery_skips_jobs_running_on_this_instance() throws Exception {
+    // arrange
+    Job job = Job.builder().id(8L).status("running").attempts(1).build();
+    when(jobsRepository.findIdsWithExpiredLease(any(), any())).thenReturn(List.of(8L));
+
+    // act
+    jobService.runJobAsync(job, ctx -> jobService.recoverExpiredJobs());
+
+    // assert
+    verify(jobsRepository, never()).claimExpiredLease(eq(8L), anyString(), any(), any());
+  }
+
+  @Test
+  public void recovered_job_that_cannot_be_rebuilt_is_marked_error() {
+    // arrange
+    Job lambdaJob = Job.builder().id(9L).status("running").attempts(2).build();
+    Job unknownType =
+        Job.builder().id(10L).status("running").jobType("no.such.Job").attempts(2).build();
+    Job wrongType =
+        Job.builder().id(11L).status("running").jobType("java.lang.String").attempts(2).build();
+    Job badParams =
+        Job.builder()
+            .id(12L)
+            .status("running")
+            .jobType(TestJob.class.getName())
+            .params("not json")
+            .attempts(2)
+            .build();
+    Job tooManyAttempts =
+        Job.builder()
+            .id(13L)
+            .status("running")
+            .jobType(TestJob.class.getName())
+            .params("{}")
+            .attempts(4)
+            .build();
+    List<Job> jobs = List.of(lambdaJob, unknownType, wrongType, badParams, tooManyAttempts);
+    when(jobsRepository.findIdsWithExpiredLease(any(), any()))
+        .thenReturn(jobs.stream().map(Job::getId).toList());
+    for (Job job : jobs) {
+      when(jobsRepository.claimExpiredLease(eq(job.getId()), anyString(), any(), any()))
+          .thenReturn(1);
+      when(jobsRepository.findById(job.getId())).thenReturn(Optional.of(job));
+    }
+    when(jobLogLinesRepository.countByJobId(9L)).thenReturn(1);
+
+    // act
+    jobService.recoverExpiredJobs();
+
+    // assert
+    verify(self, never()).runJobAsync(any(), any());
+    for (Job job : jobs) {
+      assertEquals("error", job.getStatus());
+      assertNull(job.getLeaseOwner());
+      verify(jobLogBuffer, times(1)).close(job.getId());
+    }
+    verify(jobLogBuffer, times(1))
+        .append(line(9L, 1, "Job was interrupted and cannot be resumed (attempt 2)"));
+  }
+
+  @Test
+  public void recovered_job_rejected_by_executor_is_released_for_a_later_pass() {
+    // arrange
+    Job job =
+        Job.builder()
+            .id(14L)
+            .status("running")
+            .jobType(TestJob.class.getName())
+            .params("{}")
+            .leaseOwner("me")
+            .attempts(2)
+            .build();
+    when(jobsRepository.findIdsWithExpiredLease(any(), any())).thenReturn(List.of(14L));
+    when(jobsRepository.claimExpiredLease(eq(14L), anyString(), any(), any())).thenReturn(1);
+    when(jobsRepository.findById(14L)).thenReturn(Optional.of(job));
+    doThrow(new TaskRejectedException("queue full")).when(self).runJobAsync(any(), any());
+
+    // act
+    jobService.recoverExpiredJobs();
+
+    // assert
+    assertEquals("running", job.getStatus());
+    assertEquals(1, job.getAttempts());
+    assertNull(job.getLeaseOwner());
+    verify(jobsRepository, times(1)).releaseLease(eq(14L), anyString());
+    verify(jobsRepository, never()).save(any());
+  }
+
+  /** Runs a job on its own thread, returning once the job function has started. */
+  private Thread startJob(Job job, JobContextConsumer jobFunction) throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    Thread thread =
+        new Thread(
+            () ->
+                jobService.runJobAsync(
+                    job,
+                    ctx -> {
+                      started.countDown();
+                      jobFunction.accept(ctx);
+                    }));
+    thread.start();
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    return thread;
+  }
+
+  @Test
+  public void cancel_interrupts_a_job_running_here() throws Exception {
+    // arrange
+    Job job = Job.builder().id(8L).status("running").attempts(1).build();
+    when(jobsRepository.requestCancel(8L)).thenReturn(1);
+    Thread thread = startJob(job, ctx -> Thread.sleep(30_000));
+
+    // act
+    boolean cancelled = jobService.cancel(8L);
+
+    // assert
+    thread.join(5_000);
+    assertTrue(cancelled);
+    assertEquals("cancelled", job.getStatus());
+    verify(jobLogBuffer, times(1)).append(line(8L, 0, "Job cancelled by an administrator"));
+  }
+
+  @Test
+  public void cancel_of_job_that_is_not_running_does_nothing() {
+    when(jobsRepository.requestCancel(9L)).thenReturn(0);
+
+    assertFalse(jobService.cancel(9L));
+  }
+
+  @Test
+  public void heartbeat_stops_jobs_cancelled_through_another_instance() throws Exception {
+    // arrange
+    Job job = Job.builder().id(10L).status("running").attempts(1).build();
+    when(jobsRepository.findCancelRequestedIds(List.of(10L))).thenReturn(List.of(10L));
+    Thread thread =
+        startJob(
+            job,
+            ctx -> {
+              while (true) {
+                ctx.checkCancelled();
+                Thread.onSpinWait();
+              }
+            });
+
+    // act
+    jobService.renewLeases();
+
+    // assert
+    thread.join(5_000);
+    assertEquals("cancelled", job.getStatus());
+  }
+
+  @Test
+  public void heartbeat_stops_jobs_whose_lease_another_instance_took() throws Exception {
+    // arrange
+    Job kept = Job.builder().id(20L).status("running").attempts(1).build();
+    Job lost = Job.builder().id(21L).status("running").attempts(1).build();
+    CountDownLatch stopKept = new CountDownLatch(1);
+    Thread keptThread = startJob(kept, ctx -> stopKept.await(5, TimeUnit.SECONDS));
+    Thread lostThread = startJob(lost, ctx -> Thread.sleep(30_000));
+    doReturn(1).when(jobsRepository).renewLeases(any(), anyString(), any());
+    when(jobsRepository.findIdsLeasedBy(any(), anyString())).thenReturn(List.of(20L));
+    when(jobsRepository.finish(eq(21L), anyString(), any(), any(), any())).thenReturn(0);
+
+    // act
+    jobService.renewLeases();
+
+    // assert
+    lostThread.join(5_000);
+    assertEquals("lease lost", lost.getStatus());
+    assertTrue(keptThread.isAlive());
+    verify(jobLogBuffer, never()).append(line(21L, 0, "Job lease was taken over by another instance"));
+    verify(jobLogArchiver, never()).archive(21L);
+    stopKept.countDown();
+    keptThread.join(5_000);
+    assertEquals("complete", kept.getStatus());
+  }
+
+  @Test
+  public void heartbeat_does_not_look_up_leases_when_all_were_renewed() throws Exception {
+    // arrange
+    Job job = Job.builder().id(22L).status("running").attempts(1).build();
+
+    // act
+    jobService.runJobAsync(job, ctx -> jobService.renewLeases());
+
+    // assert
+    verify(jobsRepository, never()).findIdsLeasedBy(any(), any());
+    assertEquals("complete", job.getStatus());
+  }
+
+  @Test
+  public void watchdog_stops_jobs_past_their_timeout_and_saves_progress() throws Exception {
+    // arrange
+    Job job =
+        Job.builder()
+            .id(11L)
+            .status("running")
+            .attempts(1)
+            .timeoutAt(ZonedDateTime.now().plusSeconds(1))
+            .build();
+    CountDownLatch progressed = new CountDownLatch(1);
+    Thread thread =
+        startJob(
+            job,
+            ctx -> {
+              ctx.progress(40);
+              progressed.countDown();
+              Thread.sleep(30_000);
+            });
+    assertTrue(progressed.await(5, TimeUnit.SECONDS));
+
+    // act
+    jobService.checkRunningJobs();
+    jobService.checkRunningJobs();
+    verify(jobsRepository, times(1)).updateProgress(11L, 40);
+    job.setTimeoutAt(ZonedDateTime.now().minusSeconds(1));
+    jobService.checkRunningJobs();
+
+    // assert
+    thread.join(5_000);
+    assertEquals("timeout", job.getStatus());
+    assertEquals(40, job.getProgress());
+    verify(jobLogBuffer, times(1))
+        .append(line(11L, 0, "Job timed out at %s".formatted(job.getTimeoutAt())));
+  }
+
+  @Test
+  public void timeout_is_recorded_when_a_job_is_started() {
+    // act
+    Job withDefault = jobService.runAsJob(ctx -> {});
+    ReflectionTestUtils.setField(jobService, "defaultTimeoutMs", 60_000L);
+    Job withTimeout = jobService.runAsJob(ctx -> {});
+
+    // assert
+    assertNull(withDefault.getTimeoutAt());
+    assertTrue(withTimeout.getTimeoutAt().isAfter(ZonedDateTime.now().plusSeconds(30)));
+  }
+
+  @Test
+  public void recovered_job_that_was_cancelled_is_not_run_again() {
+    // arrange
+    Job job =
+        Job.builder()
+            .id(12L)
+            .status("running")
+            .jobType(TestJob.class.getName())
+            .params("{\"fail\":false,\"sleepMs\":0}")
+            .attempts(2)
+            .cancelRequested(true)
+            .build();
+    when(jobsRepository.findIdsWithExpiredLease(any(), any())).thenReturn(List.of(12L));
+    when(jobsRepository.claimExpiredLease(eq(12L), anyString(), any(), any())).thenReturn(1);
+    when(jobsRepository.findById(12L)).thenReturn(Optional.of(job));
+
+    // act
+    jobService.recoverExpiredJobs();
+
+    // assert
+    assertEquals("cancelled", job.getStatus());
+    verify(self, never()).runJobAsync(any(), any());
+  }
+}
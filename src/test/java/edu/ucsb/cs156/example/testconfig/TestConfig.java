@@ -5,12 +5,24 @@ import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 
 
+import edu.ucsb.cs156.example.services.AdminDirectory;
+import edu.ucsb.cs156.example.services.AuthTelemetry;
+import edu.ucsb.cs156.example.services.BulkWriter;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.JsonArrayStreamer;
+import edu.ucsb.cs156.example.services.KeysetPager;
+import edu.ucsb.cs156.example.services.SessionTokenService;
+import edu.ucsb.cs156.example.services.UserCache;
+import edu.ucsb.cs156.example.services.UserProvisioningService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springframework.context.annotation.Import;
 
 @TestConfiguration
-@Import(SecurityConfig.class)
+@Import({SecurityConfig.class, AdminDirectory.class, AuthTelemetry.class, SessionTokenService.class,
+    UserCache.class, UserProvisioningService.class, KeysetPager.class, JsonArrayStreamer.class,
+    BulkWriter.class})
 public class TestConfig {
 
     @Bean
@@ -23,4 +35,9 @@ public class TestConfig {
         return new GrantedAuthoritiesService();
     }
 
+    @Bean
+    public MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
 }